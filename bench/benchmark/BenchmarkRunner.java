@@ -0,0 +1,35 @@
+package benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks of this folder with the GC profiler, which reports
+ * the allocation rate (gc.alloc.rate) and the bytes allocated by each
+ * operation (gc.alloc.rate.norm) besides the throughput.<br>
+ * The benchmarks are compiled with the library on the class path, together
+ * with jmh-core and the jmh-generator-annprocess annotation processor, and
+ * they need Java 8 or later: the <code>bench</code> and
+ * <code>run-bench</code> targets of <code>build.xml</code> compile and run
+ * them with the JMH jars of the folder given by the property
+ * <code>jmh.lib</code>. The argument is a regular expression which selects
+ * the benchmarks to run, for example
+ * <code>java -cp ... benchmark.BenchmarkRunner JointManagerBenchmark</code>;
+ * without it all the benchmarks are run.
+ *
+ * @author Elisa Costante
+ *
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws RunnerException {
+		String include = (args.length > 0) ? args[0] : "benchmark\\..*";
+		Options options = new OptionsBuilder().include(include).addProfiler(
+				GCProfiler.class).build();
+		new Runner(options).run();
+	}
+
+}
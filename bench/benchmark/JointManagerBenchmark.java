@@ -0,0 +1,101 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import joint.JointManager;
+import massDistribution.JointMassDistribution;
+import massDistribution.MassDistribution;
+import massDistribution.MassShape;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import core.FrameOfDiscernment;
+import utilities.WorkloadGenerator;
+
+/**
+ * Measures the throughput of the operators of {@link JointManager} on random
+ * masses (see {@link WorkloadGenerator}), for each combination of frame size,
+ * number of focal elements of each mass, number of sources and shape of the
+ * masses. The sources agree on a target hypothesis up to {@link #CONFLICT},
+ * so Dempster's combination of 100 sources is not a total conflict and every
+ * benchmark measures a valid combination. Run it with {@link BenchmarkRunner}
+ * to get the allocation rate too.
+ *
+ * @author Elisa Costante
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JointManagerBenchmark {
+
+	/**
+	 * The mass that each source gives to the focal elements which do not
+	 * contain the target hypothesis.
+	 */
+	public static final double CONFLICT = 0.05;
+
+	@Param( { "4", "10", "20" })
+	public int hypothesies;
+
+	@Param( { "2", "8", "32" })
+	public int focalElements;
+
+	@Param( { "2", "10", "100" })
+	public int sources;
+
+	/**
+	 * GENERAL stands for masses with random focal elements.
+	 */
+	@Param( { "BAYESIAN", "CONSONANT", "GENERAL" })
+	public MassShape shape;
+
+	private FrameOfDiscernment frame;
+	private ArrayList<MassDistribution> masses;
+
+	@Setup
+	public void setUp() {
+		WorkloadGenerator generator = new WorkloadGenerator(42);
+		generator.setHypothesies(hypothesies);
+		generator.setFocalElements(focalElements);
+		generator.setShape(shape);
+		generator.setConflict(CONFLICT);
+		frame = generator.newFrame();
+		masses = generator.newMasses(frame, sources);
+	}
+
+	@Benchmark
+	public JointMassDistribution dempsterJoint() throws Exception {
+		return JointManager.dempsterJoint(masses, frame);
+	}
+
+	@Benchmark
+	public JointMassDistribution yagerJoint() throws Exception {
+		return JointManager.yagerJoint(masses, frame);
+	}
+
+	@Benchmark
+	public JointMassDistribution averageJoint() throws Exception {
+		return JointManager.averageJoint(masses, frame);
+	}
+
+	@Benchmark
+	public JointMassDistribution distanceEvidenceJoint() throws Exception {
+		return JointManager.distanceEvidenceJoint(masses, frame);
+	}
+
+}
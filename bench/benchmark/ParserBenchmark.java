@@ -0,0 +1,163 @@
+package benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import massDistribution.MassDistribution;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import testing.ReadTestUtility;
+import utilities.MassDistributionFileHandler;
+
+/**
+ * Measures the readers of masses on generated files (see
+ * {@link SyntheticFiles}): {@link MassDistributionFileHandler}, which reads a
+ * single mass with a focal element for each line, and
+ * {@link ReadTestUtility#readInput(String, ArrayList)}, which reads the masses
+ * of a scenario.<br>
+ * Besides the operations per second, the {@link Counters} report the bytes
+ * read per second (divide by 10^6 for MB/s) and the masses and focal elements
+ * read per second. The bytes allocated for each mass are gc.alloc.rate.norm
+ * of {@link BenchmarkRunner} divided by the masses of the file.<br>
+ * The <code>ColdStart</code> benchmarks parse the file once in each of many
+ * new JVMs, so they measure the first parse, class loading and interpreted
+ * code included; the other ones measure the warmed-up parser.
+ *
+ * @author Elisa Costante
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+public class ParserBenchmark {
+
+	/**
+	 * A mass file from 1 KB to 100 MB: the parser keeps the whole mass in
+	 * memory.
+	 */
+	@State(Scope.Benchmark)
+	public static class MassFile {
+		@Param( { "1024", "1048576", "104857600" })
+		public long bytes;
+
+		private String path;
+
+		@Setup(Level.Trial)
+		public void setUp() throws IOException {
+			path = SyntheticFiles.getMassFile(bytes).getPath();
+		}
+	}
+
+	/**
+	 * A scenario file from 1 KB to 1 GB.
+	 */
+	@State(Scope.Benchmark)
+	public static class ScenarioFile {
+		@Param( { "1024", "1048576", "104857600", "1073741824" })
+		public long bytes;
+
+		private String path;
+		private long length;
+
+		@Setup(Level.Trial)
+		public void setUp() throws IOException {
+			File file = SyntheticFiles.getScenarioFile(bytes);
+			path = file.getPath();
+			length = file.length();
+		}
+	}
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Counters {
+		public long bytes;
+		public long masses;
+		public long focalElements;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			bytes = 0;
+			masses = 0;
+			focalElements = 0;
+		}
+	}
+
+	/**
+	 * A list which counts the masses added by the reader and drops them, so
+	 * the scenarios bigger than the heap can be read.
+	 */
+	private static class CountingList extends ArrayList<MassDistribution> {
+		private static final long serialVersionUID = 1L;
+
+		private final Counters counters;
+
+		private CountingList(Counters counters) {
+			this.counters = counters;
+		}
+
+		@Override
+		public boolean add(MassDistribution mass) {
+			counters.masses++;
+			if (mass != null)
+				counters.focalElements = counters.focalElements
+						+ mass.getBodyOfEvidence().size();
+			return true;
+		}
+	}
+
+	@Benchmark
+	public MassDistribution massFile(MassFile file, Counters counters) {
+		MassDistribution mass = new MassDistributionFileHandler()
+				.getMassDistribution(file.path);
+		counters.bytes = counters.bytes + new File(file.path).length();
+		counters.masses++;
+		if (mass != null)
+			counters.focalElements = counters.focalElements
+					+ mass.getBodyOfEvidence().size();
+		return mass;
+	}
+
+	@Benchmark
+	public void scenarioFile(ScenarioFile file, Counters counters) {
+		ReadTestUtility.readInput(file.path, new CountingList(counters));
+		counters.bytes = counters.bytes + file.length;
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 0)
+	@Measurement(iterations = 1)
+	@Fork(value = 20, jvmArgsAppend = { "-Xmx4g" })
+	public MassDistribution massFileColdStart(MassFile file, Counters counters) {
+		return massFile(file, counters);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 0)
+	@Measurement(iterations = 1)
+	@Fork(value = 20, jvmArgsAppend = { "-Xmx4g" })
+	public void scenarioFileColdStart(ScenarioFile file, Counters counters) {
+		scenarioFile(file, counters);
+	}
+
+}
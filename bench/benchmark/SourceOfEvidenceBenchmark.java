@@ -0,0 +1,116 @@
+package benchmark;
+
+import interfaces.IHypothesis;
+import interfaces.IRange;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import massDistribution.ClassAttributeMap;
+import massDistribution.ClassificationAttribute;
+import massDistribution.MassDistribution;
+import massDistribution.MeasuredAttribute;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import core.FrameOfDiscernment;
+import core.SourceOfEvidence;
+import utilities.WorkloadGenerator;
+
+/**
+ * Measures the latency of the construction of a mass from a
+ * {@link SourceOfEvidence} (see {@link WorkloadGenerator}) and of the steps of
+ * the classification of its measures: the lookup of the ranges of each
+ * hypothesis and the test of the measured value against each range. The
+ * classification of a single measure (<code>computeElement</code>) is
+ * private, so it is measured through
+ * {@link SourceOfEvidence#getMassDistribution(FrameOfDiscernment, ClassAttributeMap)}
+ * .<br>
+ * Run it with {@link BenchmarkRunner} to get the bytes allocated for each
+ * mass too.
+ *
+ * @author Elisa Costante
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SourceOfEvidenceBenchmark {
+
+	@Param( { "4", "16" })
+	public int hypothesies;
+
+	@Param( { "4", "16", "64" })
+	public int attributes;
+
+	@Param( { "1", "4", "16" })
+	public int ranges;
+
+	/**
+	 * The probability that an attribute is discrete.
+	 */
+	@Param( { "0", "0.5", "1" })
+	public double discreteFraction;
+
+	private FrameOfDiscernment frame;
+	private ClassAttributeMap classAttributeMap;
+	private SourceOfEvidence source;
+
+	@Setup
+	public void setUp() {
+		WorkloadGenerator generator = new WorkloadGenerator(42);
+		generator.setHypothesies(hypothesies);
+		generator.setAttributes(attributes);
+		generator.setRanges(ranges);
+		generator.setDiscreteFraction(discreteFraction);
+		frame = generator.newFrame();
+		classAttributeMap = generator.newClassAttributeMap(frame);
+		source = generator.newSources(frame, classAttributeMap, 1).get(0);
+	}
+
+	@Benchmark
+	public MassDistribution getMassDistribution() {
+		return source.getMassDistribution(frame, classAttributeMap);
+	}
+
+	@Benchmark
+	public void getRanges(Blackhole blackhole) {
+		for (ClassificationAttribute attribute : classAttributeMap
+				.getAllAttributes()) {
+			for (IHypothesis hypothesis : frame.getHipothesies()) {
+				blackhole.consume(attribute.getRanges(hypothesis));
+			}
+		}
+	}
+
+	@Benchmark
+	public void containsValue(Blackhole blackhole) {
+		ArrayList<MeasuredAttribute> measured = source.getMeasuredAttributes();
+		ArrayList<ClassificationAttribute> all = classAttributeMap
+				.getAllAttributes();
+		for (int i = 0; i < all.size(); i++) {
+			ClassificationAttribute attribute = all.get(i);
+			for (IHypothesis hypothesis : frame.getHipothesies()) {
+				for (IRange range : attribute.getRanges(hypothesis)) {
+					blackhole.consume(range.containsValue(measured.get(i)
+							.getMetric().getMeasure()));
+				}
+			}
+		}
+	}
+
+}
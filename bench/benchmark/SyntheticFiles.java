@@ -0,0 +1,183 @@
+package benchmark;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Writes the random input files of the parser benchmarks: a mass in the
+ * format of {@link utilities.MassDistributionFileHandler} (a focal element for
+ * each line) and a scenario in the format of <code>test1.txt</code> (the frame
+ * and a mass for each line after <code>$Input row-N</code>). The files are
+ * kept in the temporary folder, named after their size, and written only once,
+ * so the forks of a benchmark share them.
+ *
+ * @author Elisa Costante
+ *
+ */
+public class SyntheticFiles {
+
+	private static final int HYPOTHESIES = 8;
+
+	/**
+	 * The number of masses is written as a fixed width number and updated when
+	 * the file is complete.
+	 */
+	private static final String INPUT_HEADER = "$Input row-";
+	private static final int COUNT_WIDTH = 10;
+
+	/**
+	 * Returns a file of about <code>bytes</code> bytes with a single mass,
+	 * whose focal elements have all the same bpa. The whole mass is kept in
+	 * memory by the parser, so the file should not be bigger than a fraction
+	 * of the heap.
+	 *
+	 * @param bytes
+	 * @return the file.
+	 * @throws IOException
+	 */
+	public static File getMassFile(long bytes) throws IOException {
+		File file = getFile("mass", bytes);
+		if (file.exists())
+			return file;
+
+		// an element has HYPOTHESIES/2 hypothesies on average, the bpa has 17
+		// characters: the parser splits on '-', so it cannot be written with
+		// an exponent
+		long lines = Math.max(1, bytes / (2 * HYPOTHESIES + 20));
+		String bpa = String.format(Locale.US, "%.15f", 1.0 / lines);
+		Random random = new Random(bytes);
+		File partial = new File(file.getPath() + ".part");
+		Writer writer = newWriter(partial);
+		try {
+			writer.write("# " + lines + " focal elements\n");
+			for (long i = 0; i < lines; i++) {
+				writer.write(newElement(random) + "-" + bpa + "\n");
+			}
+		} finally {
+			writer.close();
+		}
+		rename(partial, file);
+		return file;
+	}
+
+	/**
+	 * Returns a scenario file of at least <code>bytes</code> bytes, with
+	 * masses of 1 to 4 focal elements.
+	 *
+	 * @param bytes
+	 * @return the file.
+	 * @throws IOException
+	 */
+	public static File getScenarioFile(long bytes) throws IOException {
+		File file = getFile("scenario", bytes);
+		if (file.exists())
+			return file;
+
+		Random random = new Random(bytes);
+		File partial = new File(file.getPath() + ".part");
+		Writer writer = newWriter(partial);
+		long written = 0;
+		long masses = 0;
+		long countPosition;
+		try {
+			String header = "#Synthetic scenario\n$Frame of Discernment\n{";
+			for (int i = 0; i < HYPOTHESIES; i++) {
+				header = header + ((i > 0) ? "," : "") + "H" + i;
+			}
+			header = header + "}\n";
+			countPosition = header.length() + INPUT_HEADER.length();
+			header = header + INPUT_HEADER + pad(0) + "\n";
+			writer.write(header);
+			written = header.length();
+
+			while (written < bytes) {
+				String line = newMass(random);
+				writer.write(line);
+				written = written + line.length();
+				masses++;
+			}
+		} finally {
+			writer.close();
+		}
+
+		RandomAccessFile count = new RandomAccessFile(partial, "rw");
+		try {
+			count.seek(countPosition);
+			count.writeBytes(pad(masses));
+		} finally {
+			count.close();
+		}
+		rename(partial, file);
+		return file;
+	}
+
+	private static File getFile(String kind, long bytes) {
+		File file = new File(System.getProperty("java.io.tmpdir"),
+				"dempstershafer-" + kind + "-" + bytes + ".txt");
+		return file;
+	}
+
+	private static Writer newWriter(File file) throws IOException {
+		return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(
+				file), "US-ASCII"), 1 << 16);
+	}
+
+	private static void rename(File partial, File file) throws IOException {
+		if (!partial.renameTo(file))
+			throw new IOException("Cannot rename " + partial + " to " + file);
+	}
+
+	private static String pad(long count) {
+		String padded = Long.toString(count);
+		while (padded.length() < COUNT_WIDTH) {
+			padded = "0" + padded;
+		}
+		return padded;
+	}
+
+	/**
+	 * Returns a random non empty element, as {H0,H3}.
+	 */
+	private static String newElement(Random random) {
+		StringBuilder element = new StringBuilder("{");
+		int mask = 1 + random.nextInt((1 << HYPOTHESIES) - 1);
+		for (int i = 0; i < HYPOTHESIES; i++) {
+			if ((mask & (1 << i)) != 0) {
+				if (element.length() > 1)
+					element.append(',');
+				element.append('H').append(i);
+			}
+		}
+		return element.append('}').toString();
+	}
+
+	/**
+	 * Returns a line with a mass of 1 to 4 focal elements, as
+	 * {{H0,H3-0.25};{H1-0.75}}.
+	 */
+	private static String newMass(Random random) {
+		int focalElements = 1 + random.nextInt(4);
+		int left = 100;
+		StringBuilder mass = new StringBuilder("{");
+		for (int i = 0; i < focalElements; i++) {
+			int percent = (i == focalElements - 1) ? left : random
+					.nextInt(left + 1);
+			left = left - percent;
+			if (i > 0)
+				mass.append(';');
+			mass.append('{');
+			String element = newElement(random);
+			mass.append(element.substring(1, element.length() - 1));
+			mass.append('-').append(percent / 100.0).append('}');
+		}
+		return mass.append("}\n").toString();
+	}
+
+}
@@ -0,0 +1,152 @@
+package utilities;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The {@link EventTracer} which emits Java Flight Recorder events. The events
+ * are in the category "Dempster-Shafer" and they can be enabled, or given a
+ * threshold, by name in the settings of a recording. A <code>begin</code>
+ * method returns null when its event is not enabled in any recording, so the
+ * callers skip the work of the fields.<br>
+ * The class needs Java 11 and {@link EventTracer} loads it by reflection.
+ *
+ * @author Elisa Costante
+ *
+ */
+public class JfrEventTracer extends EventTracer {
+
+	@Name("dempstershafer.Combination")
+	@Label("Combination")
+	@Category("Dempster-Shafer")
+	@Description("A combination of masses by JointManager")
+	static class CombinationEvent extends Event {
+		@Label("Operator")
+		String operator;
+
+		@Label("Sources")
+		int sources;
+
+		@Label("Input Focal Elements")
+		int inputFocalElements;
+
+		@Label("Output Focal Elements")
+		int outputFocalElements;
+
+		@Label("Conflict")
+		double conflict;
+	}
+
+	@Name("dempstershafer.SourceMass")
+	@Label("Source Mass")
+	@Category("Dempster-Shafer")
+	@Description("The computation of the mass of a SourceOfEvidence")
+	static class SourceMassEvent extends Event {
+		@Label("Source")
+		String source;
+
+		@Label("Attributes")
+		int attributes;
+
+		@Label("Focal Elements")
+		int focalElements;
+	}
+
+	@Name("dempstershafer.Parsing")
+	@Label("Parsing")
+	@Category("Dempster-Shafer")
+	@Description("The parsing of a file of masses")
+	static class ParsingEvent extends Event {
+		@Label("File")
+		String file;
+
+		@Label("Size")
+		@DataAmount
+		long bytes;
+
+		@Label("Masses")
+		int masses;
+
+		@Label("Focal Elements")
+		int focalElements;
+	}
+
+	@Override
+	public Object beginCombination() {
+		CombinationEvent event = new CombinationEvent();
+		if (!event.isEnabled())
+			return null;
+		event.begin();
+		return event;
+	}
+
+	@Override
+	public void endCombination(Object event, String operator, int sources,
+			int inputFocalElements, int outputFocalElements, double conflict) {
+		CombinationEvent combination = (CombinationEvent) event;
+		combination.end();
+		if (combination.shouldCommit()) {
+			combination.operator = operator;
+			combination.sources = sources;
+			combination.inputFocalElements = inputFocalElements;
+			combination.outputFocalElements = outputFocalElements;
+			combination.conflict = conflict;
+			combination.commit();
+		}
+	}
+
+	@Override
+	public Object beginSourceMass() {
+		SourceMassEvent event = new SourceMassEvent();
+		if (!event.isEnabled())
+			return null;
+		event.begin();
+		return event;
+	}
+
+	@Override
+	public void endSourceMass(Object event, String source, int attributes,
+			int focalElements) {
+		SourceMassEvent sourceMass = (SourceMassEvent) event;
+		sourceMass.end();
+		if (sourceMass.shouldCommit()) {
+			sourceMass.source = source;
+			sourceMass.attributes = attributes;
+			sourceMass.focalElements = focalElements;
+			sourceMass.commit();
+		}
+	}
+
+	@Override
+	public Object beginParsing() {
+		ParsingEvent event = new ParsingEvent();
+		if (!event.isEnabled())
+			return null;
+		event.begin();
+		return event;
+	}
+
+	@Override
+	public void endParsing(Object event, String file, long bytes, int masses,
+			int focalElements) {
+		ParsingEvent parsing = (ParsingEvent) event;
+		parsing.end();
+		if (parsing.shouldCommit()) {
+			parsing.file = file;
+			parsing.bytes = bytes;
+			parsing.masses = masses;
+			parsing.focalElements = focalElements;
+			parsing.commit();
+		}
+	}
+
+	@Override
+	public String getName() {
+		return "jfr";
+	}
+
+}
@@ -0,0 +1,103 @@
+package massDistribution;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The {@link DenseKernel} which uses the vector instructions of the processor
+ * through the <code>jdk.incubator.vector</code> module. In the passes of the
+ * transformations where the distance between the paired subsets is at least
+ * the number of lanes, the two halves of each block are loaded, added (or
+ * subtracted) and stored as whole vectors; the first passes, with a smaller
+ * distance, are scalar. The discounting multiplies each mass by its
+ * reliability a vector at a time.<br>
+ * The class needs Java 17 and is compiled and run with
+ * <code>--add-modules jdk.incubator.vector</code>; {@link DenseKernel} loads
+ * it by reflection, so the rest of the library does not depend on it.
+ *
+ * @author Elisa Costante
+ *
+ */
+public class VectorDenseKernel extends DenseKernel {
+
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+	@Override
+	public void toCommonality(double[] m) {
+		transform(m, true);
+	}
+
+	@Override
+	public void toMass(double[] q) {
+		transform(q, false);
+	}
+
+	private static void transform(double[] values, boolean add) {
+		int lanes = SPECIES.length();
+		for (int bit = 1; bit < values.length; bit = bit << 1) {
+			for (int block = 0; block < values.length; block = block + 2 * bit) {
+				if (bit < lanes) {
+					for (int a = block; a < block + bit; a++) {
+						values[a] = add ? values[a] + values[a + bit]
+								: values[a] - values[a + bit];
+					}
+				} else {
+					for (int a = block; a < block + bit; a = a + lanes) {
+						DoubleVector low = DoubleVector.fromArray(SPECIES,
+								values, a);
+						DoubleVector high = DoubleVector.fromArray(SPECIES,
+								values, a + bit);
+						(add ? low.add(high) : low.sub(high)).intoArray(values,
+								a);
+					}
+				}
+			}
+		}
+	}
+
+	@Override
+	public void power(double[] q, int k) {
+		int bound = SPECIES.loopBound(q.length);
+		int a = 0;
+		for (; a < bound; a = a + SPECIES.length()) {
+			DoubleVector.fromArray(SPECIES, q, a).lanewise(VectorOperators.POW,
+					k).intoArray(q, a);
+		}
+		for (; a < q.length; a++) {
+			q[a] = Math.pow(q[a], k);
+		}
+	}
+
+	@Override
+	public void discount(double[] masses, int length, double[] reliabilities,
+			int[] sources) {
+		int lanes = SPECIES.length();
+		int count = masses.length / length;
+		for (int i = 0; i < count; i++) {
+			double reliability = reliabilities[sources == null ? i
+					: sources[i]];
+			int start = i * length;
+			if (length < lanes) {
+				for (int a = start; a < start + length; a++) {
+					masses[a] = masses[a] * reliability;
+				}
+			} else {
+				// the length is a power of two, so a mass is a whole number
+				// of vectors
+				for (int a = start; a < start + length; a = a + lanes) {
+					DoubleVector.fromArray(SPECIES, masses, a).mul(reliability)
+							.intoArray(masses, a);
+				}
+			}
+			masses[start + length - 1] = masses[start + length - 1] + 1
+					- reliability;
+		}
+	}
+
+	@Override
+	public String getName() {
+		return "vector (" + SPECIES + ")";
+	}
+
+}
@@ -0,0 +1,157 @@
+package core;
+
+import interfaces.IElement;
+import interfaces.IHypothesis;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+
+import utilities.UnmodifiableArrayList;
+
+/**
+ * A {@link CanonicalElement} is the unique, immutable instance of a subset of a
+ * {@link FrameOfDiscernment} handed out by its {@link ElementPool}. Two
+ * canonical elements of the same pool are equal if and only if they are the
+ * same object, so comparing them is a reference comparison.<br>
+ * The subset is stored as a mask over the hypothesies of the frame: the bit
+ * <code>i</code> is set if the i-th {@link Hypothesis} of the frame belongs to
+ * the element.
+ *
+ * @author Elisa Costante
+ *
+ */
+public class CanonicalElement extends Element {
+
+	private final ElementPool pool;
+	private final BitSet mask;
+	private final int cardinality;
+	private final int hash;
+	private final long fingerprint;
+
+	CanonicalElement(ElementPool pool, BitSet mask,
+			ArrayList<IHypothesis> hypothesies) {
+		super(hypothesies == null ? null
+				: new UnmodifiableArrayList<IHypothesis>(hypothesies));
+		this.pool = pool;
+		this.mask = mask;
+		this.cardinality = mask.cardinality();
+
+		int h = 0;
+		if (hypothesies != null) {
+			for (IHypothesis hypothesis : hypothesies) {
+				h = h + hypothesis.hashCode();
+			}
+		}
+		this.hash = h;
+		this.fingerprint = computeFingerprint(hypothesies);
+	}
+
+	/**
+	 * @return the {@link ElementPool} which owns this element or
+	 *         <code>null</code> for the shared empty set.
+	 */
+	public ElementPool getPool() {
+		return pool;
+	}
+
+	/**
+	 * @return a copy of the mask of the element over the hypothesies of the
+	 *         frame.
+	 */
+	public BitSet getMask() {
+		return (BitSet) mask.clone();
+	}
+
+	/**
+	 * Returns the mask without copying it. It must not be modified.
+	 *
+	 * @return the mask of the element.
+	 */
+	BitSet mask() {
+		return mask;
+	}
+
+	/**
+	 * Returns true if both elements are canonical and they can be compared by
+	 * reference, that is they come from the same pool or one of them is the
+	 * empty set.
+	 *
+	 * @param element1
+	 * @param element2
+	 * @return true if the two elements are equal if and only if they are the
+	 *         same object.
+	 */
+	static boolean areComparableByReference(IElement element1,
+			IElement element2) {
+		if (element1 instanceof CanonicalElement
+				&& element2 instanceof CanonicalElement) {
+			CanonicalElement c1 = (CanonicalElement) element1;
+			CanonicalElement c2 = (CanonicalElement) element2;
+			return c1.pool == c2.pool || c1.cardinality == 0
+					|| c2.cardinality == 0;
+		}
+		return false;
+	}
+
+	@Override
+	public int size() {
+		return cardinality;
+	}
+
+	@Override
+	public boolean isEmptySet() {
+		return cardinality == 0;
+	}
+
+	@Override
+	public boolean isSingleton() {
+		return cardinality == 1;
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public long getFingerprint() {
+		return fingerprint;
+	}
+
+	/**
+	 * A {@link CanonicalElement} is shared by all the masses of the frame, so
+	 * its hypothesies cannot be modified.
+	 *
+	 * @return the hypothesies of the element in a list which cannot be
+	 *         modified, or <code>null</code> for the empty set.
+	 */
+	@Override
+	public ArrayList<IHypothesis> getHypothesies() {
+		return hypothesies;
+	}
+
+	/**
+	 * A {@link CanonicalElement} is shared by all the masses of the frame, so
+	 * it cannot be modified.
+	 *
+	 * @throws UnsupportedOperationException
+	 */
+	@Override
+	public void setHypothesies(ArrayList<IHypothesis> hypothesies) {
+		throw new UnsupportedOperationException(
+				"A canonical element cannot be modified");
+	}
+
+	/**
+	 * A {@link CanonicalElement} is shared by all the masses of the frame, so
+	 * it cannot be modified.
+	 *
+	 * @throws UnsupportedOperationException
+	 */
+	@Override
+	public void addHypothesis(IHypothesis hypothesis) {
+		throw new UnsupportedOperationException(
+				"A canonical element cannot be modified");
+	}
+
+}
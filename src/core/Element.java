@@ -4,8 +4,13 @@ import interfaces.IElement;
 import interfaces.IHypothesis;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.TreeSet;
 
+import utilities.FingerprintUtility;
+
 /**
  * An {@link Element} is a collection of Hypothesis. It is a Singleton if has
  * only one {@link Hypothesis}.
@@ -66,7 +71,14 @@ public class Element implements IElement {
 	public static Element getIntersection(IElement element1, IElement element2) {
 
 		if (element1 != null && element2 != null) {
-			if (element1.isEmptySet() || element2.isEmptySet()) {
+			if (CanonicalElement.areComparableByReference(element1, element2)) {
+				CanonicalElement canonical1 = (CanonicalElement) element1;
+				CanonicalElement canonical2 = (CanonicalElement) element2;
+				if (canonical1.isEmptySet() || canonical2.isEmptySet())
+					return ElementPool.getEmptySet();
+				return canonical1.getPool().getIntersection(canonical1,
+						canonical2);
+			} else if (element1.isEmptySet() || element2.isEmptySet()) {
 				// return the empty set if one of the two elements is empty.
 				return new Element(null);
 			} else {
@@ -116,7 +128,12 @@ public class Element implements IElement {
 	public static IElement getUnion(IElement element1, IElement element2) {
 		if (element1 == null || element2 == null)
 			return null;
-		else if (element1.isEmptySet())
+		else if (CanonicalElement.areComparableByReference(element1, element2)
+				&& !element1.isEmptySet() && !element2.isEmptySet()) {
+			CanonicalElement canonical1 = (CanonicalElement) element1;
+			return canonical1.getPool().getUnion(canonical1,
+					(CanonicalElement) element2);
+		} else if (element1.isEmptySet())
 			return element2;
 		else if (element2.isEmptySet())
 			return element1;
@@ -158,22 +175,54 @@ public class Element implements IElement {
 
 	}
 
+	/**
+	 * Returns the distinct <code>elements</code> sorted by size if they are
+	 * nested (each element is included in the next one), null otherwise.
+	 * 
+	 * @param elements
+	 * @return the chain of the elements or null.
+	 */
+	public static ArrayList<IElement> getChain(ArrayList<IElement> elements) {
+		ArrayList<IElement> chain = new ArrayList<IElement>(
+				new LinkedHashSet<IElement>(elements));
+		Collections.sort(chain, new Comparator<IElement>() {
+			@Override
+			public int compare(IElement element1, IElement element2) {
+				return element1.size() - element2.size();
+			}
+		});
+
+		for (int i = 1; i < chain.size(); i++) {
+			if (!isIncluded(chain.get(i), chain.get(i - 1)))
+				return null;
+		}
+		return chain;
+	}
+
 	/**
 	 * 
 	 * Return true if and only if the two object have the same set of
-	 * hypothesies or have both empty set of hypothesis.
+	 * hypothesies or have both empty set of hypothesis. The hypothesies are
+	 * compared as sets, a duplicated hypothesis counts once. Two
+	 * {@link CanonicalElement} of the same frame are compared by reference.
 	 */
 	@Override
 	public boolean equals(Object obj) {
-		if (this != null && obj != null) {
+		if (this == obj)
+			return true;
+		if (obj instanceof CanonicalElement
+				&& CanonicalElement.areComparableByReference(this,
+						(CanonicalElement) obj))
+			return false;
+		if (obj instanceof Element) {
 			Element other = (Element) obj;
 			ArrayList<IHypothesis> otherHypothesies = other.getHypothesies();
-			if ((this.hypothesies == null && other.getHypothesies() == null)
-					|| (this.hypothesies != null
-							&& other.getHypothesies() != null
-							&& other.getHypothesies().size() == hypothesies
-									.size() && otherHypothesies
-							.containsAll(hypothesies))) {
+			// both the inclusions are checked, so that the comparison is
+			// symmetric when a hypothesis is duplicated
+			if ((this.hypothesies == null && otherHypothesies == null)
+					|| (this.hypothesies != null && otherHypothesies != null
+							&& otherHypothesies.containsAll(hypothesies) && hypothesies
+							.containsAll(otherHypothesies))) {
 
 				return true;
 			}
@@ -183,6 +232,52 @@ public class Element implements IElement {
 		return false;
 	}
 
+	/**
+	 * The hash code is the sum of the hash codes of the distinct hypothesies,
+	 * so that it does not depend on their order and it is consistent with
+	 * {@link #equals(Object)}.
+	 */
+	@Override
+	public int hashCode() {
+		int hash = 0;
+		if (hypothesies != null) {
+			for (int i = 0; i < hypothesies.size(); i++) {
+				IHypothesis hypothesis = hypothesies.get(i);
+				if (hypothesies.indexOf(hypothesis) == i)
+					hash = hash + hypothesis.hashCode();
+			}
+		}
+		return hash;
+	}
+
+	/**
+	 * Returns the 64-bit content fingerprint of the element. It depends only on
+	 * the set of identifiers of the hypothesies, so equal elements have the
+	 * same fingerprint.
+	 * 
+	 * @return the fingerprint of the element.
+	 */
+	public long getFingerprint() {
+		return computeFingerprint(hypothesies);
+	}
+
+	static long computeFingerprint(ArrayList<IHypothesis> hypothesies) {
+		long sum = 0;
+		int count = 0;
+		if (hypothesies != null) {
+			for (int i = 0; i < hypothesies.size(); i++) {
+				IHypothesis hypothesis = hypothesies.get(i);
+				if (hypothesies.indexOf(hypothesis) == i) {
+					sum = sum
+							+ FingerprintUtility.mix(FingerprintUtility
+									.hash(hypothesis.getIdentifier()));
+					count++;
+				}
+			}
+		}
+		return FingerprintUtility.combine(sum, count);
+	}
+
 	/**
 	 * Returns the list of the Hypothesis of the element in the format
 	 * {hyo1,hyp2,..} or the null set {} if there is any hypothesis
@@ -0,0 +1,241 @@
+package core;
+
+import interfaces.IElement;
+import interfaces.IFocalElement;
+import interfaces.IHypothesis;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An {@link ElementPool} holds the {@link CanonicalElement} of each subset of a
+ * {@link FrameOfDiscernment} which has been used so far. Every distinct subset
+ * exists only once, so the masses built on the same frame share their
+ * elements instead of duplicating them.<br>
+ * The pool is safe to be used by several threads.
+ *
+ * @author Elisa Costante
+ *
+ */
+public class ElementPool {
+
+	/**
+	 * The empty set is shared by all the pools.
+	 */
+	private static final CanonicalElement EMPTY_SET = new CanonicalElement(
+			null, new BitSet(), null);
+
+	private final ArrayList<IHypothesis> hypothesies;
+	private final HashMap<IHypothesis, Integer> indexes;
+	private final ConcurrentHashMap<BitSet, CanonicalElement> elements;
+	private final CanonicalElement universalSet;
+
+	/**
+	 * Constructs the pool for the frame made of <code>hypothesies</code>.
+	 *
+	 * @param hypothesies
+	 *            : the hypothesies of the frame.
+	 */
+	public ElementPool(ArrayList<IHypothesis> hypothesies) {
+		this.hypothesies = new ArrayList<IHypothesis>();
+		this.indexes = new HashMap<IHypothesis, Integer>();
+		this.elements = new ConcurrentHashMap<BitSet, CanonicalElement>();
+
+		if (hypothesies != null) {
+			for (IHypothesis hypothesis : hypothesies) {
+				if (!indexes.containsKey(hypothesis)) {
+					indexes.put(hypothesis, this.hypothesies.size());
+					this.hypothesies.add(hypothesis);
+				}
+			}
+		}
+
+		BitSet all = new BitSet();
+		all.set(0, this.hypothesies.size());
+		this.universalSet = getElement(all);
+	}
+
+	/**
+	 * @return the number of hypothesies of the frame.
+	 */
+	public int getHypothesisCount() {
+		return hypothesies.size();
+	}
+
+	/**
+	 * @return the number of distinct elements pooled so far (the empty set is
+	 *         not counted).
+	 */
+	public int size() {
+		return elements.size();
+	}
+
+	/**
+	 * @return the canonical universal set of the frame.
+	 */
+	public CanonicalElement getUniversalSet() {
+		return universalSet;
+	}
+
+	/**
+	 * @return the canonical empty set, shared by all the frames.
+	 */
+	public static CanonicalElement getEmptySet() {
+		return EMPTY_SET;
+	}
+
+	/**
+	 * Returns the canonical element with the hypothesies set in
+	 * <code>mask</code>.
+	 *
+	 * @param mask
+	 *            : the bit <code>i</code> is set if the i-th hypothesis of the
+	 *            frame belongs to the element. It is not modified.
+	 * @return the canonical element.
+	 */
+	public CanonicalElement getElement(BitSet mask) {
+		if (mask.isEmpty())
+			return EMPTY_SET;
+
+		CanonicalElement element = elements.get(mask);
+		if (element == null) {
+			BitSet key = (BitSet) mask.clone();
+			ArrayList<IHypothesis> elementHypothesies = new ArrayList<IHypothesis>(
+					key.cardinality());
+			for (int i = key.nextSetBit(0); i >= 0; i = key.nextSetBit(i + 1)) {
+				elementHypothesies.add(hypothesies.get(i));
+			}
+			element = new CanonicalElement(this, key, elementHypothesies);
+			CanonicalElement previous = elements.putIfAbsent(key, element);
+			if (previous != null)
+				element = previous;
+		}
+		return element;
+	}
+
+	/**
+	 * Returns the canonical element with the <code>hypothesies</code> or
+	 * <code>null</code> if one of them does not belong to the frame.
+	 *
+	 * @param hypothesies
+	 * @return the canonical element or null.
+	 */
+	public CanonicalElement getElement(ArrayList<IHypothesis> hypothesies) {
+		BitSet mask = getMask(hypothesies);
+		if (mask != null)
+			return getElement(mask);
+		else
+			return null;
+	}
+
+	/**
+	 * Returns the mask of the <code>element</code> over the hypothesies of the
+	 * frame or <code>null</code> if one of its hypothesis does not belong to
+	 * the frame.
+	 *
+	 * @param element
+	 * @return the mask of the element or null.
+	 */
+	public BitSet getMask(IElement element) {
+		if (element instanceof CanonicalElement) {
+			CanonicalElement canonical = (CanonicalElement) element;
+			if (canonical.getPool() == this || canonical.isEmptySet())
+				return canonical.getMask();
+		}
+		return getMask(element.getHypothesies());
+	}
+
+	private BitSet getMask(ArrayList<IHypothesis> elementHypothesies) {
+		BitSet mask = new BitSet(hypothesies.size());
+		if (elementHypothesies != null) {
+			for (IHypothesis hypothesis : elementHypothesies) {
+				Integer index = indexes.get(hypothesis);
+				if (index == null)
+					return null;
+				mask.set(index);
+			}
+		}
+		return mask;
+	}
+
+	/**
+	 * Returns the canonical instance of <code>element</code>, or the
+	 * <code>element</code> itself if it does not belong to the frame.
+	 *
+	 * @param element
+	 * @return the canonical element equal to <code>element</code>.
+	 */
+	public IElement intern(IElement element) {
+		if (element == null)
+			return null;
+		if (element instanceof CanonicalElement) {
+			CanonicalElement canonical = (CanonicalElement) element;
+			if (canonical.getPool() == this || canonical.isEmptySet())
+				return canonical;
+		}
+		if (element.isEmptySet())
+			return EMPTY_SET;
+
+		CanonicalElement canonical = getElement(element.getHypothesies());
+		if (canonical != null)
+			return canonical;
+		else
+			return element;
+	}
+
+	/**
+	 * Replaces the element of each {@link IFocalElement} of the
+	 * <code>bodyOfEvidence</code> with its canonical instance.
+	 *
+	 * @param bodyOfEvidence
+	 */
+	public void intern(ArrayList<IFocalElement> bodyOfEvidence) {
+		if (bodyOfEvidence != null) {
+			for (IFocalElement focalElement : bodyOfEvidence) {
+				IElement element = focalElement.getElement();
+				IElement canonical = intern(element);
+				if (canonical != element)
+					focalElement.setElement(canonical);
+			}
+		}
+	}
+
+	/**
+	 * Returns the intersection between two canonical elements of this pool.
+	 *
+	 * @param element1
+	 * @param element2
+	 * @return the canonical intersection.
+	 */
+	public CanonicalElement getIntersection(CanonicalElement element1,
+			CanonicalElement element2) {
+		if (element1.isEmptySet() || element2.isEmptySet())
+			return EMPTY_SET;
+		if (element1 == element2)
+			return element1;
+		BitSet intersection = element1.getMask();
+		intersection.and(element2.mask());
+		return getElement(intersection);
+	}
+
+	/**
+	 * Returns the union between two canonical elements of this pool.
+	 *
+	 * @param element1
+	 * @param element2
+	 * @return the canonical union.
+	 */
+	public CanonicalElement getUnion(CanonicalElement element1,
+			CanonicalElement element2) {
+		if (element1.isEmptySet())
+			return element2;
+		if (element2.isEmptySet() || element1 == element2)
+			return element1;
+		BitSet union = element1.getMask();
+		union.or(element2.mask());
+		return getElement(union);
+	}
+
+}
@@ -8,6 +8,7 @@ import java.util.TreeSet;
 
 import massDistribution.MassDistribution;
 import utilities.DoubleUtility;
+import utilities.FingerprintUtility;
 
 /**
  * A Focal Element is a couple Element-bpa.
@@ -157,10 +158,14 @@ public class FocalElement implements IFocalElement {
 	 * @see java.lang.Object#equals(java.lang.Object)
 	 * 
 	 *      Two Focal element are equals if they have the same element and the
-	 *      same bpa.
+	 *      same bpa, within {@link DoubleUtility#EPSILON}.
 	 */
 	@Override
 	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof FocalElement))
+			return false;
 		FocalElement other = (FocalElement) obj;
 
 		if (other.getElement().equals(element)
@@ -171,6 +176,29 @@ public class FocalElement implements IFocalElement {
 			return false;
 	}
 
+	/**
+	 * The hash code depends only on the element: the bpa is compared with a
+	 * tolerance by {@link #equals(Object)} so it cannot be part of the hash.
+	 */
+	@Override
+	public int hashCode() {
+		return (element == null) ? 0 : element.hashCode();
+	}
+
+	/**
+	 * Returns the 64-bit content fingerprint of the focal element, computed
+	 * over the fingerprint of its element and its bpa rounded to
+	 * {@link FingerprintUtility#BPA_QUANTUM}.
+	 * 
+	 * @return the fingerprint of the focal element.
+	 */
+	public long getFingerprint() {
+		long elementFingerprint = (element == null) ? 0 : element
+				.getFingerprint();
+		return FingerprintUtility.combine(elementFingerprint,
+				FingerprintUtility.quantize(getBpa()));
+	}
+
 	@Override
 	public Object clone() throws CloneNotSupportedException {
 		Element cloneElement = (Element) element.clone();
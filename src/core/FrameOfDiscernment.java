@@ -19,6 +19,8 @@ public class FrameOfDiscernment implements IFrameOfDiscernment {
 
 	protected ArrayList<IHypothesis> allHypothesis;
 
+	private ElementPool elementPool;
+
 	public FrameOfDiscernment(ArrayList<IHypothesis> hypothesies) {
 		super();
 		this.allHypothesis = hypothesies;
@@ -30,6 +32,23 @@ public class FrameOfDiscernment implements IFrameOfDiscernment {
 
 	public void setHipothesies(ArrayList<IHypothesis> hypothesies) {
 		this.allHypothesis = hypothesies;
+		this.elementPool = null;
+	}
+
+	/**
+	 * Returns the {@link ElementPool} which holds the canonical instance of
+	 * each subset of this {@link FrameOfDiscernment}. The pool is built the
+	 * first time it is requested and it is rebuilt if the hypothesies of the
+	 * frame change.
+	 * 
+	 * @return the pool of the canonical elements of the frame.
+	 */
+	public synchronized ElementPool getElementPool() {
+		int n = (allHypothesis != null) ? allHypothesis.size() : 0;
+		if (elementPool == null || elementPool.getHypothesisCount() != n) {
+			elementPool = new ElementPool(allHypothesis);
+		}
+		return elementPool;
 	}
 
 	/**
@@ -62,10 +81,10 @@ public class FrameOfDiscernment implements IFrameOfDiscernment {
 			while (powerSetIter.hasNext()) {
 				ArrayList<IHypothesis> object = (ArrayList<IHypothesis>) powerSetIter
 						.next();
-				powerSet.addElement(new Element(object));
+				powerSet.addElement(getElementPool().getElement(object));
 
 			}
-			powerSet.addElement(new Element(null));
+			powerSet.addElement(getEmptySet());
 			return powerSet;
 
 		} else {
@@ -76,21 +95,33 @@ public class FrameOfDiscernment implements IFrameOfDiscernment {
 	}
 
 	/**
-	 * Returns the universal set of this {@link FrameOfDiscernment}.
+	 * Returns the universal set of this {@link FrameOfDiscernment}. The same
+	 * canonical instance is returned at each call.
 	 * 
 	 * @return
 	 */
 	public IElement getUniversalSet() {
-		return new Element(allHypothesis);
+		return getElementPool().getUniversalSet();
 	}
 
 	/**
-	 * Returns the empty set.
+	 * Returns the empty set. The same canonical instance is returned at each
+	 * call.
 	 * 
 	 * @return
 	 */
 	public static Element getEmptySet() {
-		return new Element(null);
+		return ElementPool.getEmptySet();
+	}
+
+	/**
+	 * Returns the 64-bit content fingerprint of the frame. It depends only on
+	 * the set of identifiers of the hypothesies.
+	 * 
+	 * @return the fingerprint of the frame.
+	 */
+	public long getFingerprint() {
+		return getUniversalSet().getFingerprint();
 	}
 
 	@Override
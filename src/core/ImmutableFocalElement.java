@@ -0,0 +1,59 @@
+package core;
+
+import interfaces.IElement;
+import interfaces.IFocalElement;
+
+import java.util.ArrayList;
+
+/**
+ * A {@link FocalElement} which cannot be modified once it is built. Its belief
+ * and plausability are computed at construction time on the body of evidence
+ * it belongs to.
+ *
+ * @author Elisa Costante
+ *
+ */
+public class ImmutableFocalElement extends FocalElement {
+
+	private boolean frozen;
+
+	/**
+	 * @param element
+	 *            : the element, which should be a {@link CanonicalElement} so
+	 *            that it cannot be modified too.
+	 * @param bpa
+	 * @param bodyOfEvidence
+	 *            : the body of evidence the focal element belongs to, or null.
+	 */
+	public ImmutableFocalElement(IElement element, double bpa,
+			ArrayList<IFocalElement> bodyOfEvidence) {
+		super(element, bpa);
+		super.setBodyOfEvidence(bodyOfEvidence);
+		this.frozen = true;
+	}
+
+	private void checkFrozen() {
+		if (frozen)
+			throw new UnsupportedOperationException(
+					"An immutable focal element cannot be modified");
+	}
+
+	@Override
+	public void setBpa(Double bpa) {
+		checkFrozen();
+		super.setBpa(bpa);
+	}
+
+	@Override
+	public void setElement(IElement element) {
+		checkFrozen();
+		super.setElement(element);
+	}
+
+	@Override
+	public void setBodyOfEvidence(ArrayList<IFocalElement> bodyOfEvidence) {
+		checkFrozen();
+		super.setBodyOfEvidence(bodyOfEvidence);
+	}
+
+}
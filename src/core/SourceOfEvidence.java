@@ -1,5 +1,6 @@
 package core;
 
+import interfaces.IElement;
 import interfaces.IFocalElement;
 import interfaces.IHypothesis;
 import interfaces.IMeasure;
@@ -12,6 +13,7 @@ import massDistribution.ClassAttributeMap;
 import massDistribution.ClassificationAttribute;
 import massDistribution.MassDistribution;
 import massDistribution.MeasuredAttribute;
+import utilities.EventTracer;
 
 /**
  * This class represents a source of evidence. Different source must have the
@@ -53,6 +55,7 @@ public class SourceOfEvidence implements ISource {
 			FrameOfDiscernment frameOfDiscernment,
 			ClassAttributeMap classAttributeMap) {
 
+		Object event = EventTracer.getInstance().beginSourceMass();
 		this.frameOfDiscernment = frameOfDiscernment;
 		ArrayList<FocalElement> focalEvidence = new ArrayList<FocalElement>();
 		// La massa si calcola per gli attributi presenti nella
@@ -70,8 +73,10 @@ public class SourceOfEvidence implements ISource {
 						.getMetric().getMeasure();
 
 				if (measuredValue.hasMeasuredValue()) {
-					Element element = computeElement(classificationAttribute,
-							measuredValue);
+					IElement element = frameOfDiscernment.getElementPool()
+							.intern(
+									computeElement(classificationAttribute,
+											measuredValue));
 
 					FocalElement focalElement = new FocalElement(element,
 							classificationAttribute.getWeight());
@@ -83,7 +88,12 @@ public class SourceOfEvidence implements ISource {
 
 		}
 
-		return computeMass(focalEvidence);
+		MassDistribution mass = computeMass(focalEvidence);
+		if (event != null)
+			EventTracer.getInstance().endSourceMass(event, name,
+					classAttributeMap.getAllAttributes().size(),
+					mass.getBodyOfEvidence().size());
+		return mass;
 	}
 
 	/**
@@ -36,6 +36,14 @@ public interface IElement extends Cloneable, Comparable<IElement> {
 	 */
 	public boolean isEmptySet();
 
+	/**
+	 * Returns the 64-bit content fingerprint of the element. Equal elements
+	 * have the same fingerprint.
+	 * 
+	 * @return the fingerprint of the element.
+	 */
+	public long getFingerprint();
+
 	/*
 	 * (non-Javadoc)
 	 * 
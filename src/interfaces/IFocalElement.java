@@ -61,6 +61,14 @@ public interface IFocalElement extends Cloneable, Comparable<FocalElement> {
 	 */
 	public void setBodyOfEvidence(ArrayList<IFocalElement> bodyOfEvidence);
 
+	/**
+	 * Returns the 64-bit content fingerprint of the focal element, computed
+	 * over its element and its quantized bpa.
+	 * 
+	 * @return the fingerprint of the focal element.
+	 */
+	public long getFingerprint();
+
 	public Object clone() throws CloneNotSupportedException;
 
 	/*
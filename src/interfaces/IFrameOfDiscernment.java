@@ -46,6 +46,13 @@ public interface IFrameOfDiscernment extends Cloneable {
 	 */
 	public IElement getUniversalSet();
 
+	/**
+	 * Returns the 64-bit content fingerprint of the frame.
+	 * 
+	 * @return the fingerprint of the frame.
+	 */
+	public long getFingerprint();
+
 	public Object clone() throws CloneNotSupportedException;
 
 }
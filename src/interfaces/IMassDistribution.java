@@ -44,6 +44,17 @@ public interface IMassDistribution extends Cloneable {
 	@Override
 	public boolean equals(Object obj);
 
+	/**
+	 * Returns the 64-bit content fingerprint of the mass. Masses whose bpa
+	 * agree to {@link utilities.FingerprintUtility#BPA_QUANTUM} have the same
+	 * fingerprint, but masses equal within the tolerance of
+	 * {@link #equals(Object)} may not, and different masses can collide, so
+	 * equal fingerprints must be confirmed by {@link #equals(Object)}.
+	 * 
+	 * @return the fingerprint of the mass.
+	 */
+	public long getFingerprint();
+
 	/*
 	 * (non-Javadoc)
 	 * 
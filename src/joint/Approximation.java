@@ -0,0 +1,221 @@
+package joint;
+
+import interfaces.IElement;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import core.Element;
+
+/**
+ * An approximation of the combination of many masses: it is applied by
+ * {@link JointManager} after each step of Dempster's and Yager's operators to
+ * bound the number of focal elements of the partial result. The approximations
+ * are:
+ * <ul>
+ * <li>{@link #threshold(double)}: drops the focal elements with a bpa lower
+ * than epsilon times the total mass of the partial result;</li>
+ * <li>{@link #topK(int)}: keeps the k focal elements with the biggest bpa;</li>
+ * <li>{@link #klx(int, int, double)}: keeps at least k and at most l focal
+ * elements, dropping at most the fraction x of the mass (Tessem);</li>
+ * <li>{@link #summarization(int)}: keeps the k-1 focal elements with the
+ * biggest bpa and moves the mass of the others to their union (Lowrance).</li>
+ * </ul>
+ * The approximations which drop focal elements renormalize the others, so the
+ * total mass does not change. The mass dropped (or moved, for the
+ * summarization) at each step is reported in
+ * {@link massDistribution.JointMassDistribution#getApproximationError()}.
+ *
+ * @author Elisa Costante
+ *
+ */
+public abstract class Approximation {
+
+	/**
+	 * Writes into <code>result</code> the approximation of <code>table</code>.
+	 *
+	 * @param table
+	 * @param result
+	 *            : an empty table.
+	 * @return the mass of <code>table</code> which was dropped or moved.
+	 */
+	public abstract double approximate(MassTable table, MassTable result);
+
+	/**
+	 * The partial results are not normalized, and their total mass shrinks
+	 * with the conflict of each step, so the bpa are compared with epsilon
+	 * relative to the total mass of the table.
+	 *
+	 * @param epsilon
+	 * @return the approximation which drops the focal elements with a bpa
+	 *         lower than <code>epsilon</code> times the total mass.
+	 */
+	public static Approximation threshold(final double epsilon) {
+		if (!(epsilon >= 0 && epsilon < 1))
+			throw new IllegalArgumentException("The threshold " + epsilon
+					+ " must be between 0 and 1");
+		return new Approximation() {
+			@Override
+			public double approximate(MassTable table, MassTable result) {
+				Integer[] order = getOrder(table);
+				double minimum = epsilon * table.getTotal();
+				int kept = 0;
+				while (kept < order.length
+						&& (kept == 0 || table.getBpa(order[kept]) >= minimum))
+					kept++;
+				return keep(table, order, kept, result);
+			}
+
+			@Override
+			public String toString() {
+				return "threshold(" + epsilon + ")";
+			}
+		};
+	}
+
+	/**
+	 * @param k
+	 * @return the approximation which keeps the <code>k</code> focal elements
+	 *         with the biggest bpa.
+	 */
+	public static Approximation topK(final int k) {
+		if (k < 1)
+			throw new IllegalArgumentException("The number of focal elements "
+					+ k + " must be at least 1");
+		return new Approximation() {
+			@Override
+			public double approximate(MassTable table, MassTable result) {
+				Integer[] order = getOrder(table);
+				return keep(table, order, Math.min(k, order.length), result);
+			}
+
+			@Override
+			public String toString() {
+				return "topK(" + k + ")";
+			}
+		};
+	}
+
+	/**
+	 * @param k
+	 *            : the minimum number of focal elements kept.
+	 * @param l
+	 *            : the maximum number of focal elements kept.
+	 * @param x
+	 *            : the maximum fraction of the mass which can be dropped.
+	 * @return the k-l-x approximation.
+	 */
+	public static Approximation klx(final int k, final int l, final double x) {
+		if (k < 1 || l < k)
+			throw new IllegalArgumentException("The bounds k=" + k + " and l="
+					+ l + " must be 1<=k<=l");
+		if (!(x >= 0 && x <= 1))
+			throw new IllegalArgumentException("The fraction " + x
+					+ " must be between 0 and 1");
+		return new Approximation() {
+			@Override
+			public double approximate(MassTable table, MassTable result) {
+				Integer[] order = getOrder(table);
+				double required = (1 - x) * table.getTotal();
+				double keptMass = 0;
+				int kept = 0;
+				while (kept < order.length
+						&& (kept < k || (kept < l && keptMass < required))) {
+					keptMass = keptMass + table.getBpa(order[kept]);
+					kept++;
+				}
+				return keep(table, order, kept, result);
+			}
+
+			@Override
+			public String toString() {
+				return "klx(" + k + ", " + l + ", " + x + ")";
+			}
+		};
+	}
+
+	/**
+	 * @param k
+	 *            : the maximum number of focal elements of the result.
+	 * @return the approximation which keeps the <code>k</code>-1 focal
+	 *         elements with the biggest bpa and moves the mass of the others
+	 *         to their union.
+	 */
+	public static Approximation summarization(final int k) {
+		if (k < 1)
+			throw new IllegalArgumentException("The number of focal elements "
+					+ k + " must be at least 1");
+		return new Approximation() {
+			@Override
+			public double approximate(MassTable table, MassTable result) {
+				Integer[] order = getOrder(table);
+				if (order.length <= k) {
+					return keep(table, order, order.length, result);
+				}
+
+				for (int i = 0; i < k - 1; i++) {
+					result.add(table.getElement(order[i]), table
+							.getBpa(order[i]));
+				}
+				IElement union = null;
+				double moved = 0;
+				for (int i = k - 1; i < order.length; i++) {
+					double bpa = table.getBpa(order[i]);
+					if (bpa > 0) {
+						IElement element = table.getElement(order[i]);
+						union = (union == null) ? element : Element.getUnion(
+								union, element);
+						moved = moved + bpa;
+					}
+				}
+				if (union != null)
+					result.add(union, moved);
+				return moved;
+			}
+
+			@Override
+			public String toString() {
+				return "summarization(" + k + ")";
+			}
+		};
+	}
+
+	/**
+	 * Returns the indexes of the elements of <code>table</code> by decreasing
+	 * bpa.
+	 */
+	private static Integer[] getOrder(final MassTable table) {
+		Integer[] order = new Integer[table.size()];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer i, Integer j) {
+				return Double.compare(table.getBpa(j), table.getBpa(i));
+			}
+		});
+		return order;
+	}
+
+	/**
+	 * Keeps the first <code>kept</code> elements of <code>order</code> and
+	 * renormalizes them to the total mass of <code>table</code>.
+	 *
+	 * @return the dropped mass.
+	 */
+	private static double keep(MassTable table, Integer[] order, int kept,
+			MassTable result) {
+		double total = table.getTotal();
+		double keptMass = 0;
+		for (int i = 0; i < kept; i++) {
+			double bpa = table.getBpa(order[i]);
+			result.add(table.getElement(order[i]), bpa);
+			keptMass = keptMass + bpa;
+		}
+		if (keptMass > 0 && keptMass < total)
+			result.scale(total / keptMass);
+		return total - keptMass;
+	}
+
+}
@@ -0,0 +1,260 @@
+package joint;
+
+import interfaces.IElement;
+import interfaces.IFocalElement;
+
+import java.util.ArrayList;
+
+import massDistribution.DenseKernel;
+import massDistribution.DenseMass;
+import massDistribution.MassDistribution;
+import core.FocalElement;
+import core.FrameOfDiscernment;
+
+/**
+ * Shafer's discounting of a mass by the reliability r of its source: the bpa
+ * of each focal element is multiplied by r and the mass removed is moved to
+ * the universal set,
+ * <ul>
+ * <li>m'(A)=r*m(A) for each A different from the universal set;</li>
+ * <li>m'(Theta)=r*m(Theta) + 1-r.</li>
+ * </ul>
+ * A reliability of 1 keeps the mass, a reliability of 0 gives the vacuous
+ * mass. The reliability of evidence which ages with a half-life is given by
+ * {@link #getReliability(double, double)}.<br>
+ * A {@link MassDistribution} is discounted into a new mass, the compact
+ * representations ({@link MassTable} and {@link DenseMass}) are discounted in
+ * place. Many masses are discounted at once by the batch methods, which take
+ * the bpa of all the masses in a single array: dense masses of a small frame
+ * one after the other, discounted by the {@link DenseKernel} (which uses the
+ * vector instructions of the processor if it can), or the focal elements of
+ * sparse masses one after the other. The masses of a source share its
+ * reliability, so the batch methods take a reliability for each source and
+ * the source of each mass. The combinations of
+ * {@link JointManager#applyOperator(ArrayList, double[], JointOperator,
+ * FrameOfDiscernment)} discount their masses first.
+ *
+ * @author Elisa Costante
+ *
+ */
+public class Discounting {
+
+	/**
+	 * Returns the reliability of evidence of age <code>age</code> which
+	 * halves every <code>halfLife</code>: 2^(-age/halfLife).
+	 *
+	 * @param age
+	 *            : the age of the evidence, not negative.
+	 * @param halfLife
+	 *            : the half-life, in the unit of the age.
+	 * @return the reliability.
+	 */
+	public static double getReliability(double age, double halfLife) {
+		if (age <= 0)
+			return 1;
+		return Math.pow(2, -age / halfLife);
+	}
+
+	/**
+	 * Returns the <code>mass</code> discounted by the
+	 * <code>reliability</code>.
+	 *
+	 * @param mass
+	 * @param reliability
+	 *            : the reliability of the source, between 0 and 1.
+	 * @param frame
+	 *            : the frame of the mass.
+	 * @return a new discounted mass.
+	 */
+	public static MassDistribution discount(MassDistribution mass,
+			double reliability, FrameOfDiscernment frame) {
+		checkReliability(reliability);
+		IElement universalSet = frame.getUniversalSet();
+		ArrayList<IFocalElement> bodyOfEvidence = new ArrayList<IFocalElement>();
+		boolean hasUniversalSet = false;
+		for (IFocalElement focalElement : mass.getBodyOfEvidence()) {
+			double bpa = reliability * focalElement.getBpa();
+			// 1-r is moved once, even if the universal set is repeated
+			if (!hasUniversalSet
+					&& focalElement.getElement().equals(universalSet)) {
+				bpa = bpa + 1 - reliability;
+				hasUniversalSet = true;
+			}
+			bodyOfEvidence.add(new FocalElement(focalElement.getElement(), bpa));
+		}
+		if (!hasUniversalSet)
+			bodyOfEvidence.add(new FocalElement(universalSet, 1 - reliability));
+
+		MassDistribution discounted = new MassDistribution(bodyOfEvidence);
+		MassDistribution.setBodyOfEvidence(discounted);
+		discounted.setFrameOfDiscernment(frame);
+		return discounted;
+	}
+
+	/**
+	 * Discounts in place the <code>table</code> by the
+	 * <code>reliability</code>.
+	 *
+	 * @param table
+	 * @param reliability
+	 *            : the reliability of the source, between 0 and 1.
+	 * @param universalSet
+	 *            : the universal set of the frame of the table, which is added
+	 *            to the table if it is not in it.
+	 */
+	public static void discount(MassTable table, double reliability,
+			IElement universalSet) {
+		checkReliability(reliability);
+		table.scale(reliability);
+		table.add(universalSet, 1 - reliability);
+	}
+
+	/**
+	 * Discounts in place the <code>mass</code> by the
+	 * <code>reliability</code>. The values must be a mass, not a commonality
+	 * function.
+	 *
+	 * @param mass
+	 * @param reliability
+	 *            : the reliability of the source, between 0 and 1.
+	 */
+	public static void discount(DenseMass mass, double reliability) {
+		checkReliability(reliability);
+		double[] values = mass.getValues();
+		for (int a = 0; a < values.length; a++) {
+			values[a] = values[a] * reliability;
+		}
+		values[values.length - 1] = values[values.length - 1] + 1
+				- reliability;
+	}
+
+	/**
+	 * Discounts in place a batch of dense masses (see {@link DenseMass}) by
+	 * the reliability of their sources. The mass i is
+	 * <code>masses[i*2^hypothesies...(i+1)*2^hypothesies-1]</code>, indexed by
+	 * subset.
+	 *
+	 * @param masses
+	 *            : the masses one after the other.
+	 * @param hypothesies
+	 *            : the hypothesies of the frame of the masses.
+	 * @param reliabilities
+	 *            : the reliability of each source, between 0 and 1.
+	 * @param sources
+	 *            : the index of the source of each mass in
+	 *            <code>reliabilities</code>, or null if the masses and the
+	 *            reliabilities are in the same order.
+	 */
+	public static void discount(double[] masses, int hypothesies,
+			double[] reliabilities, int[] sources) {
+		if (hypothesies < 0 || hypothesies > DenseMass.MAX_HYPOTHESIES)
+			throw new IllegalArgumentException("A dense mass has at most "
+					+ DenseMass.MAX_HYPOTHESIES + " hypothesies");
+		int length = 1 << hypothesies;
+		if (masses.length % length != 0)
+			throw new IllegalArgumentException("The length " + masses.length
+					+ " is not a multiple of the length of a mass " + length);
+		checkBatch(masses.length / length, reliabilities, sources);
+		DenseKernel.getInstance().discount(masses, length, reliabilities,
+				sources);
+	}
+
+	/**
+	 * Discounts in place a batch of sparse masses by the reliability of their
+	 * sources. The bpa of the mass i are
+	 * <code>bpas[offsets[i]...offsets[i+1]-1]</code>, and each mass must have
+	 * a place for the universal set, even if its bpa is zero.
+	 *
+	 * @param bpas
+	 *            : the bpa of the focal elements of the masses one after the
+	 *            other.
+	 * @param offsets
+	 *            : the index in <code>bpas</code> of the first bpa of each
+	 *            mass, followed by the end of the last mass.
+	 * @param universalSets
+	 *            : the index in <code>bpas</code> of the bpa of the universal
+	 *            set of each mass, which must be in the mass.
+	 * @param reliabilities
+	 *            : the reliability of each source, between 0 and 1.
+	 * @param sources
+	 *            : the index of the source of each mass in
+	 *            <code>reliabilities</code>, or null if the masses and the
+	 *            reliabilities are in the same order.
+	 * @throws IllegalArgumentException
+	 *             if the offsets decrease or are outside <code>bpas</code>, or
+	 *             if a universal set is outside its mass.
+	 */
+	public static void discount(double[] bpas, int[] offsets,
+			int[] universalSets, double[] reliabilities, int[] sources) {
+		int count = offsets.length - 1;
+		checkOffsets(bpas, offsets, universalSets);
+		checkBatch(count, reliabilities, sources);
+		for (int i = 0; i < count; i++) {
+			double reliability = reliabilities[sources == null ? i
+					: sources[i]];
+			for (int a = offsets[i]; a < offsets[i + 1]; a++) {
+				bpas[a] = bpas[a] * reliability;
+			}
+			bpas[universalSets[i]] = bpas[universalSets[i]] + 1 - reliability;
+		}
+	}
+
+	/**
+	 * Checks the reliabilities and the sources of a batch of
+	 * <code>count</code> masses once, so the loops do not check each mass.
+	 */
+	private static void checkBatch(int count, double[] reliabilities,
+			int[] sources) {
+		for (double reliability : reliabilities) {
+			checkReliability(reliability);
+		}
+		if (sources == null) {
+			if (reliabilities.length < count)
+				throw new IllegalArgumentException("There are " + count
+						+ " masses and " + reliabilities.length
+						+ " reliabilities");
+		} else if (sources.length < count) {
+			throw new IllegalArgumentException("There are " + count
+					+ " masses and " + sources.length + " sources");
+		}
+	}
+
+	/**
+	 * Checks the offsets and the universal sets of a batch of sparse masses
+	 * once, so a wrong index does not discount the bpa of another mass.
+	 */
+	private static void checkOffsets(double[] bpas, int[] offsets,
+			int[] universalSets) {
+		int count = offsets.length - 1;
+		if (count < 0)
+			throw new IllegalArgumentException(
+					"The offsets must end with the end of the last mass");
+		if (universalSets.length != count)
+			throw new IllegalArgumentException("There are " + count
+					+ " masses and " + universalSets.length
+					+ " universal sets");
+		if (offsets[0] < 0 || offsets[count] > bpas.length)
+			throw new IllegalArgumentException("The offsets " + offsets[0]
+					+ "..." + offsets[count] + " are outside the "
+					+ bpas.length + " bpa");
+		for (int i = 0; i < count; i++) {
+			if (offsets[i + 1] < offsets[i])
+				throw new IllegalArgumentException("The offset "
+						+ offsets[i + 1] + " of the mass " + (i + 1)
+						+ " is before the offset " + offsets[i]);
+			if (universalSets[i] < offsets[i]
+					|| universalSets[i] >= offsets[i + 1])
+				throw new IllegalArgumentException("The universal set "
+						+ universalSets[i] + " of the mass " + i
+						+ " is outside " + offsets[i] + "..."
+						+ (offsets[i + 1] - 1));
+		}
+	}
+
+	private static void checkReliability(double reliability) {
+		if (!(reliability >= 0 && reliability <= 1))
+			throw new IllegalArgumentException("The reliability "
+					+ reliability + " is not between 0 and 1");
+	}
+
+}
@@ -0,0 +1,351 @@
+package joint;
+
+import interfaces.IElement;
+import interfaces.IFocalElement;
+import interfaces.IHypothesis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import massDistribution.ImmutableJointMassDistribution;
+import massDistribution.JointMassDistribution;
+import massDistribution.MassDistribution;
+import core.CanonicalElement;
+import core.Element;
+import core.FocalElement;
+import core.FrameOfDiscernment;
+import exception.DempsterTotalConflictException;
+import exception.JointNotPossibleException;
+import exception.MassDistributionNotValidException;
+
+/**
+ * A bounded cache of the results of {@link JointManager}. The results are
+ * stored by operator, frame and the ordered list of the input masses, so the
+ * same masses sent again through the cache are not combined twice. The keys
+ * are hashed by the fingerprints of the masses (see
+ * {@link MassDistribution#getFingerprint()}), and a hit is confirmed by
+ * comparing a copy of the masses taken when the result was stored, so a
+ * collision of the fingerprints does not return the result of other masses.
+ * The fingerprints round the bpa more finely than the tolerance of
+ * {@link MassDistribution#equals(Object)}, so masses which are equal but were
+ * computed differently may miss the cache.<br>
+ * When the cache is full the least recently used result is evicted; a result
+ * older than the time to live is recomputed. The results are
+ * {@link ImmutableJointMassDistribution}, whose elements are
+ * {@link CanonicalElement}, so the callers cannot corrupt the cached entries.
+ * <br>
+ * The cache is safe to be used by several threads. The combination itself is
+ * computed outside the lock, so two threads missing the same key at the same
+ * time may both compute it.
+ *
+ * @author Elisa Costante
+ *
+ */
+public class JointCache {
+
+	private final int maxSize;
+	private final long timeToLive;
+	private final LinkedHashMap<Key, CachedResult> entries;
+
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long expirations;
+
+	/**
+	 * Constructs a cache which holds at most <code>maxSize</code> results.
+	 *
+	 * @param maxSize
+	 *            : the maximum number of results held by the cache.
+	 * @param timeToLive
+	 *            : the time (in milliseconds) after which a result is
+	 *            recomputed, or a value <= 0 if the results never expire.
+	 */
+	public JointCache(int maxSize, long timeToLive) {
+		if (maxSize <= 0)
+			throw new IllegalArgumentException("The size of the cache ("
+					+ maxSize + ") must be positive");
+		this.maxSize = maxSize;
+		this.timeToLive = timeToLive;
+		this.entries = new LinkedHashMap<Key, CachedResult>(16, 0.75f,
+				true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(
+					Map.Entry<Key, CachedResult> eldest) {
+				if (size() > JointCache.this.maxSize) {
+					evictions++;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Returns the result of the <code>operator</code> applied to the
+	 * <code>masses</code>, looking it up in the cache first.
+	 *
+	 * @see JointManager#applyOperator(ArrayList, JointOperator,
+	 *      FrameOfDiscernment)
+	 *
+	 * @param masses
+	 * @param operator
+	 * @param frame
+	 * @return the immutable result of the operator.
+	 * @throws MassDistributionNotValidException
+	 * @throws JointNotPossibleException
+	 * @throws DempsterTotalConflictException
+	 */
+	public ImmutableJointMassDistribution applyOperator(
+			ArrayList<MassDistribution> masses, JointOperator operator,
+			FrameOfDiscernment frame) throws MassDistributionNotValidException,
+			JointNotPossibleException, DempsterTotalConflictException {
+
+		Key key = new Key(operator, frame, masses);
+		ImmutableJointMassDistribution result = get(key);
+
+		if (result == null) {
+			// the masses are copied before the combination, which may replace
+			// their elements
+			Key storedKey = key.copy();
+			JointMassDistribution joint = JointManager.applyOperator(masses,
+					operator, frame);
+			result = ImmutableJointMassDistribution.freeze(joint, frame);
+			put(storedKey, result);
+		}
+		return result;
+	}
+
+	private synchronized ImmutableJointMassDistribution get(Key key) {
+		CachedResult entry = entries.get(key);
+		if (entry != null) {
+			if (isExpired(entry, System.currentTimeMillis())) {
+				entries.remove(key);
+				expirations++;
+			} else {
+				hits++;
+				return entry.result;
+			}
+		}
+		misses++;
+		return null;
+	}
+
+	private synchronized void put(Key key,
+			ImmutableJointMassDistribution result) {
+		entries.put(key,
+				new CachedResult(result, System.currentTimeMillis()));
+	}
+
+	private boolean isExpired(CachedResult entry, long now) {
+		return timeToLive > 0 && now - entry.creationTime >= timeToLive;
+	}
+
+	/**
+	 * Removes the expired results from the cache.
+	 */
+	public synchronized void purgeExpired() {
+		long now = System.currentTimeMillis();
+		Iterator<CachedResult> iterator = entries.values().iterator();
+		while (iterator.hasNext()) {
+			if (isExpired(iterator.next(), now)) {
+				iterator.remove();
+				expirations++;
+			}
+		}
+	}
+
+	/**
+	 * Removes all the results from the cache. The counters are not reset.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+	}
+
+	/**
+	 * @return the number of results held by the cache.
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * @return the maximum number of results held by the cache.
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * @return the time to live of the results in milliseconds.
+	 */
+	public long getTimeToLive() {
+		return timeToLive;
+	}
+
+	/**
+	 * @return the number of lookups which found a valid result.
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * @return the number of lookups which had to compute the result.
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * @return the number of results evicted because the cache was full.
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * @return the number of results removed because they were expired.
+	 */
+	public synchronized long getExpirations() {
+		return expirations;
+	}
+
+	/**
+	 * @return the ratio between hits and lookups, or 0 if there was no lookup.
+	 */
+	public synchronized double getHitRate() {
+		long lookups = hits + misses;
+		if (lookups > 0)
+			return (double) hits / lookups;
+		else
+			return 0;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "JointCache [size=" + entries.size() + ", maxSize=" + maxSize
+				+ ", hits=" + hits + ", misses=" + misses + ", evictions="
+				+ evictions + ", expirations=" + expirations + "]";
+	}
+
+	/**
+	 * The key of a result: the operator, the frame and the ordered input
+	 * masses. The key of a lookup refers to the masses of the caller, the key
+	 * of a stored result to a copy of them (see {@link #copy()}). The
+	 * fingerprints are compared first, the masses only if they match.
+	 */
+	private static class Key {
+		private final JointOperator operator;
+		private final FrameOfDiscernment frame;
+		private final ArrayList<MassDistribution> masses;
+		private final long frameFingerprint;
+		private final long[] massFingerprints;
+		private final int hash;
+
+		Key(JointOperator operator, FrameOfDiscernment frame,
+				ArrayList<MassDistribution> masses) {
+			this.operator = operator;
+			this.frame = frame;
+			this.masses = masses;
+			this.frameFingerprint = (frame != null) ? frame.getFingerprint()
+					: 0;
+			this.massFingerprints = new long[masses.size()];
+			for (int i = 0; i < massFingerprints.length; i++) {
+				massFingerprints[i] = masses.get(i).getFingerprint();
+			}
+
+			int h = operator.hashCode();
+			h = 31 * h
+					+ (int) (frameFingerprint ^ (frameFingerprint >>> 32));
+			h = 31 * h + Arrays.hashCode(massFingerprints);
+			this.hash = h;
+		}
+
+		private Key(Key key, ArrayList<MassDistribution> masses) {
+			this.operator = key.operator;
+			this.frame = key.frame;
+			this.masses = masses;
+			this.frameFingerprint = key.frameFingerprint;
+			this.massFingerprints = key.massFingerprints;
+			this.hash = key.hash;
+		}
+
+		/**
+		 * Returns the same key with a copy of the masses, so the callers
+		 * cannot change the masses of a stored key: the elements of the frame
+		 * are replaced by their canonical instances, which cannot be
+		 * modified, and the other elements are copied.
+		 */
+		Key copy() {
+			ArrayList<MassDistribution> copies = new ArrayList<MassDistribution>(
+					masses.size());
+			for (MassDistribution mass : masses) {
+				ArrayList<IFocalElement> bodyOfEvidence = new ArrayList<IFocalElement>();
+				for (IFocalElement focalElement : mass.getBodyOfEvidence()) {
+					bodyOfEvidence.add(new FocalElement(copy(focalElement
+							.getElement()), focalElement.getBpa()));
+				}
+				copies.add(new MassDistribution(bodyOfEvidence));
+			}
+			return new Key(this, copies);
+		}
+
+		private IElement copy(IElement element) {
+			if (frame != null)
+				element = frame.getElementPool().intern(element);
+			if (element instanceof CanonicalElement)
+				return element;
+			ArrayList<IHypothesis> hypothesies = element.getHypothesies();
+			if (hypothesies == null)
+				return new Element(null);
+			return new Element(new ArrayList<IHypothesis>(hypothesies));
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof Key))
+				return false;
+			Key other = (Key) obj;
+			return operator == other.operator
+					&& frameFingerprint == other.frameFingerprint
+					&& Arrays.equals(massFingerprints,
+							other.massFingerprints)
+					&& isSameFrame(other.frame)
+					&& masses.equals(other.masses);
+		}
+
+		private boolean isSameFrame(FrameOfDiscernment otherFrame) {
+			if (frame == null || otherFrame == null)
+				return frame == otherFrame;
+			return frame == otherFrame
+					|| frame.getUniversalSet().equals(
+							otherFrame.getUniversalSet());
+		}
+	}
+
+	private static class CachedResult {
+		private final ImmutableJointMassDistribution result;
+		private final long creationTime;
+
+		CachedResult(ImmutableJointMassDistribution result,
+				long creationTime) {
+			this.result = result;
+			this.creationTime = creationTime;
+		}
+	}
+
+}
@@ -1,13 +1,21 @@
 package joint;
 
+import interfaces.IElement;
 import interfaces.IFocalElement;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 
+import massDistribution.DenseMass;
+import massDistribution.DistanceKernel;
 import massDistribution.JointMassDistribution;
 import massDistribution.MassDistribution;
+import massDistribution.MassShape;
 import utilities.DoubleUtility;
+import utilities.EventTracer;
 import core.Element;
+import core.ElementPool;
 import core.FocalElement;
 import core.FrameOfDiscernment;
 import exception.DempsterTotalConflictException;
@@ -16,12 +24,17 @@ import exception.MassDistributionNotValidException;
 
 /**
  * THe class supplies a static method for each different joint operator.
+ * The combinations are recorded by {@link JointMetrics} and traced by
+ * {@link EventTracer}.
  * 
  * @author Elisa Costante
  * 
  */
 public class JointManager {
 
+	private static final JointMetrics metrics = JointMetrics.getInstance();
+	private static final EventTracer tracer = EventTracer.getInstance();
+
 	/**
 	 * Applies Dempster's operator to the list of {@link MassDistribution}.
 	 * 
@@ -87,6 +100,41 @@ public class JointManager {
 
 	}
 
+	/**
+	 * Applies the Average operator to the list of {@link MassDistribution},
+	 * giving a weight to each source: m(A)= Summation w(i)*mi(A) / Summation
+	 * w(i).
+	 * 
+	 * @param masses
+	 * @param weights
+	 *            : the weight of each mass, not negative. They are normalized
+	 *            by their sum.
+	 * @param frame
+	 * @return the result of the weighted Average operator to the
+	 *         {@link MassDistribution} list
+	 * @throws JointNotPossibleException
+	 * @throws MassDistributionNotValidException
+	 */
+	public static JointMassDistribution averageJoint(
+			ArrayList<MassDistribution> masses, double[] weights,
+			FrameOfDiscernment frame) throws JointNotPossibleException,
+			MassDistributionNotValidException {
+		if (masses.size() > 1) {
+			long start = metrics.start();
+			Object event = tracer.beginCombination();
+			internMasses(masses, frame);
+			JointMassDistribution jointDistribution = average(masses, weights);
+			jointDistribution.setOperator(JointOperator.AVERAGE);
+			validate(jointDistribution, frame);
+			metrics.recordCombination(JointOperator.AVERAGE, start);
+			if (event != null)
+				traceCombination(event, masses, jointDistribution, Double.NaN);
+			return jointDistribution;
+		} else
+			throw new JointNotPossibleException(
+					"It's not possible do a joint with just one MassDistribution");
+	}
+
 	/**
 	 * Applies the Distance Evidence operator to the list of
 	 * {@link MassDistribution}.
@@ -112,88 +160,206 @@ public class JointManager {
 
 	}
 
+	/**
+	 * Applies the Distance Evidence operator to the masses of the
+	 * <code>state</code>. The state keeps the similarities between the masses,
+	 * so when a source is added to (or removed from) it the joint can be
+	 * computed again without recomputing all the distances.
+	 * 
+	 * @param state
+	 * @param frame
+	 * @return the result of Distance Evidence operator to the masses of the
+	 *         state.
+	 * @throws JointNotPossibleException
+	 * @throws MassDistributionNotValidException
+	 * @throws DempsterTotalConflictException
+	 */
+	public static JointMassDistribution distanceEvidenceJoint(
+			SimilarityState state, FrameOfDiscernment frame)
+			throws JointNotPossibleException,
+			MassDistributionNotValidException, DempsterTotalConflictException {
+		if (state.size() > 1) {
+			long start = metrics.start();
+			Object event = tracer.beginCombination();
+			internMasses(state.getMasses(), frame);
+
+			// the average mass is combined with itself N-1 times
+			JointMassDistribution jointDistribution = dempsterPower(
+					distance(state), state.size(), frame);
+			jointDistribution.setOperator(JointOperator.DISTANCE);
+			validate(jointDistribution, frame);
+			metrics.recordCombination(JointOperator.DISTANCE, start);
+			if (event != null)
+				traceCombination(event, state.getMasses(), jointDistribution,
+						Double.NaN);
+			return jointDistribution;
+		} else
+			throw new JointNotPossibleException(
+					"It's not possible do a joint with just one MassDistribution");
+	}
+
+	/**
+	 * Applies Dempster's operator to the list of {@link MassDistribution}
+	 * summing their weights of evidence (see {@link WeightOfEvidence}): the
+	 * sum is converted back to a mass only once, so the cost grows linearly
+	 * with the number of masses. It is the cheapest way to combine many simple
+	 * support masses, as the ones of the {@link core.SourceOfEvidence}.
+	 *
+	 * @param masses
+	 * @param frame
+	 * @return the result of Dempster's operator to the
+	 *         {@link MassDistribution} list
+	 * @throws JointNotPossibleException
+	 *             if the frame is null or a mass has no weights of evidence
+	 *             (see {@link WeightOfEvidence#fromMass(MassDistribution,
+	 *             FrameOfDiscernment)})
+	 * @throws MassDistributionNotValidException
+	 */
+	public static JointMassDistribution weightOfEvidenceJoint(
+			ArrayList<MassDistribution> masses, FrameOfDiscernment frame)
+			throws JointNotPossibleException,
+			MassDistributionNotValidException {
+		if (masses.size() > 1) {
+			if (frame == null)
+				throw new JointNotPossibleException(
+						"The weights of evidence need the frame of discernment");
+			long start = metrics.start();
+			Object event = tracer.beginCombination();
+			internMasses(masses, frame);
+
+			WeightOfEvidence weightOfEvidence = new WeightOfEvidence(frame);
+			for (MassDistribution mass : masses) {
+				try {
+					weightOfEvidence.add(WeightOfEvidence.fromMass(mass, frame));
+				} catch (IllegalArgumentException e) {
+					throw new JointNotPossibleException(e.getMessage());
+				}
+			}
+
+			JointMassDistribution jointDistribution = weightOfEvidence
+					.toJointMassDistribution();
+			jointDistribution.setOperator(JointOperator.DEMPSTER);
+			validate(jointDistribution, frame);
+			metrics.recordCombination(JointOperator.DEMPSTER, start);
+			if (event != null)
+				traceCombination(event, masses, jointDistribution, Double.NaN);
+			return jointDistribution;
+		} else
+			throw new JointNotPossibleException(
+					"It's not possible do a joint with just one MassDistribution");
+	}
+
+	/**
+	 * Applies Dempster's operator to the list of {@link MassDistribution}
+	 * without losing precision when the conflict is close to 1, as it happens
+	 * combining many sources which disagree. The partial combination is kept
+	 * scaled by its biggest bpa, with the logarithm of the scale apart, and it
+	 * is normalized only once at the end by the sum of the products whose
+	 * intersection is not empty, instead of by 1-conflict. The weight of
+	 * conflict -ln(1-conflict) is reported by
+	 * {@link JointMassDistribution#getLogConflict()}, and the knowledge of the
+	 * empty set is returned only if the conflict is exactly 1.
+	 * 
+	 * @param masses
+	 * @param frame
+	 * @return the result of Dempster's operator to the
+	 *         {@link MassDistribution} list
+	 * @throws JointNotPossibleException
+	 * @throws MassDistributionNotValidException
+	 */
+	public static JointMassDistribution stableDempsterJoint(
+			ArrayList<MassDistribution> masses, FrameOfDiscernment frame)
+			throws JointNotPossibleException,
+			MassDistributionNotValidException {
+		if (masses.size() > 1) {
+			long start = metrics.start();
+			Object event = tracer.beginCombination();
+			internMasses(masses, frame);
+
+			JointMassDistribution jointDistribution = stableDempster(masses);
+			jointDistribution.setOperator(JointOperator.DEMPSTER);
+			validate(jointDistribution, frame);
+			metrics.recordCombination(JointOperator.DEMPSTER, start);
+			if (event != null)
+				traceCombination(event, masses, jointDistribution,
+						getConflict(jointDistribution));
+			return jointDistribution;
+		} else
+			throw new JointNotPossibleException(
+					"It's not possible do a joint with just one MassDistribution");
+	}
+
+	/**
+	 * Applies the <code>operator</code> to the list of {@link MassDistribution}
+	 * .<br>
+	 * If the <code>frame</code> is not null the elements of the masses are
+	 * replaced by their canonical instances taken from the
+	 * {@link ElementPool} of the frame, so that the masses and the result
+	 * share the same elements.
+	 * 
+	 * @param masses
+	 * @param operator
+	 * @param frame
+	 * @return the result of the operator applied to the masses.
+	 * @throws MassDistributionNotValidException
+	 * @throws JointNotPossibleException
+	 * @throws DempsterTotalConflictException
+	 */
 	public static JointMassDistribution applyOperator(
 			ArrayList<MassDistribution> masses, JointOperator operator,
 			FrameOfDiscernment frame) throws MassDistributionNotValidException,
 			JointNotPossibleException, DempsterTotalConflictException {
+		return applyOperator(masses, operator, frame, null);
+	}
+
+	/**
+	 * Applies the <code>operator</code> to the list of {@link MassDistribution}
+	 * , approximating the partial results of Dempster's and Yager's operators
+	 * after each combination step (see {@link Approximation}). The mass
+	 * dropped by the approximation is reported by
+	 * {@link JointMassDistribution#getApproximationError()}.
+	 * 
+	 * @param masses
+	 * @param operator
+	 * @param frame
+	 * @param approximation
+	 *            : the approximation, or null to compute the exact result.
+	 * @return the result of the operator applied to the masses.
+	 * @throws MassDistributionNotValidException
+	 * @throws JointNotPossibleException
+	 * @throws DempsterTotalConflictException
+	 */
+	public static JointMassDistribution applyOperator(
+			ArrayList<MassDistribution> masses, JointOperator operator,
+			FrameOfDiscernment frame, Approximation approximation)
+			throws MassDistributionNotValidException,
+			JointNotPossibleException, DempsterTotalConflictException {
 		if (masses.size() > 1) {
+			long start = metrics.start();
+			Object event = tracer.beginCombination();
 
-			JointMassDistribution jointDistribution = null;
-			int i = 0;
+			internMasses(masses, frame);
 
-			MassDistribution m1 = masses.get(i);
-			i++;
-			MassDistribution m2 = masses.get(i);
-			i++;
+			JointMassDistribution jointDistribution = null;
 
 			switch (operator.getValue()) {
 			case 1:
-				jointDistribution = average(m1, m2, masses);
+				jointDistribution = average(masses, null);
 				jointDistribution.setOperator(JointOperator.AVERAGE);
 				break;
 			case 2:
-				jointDistribution = dempster(m1, m2);
-				for (int j = i; j < masses.size(); j++) {
-					jointDistribution = dempster(jointDistribution, masses
-							.get(j));
-				}
+				jointDistribution = dempster(conjunctive(masses,
+						approximation));
 				jointDistribution.setOperator(JointOperator.DEMPSTER);
 				break;
 			case 3:
-				// Yager
-				// m(A)= m1(B)*m2(C) if B.intersect(c)=A
-
-				// Algorithm
-				// Given N masses
-				// Apply Yager to m1 and m2
-				// Store m1(x)m2
-				// Put conflict to the universal set
-				// Combine
-				Double conflict = getConflict(m1.getBodyOfEvidence(), m2
-						.getBodyOfEvidence());
-				jointDistribution = yager(m1, m2, frame);
-				for (int j = i; j < masses.size(); j++) {
-					conflict = conflict
-							+ getConflict(
-									jointDistribution.getBodyOfEvidence(),
-									masses.get(j).getBodyOfEvidence());
-
-					jointDistribution = yager(jointDistribution, masses.get(j),
-							frame);
-				}
-
-				if (FocalElement.containsElement(jointDistribution
-						.getBodyOfEvidence(), frame.getUniversalSet())) {
-					// if the BOE already contains the universal set it just add
-					// to it
-					// the conflict mass
-
-					FocalElement universalSet = (FocalElement) FocalElement
-							.findElement(jointDistribution.getBodyOfEvidence(),
-									frame.getUniversalSet());
-					universalSet.setBpa(universalSet.getBpa() + conflict);
-				} else {
-					// create a new Focal element as the universal set
-					Element universalElement = (Element) frame
-							.getUniversalSet();
-					FocalElement universalFocalElement = new FocalElement(
-							universalElement, conflict);
-					jointDistribution.getBodyOfEvidence().add(
-							universalFocalElement);
-				}
-
+				jointDistribution = yager(masses, frame, approximation);
 				jointDistribution.setOperator(JointOperator.YAGER);
 				break;
 			case 4:
-				jointDistribution = distance(masses);
-
-				JointMassDistribution dempsterDistribution = dempster(
-						jointDistribution, jointDistribution);
-
-				for (int j = 0; j < masses.size() - 2; j++) {
-					jointDistribution = dempster(dempsterDistribution,
-							jointDistribution);
-				}
+				// the average mass is combined with itself N-1 times
+				jointDistribution = dempsterPower(distance(masses), masses
+						.size(), frame);
 				jointDistribution.setOperator(JointOperator.DISTANCE);
 				break;
 
@@ -201,394 +367,761 @@ public class JointManager {
 				break;
 			}
 
-			if (jointDistribution.isValid()) {
-				MassDistribution.setBodyOfEvidence(jointDistribution);
-				jointDistribution.setFrameOfDiscernment(frame);
-				return jointDistribution;
-			} else
-				throw new MassDistributionNotValidException("MassDistribution"
-						+ jointDistribution.toString() + " is not valid!");
+			validate(jointDistribution, frame);
+			metrics.recordCombination(operator, start);
+			if (event != null)
+				traceCombination(event, masses, jointDistribution,
+						operator == JointOperator.DEMPSTER ? getConflict(
+								jointDistribution) : Double.NaN);
+			return jointDistribution;
 		} else
 			throw new JointNotPossibleException(
 					"It's not possible do a joint with just one MassDistribution");
 	}
 
+
 	/**
-	 * Applies the Chen-Shy distance evidence aggregation to the mass
-	 * distributions.</br>
-	 * 
-	 * The algorithm of computation is the following: </br> 1. Computation of
-	 * SImilarity Matrix <br>
-	 * 2. Computation of the Support degree of each piece of evidence mi<br>
-	 * 3. Computation of the Credibility degree of each piece of evidence mi <br>
-	 * 4. Computation of the modified average mass <br>
-	 * 5. If there are N different sources THe DempsterRule will be apllied N-1
-	 * times
+	 * Applies the <code>operator</code> to the list of {@link MassDistribution}
+	 * , discounting each mass first by the reliability of its source (see
+	 * {@link Discounting}). The masses of the list are not modified.
 	 * 
-	 * @param m1
-	 * @param m2
-	 * @return
+	 * @param masses
+	 * @param reliabilities
+	 *            : the reliability of the source of each mass, between 0 and
+	 *            1.
+	 * @param operator
+	 * @param frame
+	 * @return the result of the operator applied to the discounted masses.
 	 * @throws MassDistributionNotValidException
+	 * @throws JointNotPossibleException
+	 *             if the frame is null or there is not a reliability for each
+	 *             mass.
+	 * @throws DempsterTotalConflictException
 	 */
-	private static JointMassDistribution distance(
-			ArrayList<MassDistribution> masses)
-			throws MassDistributionNotValidException {
-		JointMassDistribution jointMassDistribution = null;
+	public static JointMassDistribution applyOperator(
+			ArrayList<MassDistribution> masses, double[] reliabilities,
+			JointOperator operator, FrameOfDiscernment frame)
+			throws MassDistributionNotValidException,
+			JointNotPossibleException, DempsterTotalConflictException {
+		if (frame == null)
+			throw new JointNotPossibleException(
+					"The discounting needs the frame of discernment");
+		if (reliabilities.length != masses.size())
+			throw new JointNotPossibleException("There are " + masses.size()
+					+ " masses and " + reliabilities.length + " reliabilities");
+
+		ArrayList<MassDistribution> discounted = new ArrayList<MassDistribution>(
+				masses.size());
+		for (int i = 0; i < masses.size(); i++) {
+			if (reliabilities[i] == 1)
+				discounted.add(masses.get(i));
+			else
+				discounted.add(Discounting.discount(masses.get(i),
+						reliabilities[i], frame));
+		}
+		return applyOperator(discounted, operator, frame, null);
+	}
 
+	/**
+	 * Applies each of the <code>operators</code> to the same list of
+	 * {@link MassDistribution}, doing only once the work they share:
+	 * <ul>
+	 * <li>Dempster's and Yager's operators are derived from a single
+	 * conjunctive combination of the masses, which computes the pairwise
+	 * intersections of the focal elements and the conflict. Dempster's result
+	 * is the combination normalized by 1-conflict, Yager's result is the
+	 * combination with the conflict moved to the universal set;</li>
+	 * <li>the masses are replaced by the canonical elements of the frame only
+	 * once for all the operators.</li>
+	 * </ul>
+	 * The results are the same as calling
+	 * {@link #applyOperator(ArrayList, JointOperator, FrameOfDiscernment)}
+	 * once for each operator.
+	 * 
+	 * @param masses
+	 * @param operators
+	 * @param frame
+	 *            : the frame of the masses. Yager's operator needs it.
+	 * @return the result of each operator.
+	 * @throws MassDistributionNotValidException
+	 * @throws JointNotPossibleException
+	 * @throws DempsterTotalConflictException
+	 */
+	public static HashMap<JointOperator, JointMassDistribution> applyOperators(
+			ArrayList<MassDistribution> masses,
+			ArrayList<JointOperator> operators, FrameOfDiscernment frame)
+			throws MassDistributionNotValidException,
+			JointNotPossibleException, DempsterTotalConflictException {
 		if (masses.size() > 1) {
-			double[][] similarityMatrix = getSimilarityMatrix(masses);
-
-			double[] supportDegree = getSupportDegree(similarityMatrix);
-
-			double[] credibility = getCredibility(supportDegree);
-
-			ArrayList<IFocalElement> jointElements = FocalElement
-					.getMassUnionElement(masses);
-
-			for (int i = 0; i < jointElements.size(); i++) {
+			boolean dempster = operators.contains(JointOperator.DEMPSTER);
+			boolean yager = operators.contains(JointOperator.YAGER);
+			boolean average = operators.contains(JointOperator.AVERAGE);
+			boolean distance = operators.contains(JointOperator.DISTANCE);
+			if (yager && frame == null)
+				throw new JointNotPossibleException(
+						"Yager's operator needs the frame of discernment");
+
+			Object event = tracer.beginCombination();
+			internMasses(masses, frame);
+			HashMap<JointOperator, JointMassDistribution> results = new HashMap<JointOperator, JointMassDistribution>();
+
+			if (dempster || yager) {
+				long start = metrics.start();
+				Conjunction conjunction = conjunctive(masses, null);
+				// the latency of the shared combination is split between the
+				// operators, so each combination is recorded once
+				long shared = metrics.getElapsed(start)
+						/ (dempster && yager ? 2 : 1);
+				if (dempster) {
+					start = metrics.start();
+					results.put(JointOperator.DEMPSTER, dempster(conjunction));
+					metrics.recordLatency(JointOperator.DEMPSTER, shared
+							+ metrics.getElapsed(start));
+				}
+				// Yager's operator modifies the combination
+				if (yager) {
+					start = metrics.start();
+					results.put(JointOperator.YAGER, yager(conjunction, frame));
+					metrics.recordLatency(JointOperator.YAGER, shared
+							+ metrics.getElapsed(start));
+				}
+			}
 
-				FocalElement jointElement = (FocalElement) jointElements.get(i);
+			if (average) {
+				long start = metrics.start();
+				results.put(JointOperator.AVERAGE, average(masses, null));
+				metrics.recordCombination(JointOperator.AVERAGE, start);
+			}
+			if (distance) {
+				long start = metrics.start();
+				// the average mass is combined with itself N-1 times
+				results.put(JointOperator.DISTANCE, dempsterPower(
+						distance(new SimilarityState(new DistanceKernel(frame),
+								masses)), masses.size(), frame));
+				metrics.recordCombination(JointOperator.DISTANCE, start);
+			}
 
-				double newBpa = 0;
-				for (int j = 0; j < masses.size(); j++) {
-					MassDistribution m = masses.get(j);
-					double cred = credibility[j];
-					double oldBpa = 0;
+			for (JointOperator operator : results.keySet()) {
+				JointMassDistribution jointDistribution = results.get(operator);
+				jointDistribution.setOperator(operator);
+				validate(jointDistribution, frame);
+			}
+			if (event != null)
+				traceCombinations(event, masses, results);
+			return results;
+		} else
+			throw new JointNotPossibleException(
+					"It's not possible do a joint with just one MassDistribution");
+	}
 
-					FocalElement focalElement = (FocalElement) FocalElement
-							.findElement(m.getBodyOfEvidence(), jointElement
-									.getElement());
+	/**
+	 * The unnormalized conjunctive combination of a list of masses and its
+	 * conflict.
+	 */
+	private static class Conjunction {
+		private final MassTable table;
+		private final double conflict;
+		/**
+		 * The fraction of the mass dropped by the approximation.
+		 */
+		private final double approximationError;
+
+		private Conjunction(MassTable table, double conflict,
+				double approximationError) {
+			this.table = table;
+			this.conflict = conflict;
+			this.approximationError = approximationError;
+			metrics.recordConflict(conflict);
+		}
+	}
 
-					if (focalElement != null)
-						oldBpa = focalElement.getBpa();
-					newBpa = newBpa + (cred * oldBpa);
-				}
-				jointElement.setBpa(newBpa);
+	/**
+	 * Combines the <code>masses</code> one after the other with the
+	 * conjunctive rule, accumulating the conflict of each step. The elements
+	 * of each step are the union of the elements of the masses combined so
+	 * far, followed by the new intersections. If the <code>approximation</code> is not null, it is applied to the
+	 * result of each step.
+	 */
+	private static Conjunction conjunctive(ArrayList<MassDistribution> masses,
+			Approximation approximation) {
+		if (approximation == null) {
+			// the partial results of the specialized kernels do not grow, so
+			// they are not approximated
+			Conjunction conjunction = specializedConjunctive(masses);
+			if (conjunction != null)
+				return conjunction;
+		}
 
+		MassTable combination = new MassTable(masses.get(0));
+		double conflict = 0;
+		double approximationError = 0;
+		for (int i = 1; i < masses.size(); i++) {
+			MassTable mass = new MassTable(masses.get(i));
+			MassTable result = new MassTable();
+			result.addElements(combination);
+			result.addElements(mass);
+			conflict = conflict + conjunctive(combination, mass, result);
+			if (metrics.isEnabled())
+				metrics.recordFold(getFocalElements(combination),
+						getFocalElements(result));
+			combination = result;
+
+			if (approximation != null) {
+				double total = combination.getTotal();
+				result = new MassTable();
+				double dropped = approximation.approximate(combination, result);
+				if (total > 0)
+					approximationError = approximationError + dropped / total;
+				combination = result;
 			}
-
-			jointMassDistribution = new JointMassDistribution(jointElements);
 		}
-		if (jointMassDistribution.isValid())
-			return jointMassDistribution;
-		else
-			throw new MassDistributionNotValidException("MassDistribution"
-					+ jointMassDistribution.toString() + " is not valid!");
+		return new Conjunction(combination, conflict, approximationError);
 	}
 
 	/**
-	 * Computes the scalar product between two mass distributions
+	 * Combines the <code>masses</code> with a specialized kernel when their
+	 * shape (see {@link MassDistribution#getShape()}) allows it:
+	 * <ul>
+	 * <li>if they are all Bayesian, the combination of a singleton is the
+	 * product of its bpa in each mass;</li>
+	 * <li>if all their focal elements are nested in a single chain (for
+	 * example consonant masses on the same chain, or simple support masses
+	 * with the same focus), the intersection of two elements of the chain is
+	 * the smaller one, so the commonality of the combination on the chain is
+	 * the product of the commonalities.</li>
+	 * </ul>
+	 * Both kernels are linear in the number of focal elements, and they give
+	 * the same result as the general conjunctive combination. The elements of
+	 * the result are the elements of the masses, in the order of the general
+	 * algorithm.
 	 * 
-	 * @param m1
-	 *            : {@link MassDistribution}
-	 * @param m2
-	 *            : {@link MassDistribution}
-	 * @return the scalarProduct.
+	 * @return the combination, or null if the masses need the general
+	 *         algorithm.
 	 */
-	private static double getScalarProduct(MassDistribution m1,
-			MassDistribution m2) {
-
-		double scalarProduct = 0;
-
-		ArrayList<IFocalElement> m1Elements = m1.getBodyOfEvidence();
-		ArrayList<IFocalElement> m2Elements = m2.getBodyOfEvidence();
-
-		for (int i = 0; i < m1Elements.size(); i++) {
-			FocalElement el1 = (FocalElement) m1Elements.get(i);
-
-			for (int j = 0; j < m2Elements.size(); j++) {
-
-				FocalElement el2 = (FocalElement) m2Elements.get(j);
-				// compute the intersection
-				Element intersection = Element.getIntersection(
-						el1.getElement(), el2.getElement());
-				// compute the union
-				Element union = (Element) Element.getUnion(el1.getElement(),
-						el2.getElement());
-
-				double unionSize = 0;
-				double intersectionSize = 0;
-
-				if (intersection != null)
-					intersectionSize = (double) intersection.size();
-				if (union != null)
-					unionSize = (double) union.size();
-
-				if (unionSize > 0) {
-
-					// TODO controllare che sia corretto
+	private static Conjunction specializedConjunctive(
+			ArrayList<MassDistribution> masses) {
+		boolean bayesian = true;
+		for (MassDistribution mass : masses) {
+			MassShape shape = mass.getShape();
+			if (shape == MassShape.GENERAL)
+				return null;
+			bayesian = bayesian && shape == MassShape.BAYESIAN;
+		}
 
-					// scalarProduct= Summation [el1*el2] . |intersect(el1,el2)|
-					// /
-					// |union(el1,el2)|
-					scalarProduct = scalarProduct
-							+ ((el1.getBpa() * el2.getBpa()) * ((double) (intersectionSize / unionSize)));
+		MassTable result = new MassTable();
+		ArrayList<MassTable> tables = new ArrayList<MassTable>();
+		double total = 1;
+		for (MassDistribution mass : masses) {
+			MassTable table = new MassTable(mass);
+			tables.add(table);
+			result.addElements(table);
+			total = total * table.getTotal();
+		}
 
+		if (bayesian) {
+			double combined = 0;
+			for (int i = 0; i < result.size(); i++) {
+				double product = 1;
+				for (int j = 0; j < tables.size() && product != 0; j++) {
+					product = product * getBpa(tables.get(j), result
+							.getElement(i));
 				}
+				result.setBpa(i, product);
+				combined = combined + product;
 			}
+			return new Conjunction(result, total - combined, 0);
 		}
 
-		return scalarProduct;
+		ArrayList<IElement> focalElements = new ArrayList<IElement>();
+		for (MassTable table : tables) {
+			for (int i = 0; i < table.size(); i++) {
+				if (table.getBpa(i) > 0)
+					focalElements.add(table.getElement(i));
+			}
+		}
+		ArrayList<IElement> chain = Element.getChain(focalElements);
+		if (chain == null)
+			return null;
+
+		// q(C_i) = Summation m(C_j) for each j>=i, multiplied over the masses
+		double[] commonality = new double[chain.size()];
+		Arrays.fill(commonality, 1);
+		for (MassTable table : tables) {
+			double q = 0;
+			for (int i = chain.size() - 1; i >= 0; i--) {
+				q = q + getBpa(table, chain.get(i));
+				commonality[i] = commonality[i] * q;
+			}
+		}
+		for (int i = 0; i < chain.size(); i++) {
+			double next = (i + 1 < chain.size()) ? commonality[i + 1] : 0;
+			result.setBpa(result.indexOf(chain.get(i)), commonality[i] - next);
+		}
+		// the elements of a chain always intersect
+		return new Conjunction(result, total - commonality[0], 0);
+	}
 
+	private static double getBpa(MassTable table, IElement element) {
+		int index = table.indexOf(element);
+		return (index >= 0) ? table.getBpa(index) : 0;
 	}
 
 	/**
-	 * Compute the distance between two mass distributions.
-	 * 
-	 * @param m1
-	 * @param m2
-	 * @return
+	 * Normalizes the conjunctive combination by 1-conflict.
 	 */
-	private static double getDistance(MassDistribution m1, MassDistribution m2) {
-		double normM1 = getScalarProduct(m1, m1); // ||m1||^2
-		double normM2 = getScalarProduct(m2, m2);// ||m2||^2
-		double scalarProduct = getScalarProduct(m1, m2);// <m1,m2>
-		double distance = Math
-				.sqrt((normM1 + normM2 - 2 * (scalarProduct)) / 2);
-		return distance;
-
+	private static JointMassDistribution dempster(Conjunction conjunction) {
+		if (DoubleUtility.areEqualsDouble(conjunction.conflict, 1.0,
+				DoubleUtility.EPSILON)) {
+			// When the conflict is total (conflict==1.0) the Dempster rule
+			// cannot be applied
+			JointMassDistribution emptySetKnowledge = getTotalConflict();
+			emptySetKnowledge
+					.setApproximationError(conjunction.approximationError);
+			return emptySetKnowledge;
+		}
+		MassTable table = new MassTable(conjunction.table);
+		table.scale(1 / (1 - conjunction.conflict));
+		JointMassDistribution jointMass = table.toJointMassDistribution();
+		jointMass.setApproximationError(conjunction.approximationError);
+		jointMass.setLogConflict(-Math.log1p(-conjunction.conflict));
+		return jointMass;
 	}
 
 	/**
-	 * Computes the similarity between two mass distributions.
-	 * 
-	 * @param m1
-	 * @param m2
-	 * @return
+	 * Combines the masses as {@link #conjunctive(ArrayList, Approximation)},
+	 * dividing each mass and each partial result by its biggest bpa so the
+	 * products never underflow. The true combination is the table multiplied
+	 * by exp(logScale).
 	 */
-	private static double getSimilarity(MassDistribution m1, MassDistribution m2) {
-
-		double distance = getDistance(m1, m2);
-		double sim = (Math.cos(distance * Math.PI) + 1) / 2;
-		return sim;
-
-	}
-
-	private static double[] getSupportDegree(double[][] similarityMatrix) {
-		double[] supportDegree = new double[similarityMatrix.length];
-
-		for (int i = 0; i < similarityMatrix.length; i++) {
-			supportDegree[i] = 0;
-			for (int j = 0; j < similarityMatrix.length; j++) {
-				if (i != j)
-					supportDegree[i] = supportDegree[i]
-							+ similarityMatrix[i][j];
+	private static JointMassDistribution stableDempster(
+			ArrayList<MassDistribution> masses) {
+		MassTable combination = null;
+		double logScale = 0;
+		for (MassDistribution mass : masses) {
+			MassTable table = new MassTable(mass);
+			double scale = getMaxBpa(table);
+			if (!(scale > 0))
+				return getTotalConflict();
+			table.scale(1 / scale);
+			logScale = logScale + Math.log(scale);
+
+			if (combination == null) {
+				combination = table;
+			} else {
+				MassTable result = new MassTable();
+				result.addElements(combination);
+				result.addElements(table);
+				conjunctive(combination, table, result);
+				if (metrics.isEnabled())
+					metrics.recordFold(getFocalElements(combination),
+							getFocalElements(result));
+
+				scale = getMaxBpa(result);
+				if (!(scale > 0))
+					return getTotalConflict();
+				result.scale(1 / scale);
+				logScale = logScale + Math.log(scale);
+				combination = result;
 			}
 		}
 
-		return supportDegree;
+		// 1-conflict is total*exp(logScale)
+		double total = combination.getTotal();
+		combination.scale(1 / total);
+		JointMassDistribution jointMass = combination.toJointMassDistribution();
+		jointMass.setLogConflict(-(Math.log(total) + logScale));
+		metrics.recordConflict(-Math.expm1(-jointMass.getLogConflict()));
+		return jointMass;
 	}
 
-	private static double[] getCredibility(double[] supportDegree) {
-		double[] credibility = new double[supportDegree.length];
-		double summation = 0;
+	/**
+	 * Returns the elements of the <code>table</code> with a positive bpa.
+	 */
+	private static int getFocalElements(MassTable table) {
+		int focalElements = 0;
+		for (int i = 0; i < table.size(); i++) {
+			if (table.getBpa(i) > 0)
+				focalElements++;
+		}
+		return focalElements;
+	}
 
-		for (int i = 0; i < supportDegree.length; i++) {
+	private static double getMaxBpa(MassTable table) {
+		double max = 0;
+		for (int i = 0; i < table.size(); i++) {
+			max = Math.max(max, table.getBpa(i));
+		}
+		return max;
+	}
 
-			summation = summation + supportDegree[i];
+	/**
+	 * Returns the conflict of a result of Dempster's operator.
+	 */
+	private static double getConflict(JointMassDistribution jointMass) {
+		return -Math.expm1(-jointMass.getLogConflict());
+	}
 
+	private static int getFocalElements(ArrayList<MassDistribution> masses) {
+		int focalElements = 0;
+		for (MassDistribution mass : masses) {
+			focalElements = focalElements + mass.getBodyOfEvidence().size();
 		}
+		return focalElements;
+	}
 
-		for (int i = 0; i < supportDegree.length; i++) {
-
-			// credibility(m1)= Sup(mi) / Summation(Sup(mi)) for each mass i
-			credibility[i] = supportDegree[i] / summation;
+	private static void traceCombination(Object event,
+			ArrayList<MassDistribution> masses,
+			JointMassDistribution jointMass, double conflict) {
+		tracer.endCombination(event, jointMass.getOperator().toString(),
+				masses.size(), getFocalElements(masses), jointMass
+						.getBodyOfEvidence().size(), conflict);
+	}
 
+	/**
+	 * Traces the results of {@link #applyOperators(ArrayList, ArrayList,
+	 * FrameOfDiscernment)} as a single combination, with the conflict of
+	 * Dempster's result if it was computed.
+	 */
+	private static void traceCombinations(Object event,
+			ArrayList<MassDistribution> masses,
+			HashMap<JointOperator, JointMassDistribution> results) {
+		StringBuilder operators = new StringBuilder();
+		int focalElements = 0;
+		for (JointOperator operator : results.keySet()) {
+			if (operators.length() > 0)
+				operators.append(',');
+			operators.append(operator);
+			focalElements = focalElements
+					+ results.get(operator).getBodyOfEvidence().size();
 		}
+		JointMassDistribution dempster = results.get(JointOperator.DEMPSTER);
+		tracer.endCombination(event, operators.toString(), masses.size(),
+				getFocalElements(masses), focalElements,
+				dempster != null ? getConflict(dempster) : Double.NaN);
+	}
 
-		return credibility;
+	private static JointMassDistribution getTotalConflict() {
+		metrics.recordTotalConflict();
+		JointMassDistribution emptySetKnowledge = JointMassDistribution
+				.getEmptySetKnowledge();
+		emptySetKnowledge.setLogConflict(Double.POSITIVE_INFINITY);
+		return emptySetKnowledge;
 	}
 
 	/**
-	 * Compute the Similarity MAtrix of mass distributions.
+	 * Adds to <code>result</code> the conjunctive combination of
+	 * <code>m1</code> and <code>m2</code>: the product of the bpa of each pair
+	 * of focal elements is added to their intersection, which is added to
+	 * <code>result</code> if it is not already in it.
 	 * 
-	 * @param masses
-	 * @return the similarity MAtrix or null if there are no mass.
+	 * @param m1
+	 * @param m2
+	 * @param result
+	 * @return the conflict, that is the sum of the products whose intersection
+	 *         is empty.
 	 */
-	private static double[][] getSimilarityMatrix(
-			ArrayList<MassDistribution> masses) {
-		if (masses != null && masses.size() > 0) {
-			int n = masses.size();
-			double[][] similarityMatrix = new double[n][n];
-
-			for (int i = 0; i < similarityMatrix.length; i++) {
-				for (int j = i; j < similarityMatrix.length; j++) {
-					if (i == j) {
-						similarityMatrix[i][j] = 1;
-					} else {
-						similarityMatrix[i][j] = similarityMatrix[j][i] = getSimilarity(
-								masses.get(i), masses.get(j));
-					}
+	static double conjunctive(MassTable m1, MassTable m2, MassTable result) {
+		double conflict = 0;
+		for (int i = 0; i < m1.size(); i++) {
+			double bpa1 = m1.getBpa(i);
+			if (bpa1 == 0)
+				continue;
+			IElement element1 = m1.getElement(i);
+
+			for (int j = 0; j < m2.size(); j++) {
+				double product = bpa1 * m2.getBpa(j);
+				Element intersection = Element.getIntersection(element1, m2
+						.getElement(j));
+				if (intersection.isEmptySet()) {
+					conflict = conflict + product;
+				} else {
+					result.add(intersection, product);
 				}
 			}
-			return similarityMatrix;
 		}
-		return null;
+		return conflict;
 	}
 
-	private static JointMassDistribution yager(MassDistribution m1,
-			MassDistribution m2, FrameOfDiscernment frame)
-			throws MassDistributionNotValidException {
-		ArrayList<IFocalElement> m1Elements = m1.getBodyOfEvidence();
-		ArrayList<IFocalElement> m2Elements = m2.getBodyOfEvidence();
-
-		// double conflict = getConflict(m1Elements, m2Elements);
-		// conflictTransfer = new Double(conflictTransfer.doubleValue() +
-		// conflict);
-
-		ArrayList<IFocalElement> jointElements = FocalElement
-				.getMassUnionElement(m1Elements, m2Elements);
-
-		for (int i = 0; i < jointElements.size(); i++) {
-			FocalElement jointElement = (FocalElement) jointElements.get(i);
-			double bpa = 0;
-			for (int k = 0; k < m1Elements.size(); k++) {
-				FocalElement el1 = (FocalElement) m1Elements.get(k);
-
-				for (int j = 0; j < m2Elements.size(); j++) {
-					FocalElement el2 = (FocalElement) m2Elements.get(j);
-
-					Element intersection = Element.getIntersection(el1
-							.getElement(), el2.getElement());
-
-					if (!intersection.isEmptySet()
-							&& intersection.equals(jointElement.getElement())) {
-						bpa = bpa + (el1.getBpa() * el2.getBpa());
-					}
-				}
-
+	/**
+	 * Replaces the elements of the <code>masses</code> with their canonical
+	 * instances of the <code>frame</code>, if it is not null.
+	 */
+	private static void internMasses(ArrayList<MassDistribution> masses,
+			FrameOfDiscernment frame) {
+		if (frame != null) {
+			ElementPool pool = frame.getElementPool();
+			for (MassDistribution mass : masses) {
+				pool.intern(mass.getBodyOfEvidence());
 			}
-			jointElement.setBpa(bpa);
 		}
-
-		JointMassDistribution jointMass = new JointMassDistribution(
-				jointElements);
-		return jointMass;
-
 	}
 
-	private static JointMassDistribution dempster(MassDistribution m1,
-			MassDistribution m2) throws MassDistributionNotValidException,
-			DempsterTotalConflictException {
-
-		ArrayList<IFocalElement> m1Elements = m1.getBodyOfEvidence();
-		ArrayList<IFocalElement> m2Elements = m2.getBodyOfEvidence();
+	/**
+	 * Checks that the result of an operator is valid and sets its body of
+	 * evidence and its frame. It is shared by the incremental combinations of
+	 * the package.
+	 */
+	static JointMassDistribution validate(
+			JointMassDistribution jointDistribution, FrameOfDiscernment frame)
+			throws MassDistributionNotValidException {
+		if (jointDistribution.isValid()) {
+			MassDistribution.setBodyOfEvidence(jointDistribution);
+			jointDistribution.setFrameOfDiscernment(frame);
+			return jointDistribution;
+		} else
+			throw getNotValidException(jointDistribution);
+	}
 
-		double conflict = getConflict(m1Elements, m2Elements);
-		if (!DoubleUtility
-				.areEqualsDouble(conflict, 1.0, DoubleUtility.EPSILON)) {
-			ArrayList<IFocalElement> jointElements = FocalElement
-					.getMassUnionElement(m1Elements, m2Elements);
+	/**
+	 * Returns the exception thrown when the result of an operator is not a
+	 * valid mass, counting it in the {@link JointMetrics}.
+	 */
+	private static MassDistributionNotValidException getNotValidException(
+			JointMassDistribution jointMass) {
+		metrics.recordValidationFailure();
+		return new MassDistributionNotValidException("MassDistribution"
+				+ jointMass.toString() + " is not valid!");
+	}
 
-			for (int i = 0; i < jointElements.size(); i++) {
-				FocalElement jointElement = (FocalElement) jointElements.get(i);
-				double bpa = 0;
-				for (int k = 0; k < m1Elements.size(); k++) {
-					FocalElement el1 = (FocalElement) m1Elements.get(k);
+	/**
+	 * Applies the Chen-Shy distance evidence aggregation to the mass
+	 * distributions.</br>
+	 * 
+	 * The algorithm of computation is the following: </br> 1. Computation of
+	 * SImilarity Matrix <br>
+	 * 2. Computation of the Support degree of each piece of evidence mi<br>
+	 * 3. Computation of the Credibility degree of each piece of evidence mi <br>
+	 * 4. Computation of the modified average mass <br>
+	 * 5. If there are N different sources THe DempsterRule will be apllied N-1
+	 * times
+	 * 
+	 * @param m1
+	 * @param m2
+	 * @return
+	 * @throws MassDistributionNotValidException
+	 */
+	private static JointMassDistribution distance(
+			ArrayList<MassDistribution> masses)
+			throws MassDistributionNotValidException {
+		return distance(new SimilarityState(masses));
+	}
 
-					for (int j = 0; j < m2Elements.size(); j++) {
-						FocalElement el2 = (FocalElement) m2Elements.get(j);
+	/**
+	 * Computes the modified average mass of the masses of the
+	 * <code>state</code>, weighted by their credibility.
+	 * 
+	 * @param state
+	 * @return the modified average mass.
+	 * @throws MassDistributionNotValidException
+	 */
+	private static JointMassDistribution distance(SimilarityState state)
+			throws MassDistributionNotValidException {
+		return average(state.getMasses(), state.getCredibility());
+	}
 
-						Element intersection = Element.getIntersection(el1
-								.getElement(), el2.getElement());
 
-						if (!intersection.isEmptySet()
-								&& intersection.equals(jointElement
-										.getElement())) {
-							bpa = bpa + (el1.getBpa() * el2.getBpa());
-						}
-					}
+	/**
+	 * Applies Yager's operator: m(A)= Summation m1(B)*m2(C)*... for each
+	 * B.intersect(C)...=A, and the conflict (the mass of the empty
+	 * intersections) is assigned to the universal set.
+	 */
+	private static JointMassDistribution yager(
+			ArrayList<MassDistribution> masses, FrameOfDiscernment frame,
+			Approximation approximation) throws JointNotPossibleException {
+		if (frame == null)
+			throw new JointNotPossibleException(
+					"Yager's operator needs the frame of discernment");
+		return yager(conjunctive(masses, approximation), frame);
+	}
 
-				}
+	private static JointMassDistribution yager(Conjunction conjunction,
+			FrameOfDiscernment frame) {
+		// the conflict is collected by the same pass which combines the
+		// masses, and it is moved to the universal set by its index
+		MassTable table = conjunction.table;
+		int universalSet = table.addElement(frame.getUniversalSet());
+		table.add(universalSet, conjunction.conflict);
+		JointMassDistribution jointMass = table.toJointMassDistribution();
+		jointMass.setApproximationError(conjunction.approximationError);
+		return jointMass;
+	}
 
-				bpa = bpa / (1 - conflict);
-				jointElement.setBpa(bpa);
+	/**
+	 * Returns the combination of <code>mass</code> with itself by Dempster's
+	 * rule, <code>k</code> times: m (+) m (+) ... (+) m. <br>
+	 * The power is computed by repeated squaring, so only O(log k)
+	 * combinations are needed. When the frame is small enough to be
+	 * represented by a {@link DenseMass} and the masses are dense, the
+	 * commonality function of the mass is raised to the k-th power instead,
+	 * because Dempster's rule is a product of commonalities.
+	 * 
+	 * @param mass
+	 * @param k
+	 *            : the number of occurrences of the mass, at least 1.
+	 * @param frame
+	 *            : the frame of the mass, or null.
+	 * @return the k-th power of the mass.
+	 * @throws MassDistributionNotValidException
+	 * @throws DempsterTotalConflictException
+	 */
+	public static JointMassDistribution dempsterPower(MassDistribution mass,
+			int k, FrameOfDiscernment frame)
+			throws MassDistributionNotValidException,
+			DempsterTotalConflictException {
+		if (k < 1)
+			throw new IllegalArgumentException("The power of a mass (" + k
+					+ ") must be at least 1");
+
+		if (k > 1 && frame != null
+				&& isCommonalityPowerCheaper(mass, k, frame)) {
+			DenseMass dense = DenseMass.fromMass(mass, frame);
+			if (dense != null)
+				return commonalityPower(dense, k);
+		}
 
+		JointMassDistribution result = null;
+		JointMassDistribution square = toJointMassDistribution(mass);
+		while (true) {
+			if ((k & 1) == 1) {
+				if (result == null)
+					result = square;
+				else
+					result = dempster(result, square);
 			}
-
-			JointMassDistribution jointMass = new JointMassDistribution(
-					jointElements);
-			if (jointMass.isValid()) {
-				return jointMass;
-			} else
-				throw new MassDistributionNotValidException("MassDistribution"
-						+ jointMass.toString() + " is not valid!");
-		} else {
-			// When the conflict is total (conflict==1.0) the Dempster rule
-			// cannot be applied
-			// throw new DempsterTotalConflictException(
-			// "The dempster aggregation is not applicable");
-			return JointMassDistribution.getEmptySetKnowledge();
+			k = k >> 1;
+			if (k == 0)
+				break;
+			square = dempster(square, square);
 		}
-
+		return result;
 	}
 
-	private static double getConflict(ArrayList<IFocalElement> m1Elements,
-			ArrayList<IFocalElement> m2Elements) {
-		double conflict = 0;
-		for (int i = 0; i < m1Elements.size(); i++) {
-			FocalElement el1 = (FocalElement) m1Elements.get(i);
+	/**
+	 * The transformations of a dense mass cost n*2^n, the repeated squaring
+	 * costs about |m|^2 for each of the log(k) combinations (and the number of
+	 * focal elements grows at each combination).
+	 */
+	private static boolean isCommonalityPowerCheaper(MassDistribution mass,
+			int k, FrameOfDiscernment frame) {
+		if (!DenseMass.isRepresentable(frame))
+			return false;
+		int n = frame.getElementPool().getHypothesisCount();
+		double denseCost = 2.0 * n * (1 << n);
+		double focalElements = mass.getBodyOfEvidence().size();
+		int combinations = 32 - Integer.numberOfLeadingZeros(k);
+		double sparseCost = 2.0 * focalElements * focalElements * combinations;
+		return denseCost <= sparseCost;
+	}
 
-			for (int j = 0; j < m2Elements.size(); j++) {
-				FocalElement el2 = (FocalElement) m2Elements.get(j);
+	private static JointMassDistribution commonalityPower(DenseMass dense,
+			int k) throws MassDistributionNotValidException {
+		dense.toCommonality();
+		dense.power(k);
+		dense.toMass();
+
+		// the mass of the empty set is the conflict
+		double[] m = dense.getValues();
+		double conflict = m[0];
+		if (DoubleUtility
+				.areEqualsDouble(conflict, 1.0, DoubleUtility.EPSILON))
+			return getTotalConflict();
+
+		m[0] = 0;
+		for (int a = 1; a < m.length; a++) {
+			m[a] = m[a] / (1 - conflict);
+		}
 
-				if (Element.getIntersection(el1.getElement(), el2.getElement())
-						.isEmptySet()) {
-					conflict = conflict + (el1.getBpa() * el2.getBpa());
-				}
-			}
+		JointMassDistribution jointMass = dense.toJointMassDistribution();
+		if (jointMass.isValid()) {
+			return jointMass;
+		} else
+			throw getNotValidException(jointMass);
+	}
 
+	/**
+	 * Returns a copy of the <code>mass</code>, so the power of a mass never
+	 * returns the instance of the caller.
+	 */
+	private static JointMassDistribution toJointMassDistribution(
+			MassDistribution mass) {
+		ArrayList<IFocalElement> bodyOfEvidence = new ArrayList<IFocalElement>();
+		for (IFocalElement focalElement : mass.getBodyOfEvidence()) {
+			bodyOfEvidence.add(new FocalElement(focalElement.getElement(),
+					focalElement.getBpa()));
 		}
-		return conflict;
+		return new JointMassDistribution(bodyOfEvidence);
 	}
 
-	private static JointMassDistribution average(MassDistribution m1,
-			MassDistribution m2, ArrayList<MassDistribution> masses)
-			throws MassDistributionNotValidException {
-
-		ArrayList<IFocalElement> m1Elements = m1.getBodyOfEvidence();
-		ArrayList<IFocalElement> m2Elements = m2.getBodyOfEvidence();
-
-		ArrayList<IFocalElement> jointElements = FocalElement
-				.getMassUnionElement(m1Elements, m2Elements);
-		for (int i = 2; i < masses.size(); i++) {
+	/**
+	 * Dempster's combination of two masses. Every non-empty intersection of
+	 * their focal elements gets the product of their bpa, so the result is the
+	 * one of the commonality power.
+	 */
+	private static JointMassDistribution dempster(MassDistribution m1,
+			MassDistribution m2) throws MassDistributionNotValidException,
+			DempsterTotalConflictException {
+		MassTable result = new MassTable();
+		double conflict = conjunctive(new MassTable(m1), new MassTable(m2),
+				result);
 
-			MassDistribution m3 = masses.get(i);
-			ArrayList<IFocalElement> el3 = m3.getBodyOfEvidence();
-			jointElements = FocalElement
-					.getMassUnionElement(jointElements, el3);
+		if (DoubleUtility.areEqualsDouble(conflict, 1.0, DoubleUtility.EPSILON)) {
+			// When the conflict is total (conflict==1.0) the Dempster rule
+			// cannot be applied
+			return getTotalConflict();
 		}
+		result.scale(1 / (1 - conflict));
+		JointMassDistribution jointMass = result.toJointMassDistribution();
+		if (jointMass.isValid()) {
+			return jointMass;
+		} else
+			throw getNotValidException(jointMass);
+	}
 
-		for (int i = 0; i < jointElements.size(); i++) {
-
-			double bpa = 0;
-			FocalElement jointElement = (FocalElement) jointElements.get(i);
-
-			ArrayList<FocalElement> sameElements = new ArrayList<FocalElement>();
-
-			for (int j = 0; j < masses.size(); j++) {
-				FocalElement same = (FocalElement) FocalElement.findElement(
-						masses.get(j).getBodyOfEvidence(), jointElement
-								.getElement());
-				if (same != null) {
-					sameElements.add(same);
-				}
-			}
-
-			for (FocalElement element : sameElements) {
-				bpa = bpa + element.getBpa();
+	/**
+	 * Computes the weighted average of the masses in a single pass: m(A)=
+	 * Summation w(i)*mi(A) / Summation w(i). The bpa are accumulated in a
+	 * table indexed by focal element, so the cost is linear in the number of
+	 * focal elements of the masses.
+	 * 
+	 * @param masses
+	 * @param weights
+	 *            : the weight of each mass, or null to weight all the masses
+	 *            the same.
+	 * @return the average mass.
+	 * @throws MassDistributionNotValidException
+	 */
+	private static JointMassDistribution average(
+			ArrayList<MassDistribution> masses, double[] weights)
+			throws MassDistributionNotValidException {
+		double total = 0;
+		if (weights == null) {
+			total = masses.size();
+		} else {
+			if (weights.length != masses.size())
+				throw new IllegalArgumentException("There are "
+						+ weights.length + " weights for " + masses.size()
+						+ " masses");
+			for (double weight : weights) {
+				if (!(weight >= 0))
+					throw new IllegalArgumentException("The weight " + weight
+							+ " is not valid");
+				total = total + weight;
 			}
+			if (total <= 0)
+				throw new IllegalArgumentException(
+						"At least one weight must be positive");
+		}
 
-			jointElement.setBpa(bpa / masses.size());
-
+		MassTable table = new MassTable();
+		for (int i = 0; i < masses.size(); i++) {
+			double weight = (weights != null) ? weights[i] : 1;
+			table.add(masses.get(i), weight / total);
 		}
 
-		JointMassDistribution jointMass = new JointMassDistribution(
-				jointElements);
+		JointMassDistribution jointMass = table.toJointMassDistribution();
 		if (jointMass.isValid()) {
 			return jointMass;
 		} else
-			throw new MassDistributionNotValidException("MassDistribution"
-					+ jointMass.toString() + " is not valid!");
+			throw getNotValidException(jointMass);
 	}
 }
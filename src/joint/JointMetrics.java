@@ -0,0 +1,265 @@
+package joint;
+
+import java.lang.management.ManagementFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import utilities.Histogram;
+import utilities.StripedCounter;
+
+/**
+ * The metrics of the combinations done by {@link JointManager}: the number
+ * and the latency of the combinations of each operator (see
+ * {@link OperatorMetrics}), the distribution of the conflict of Dempster's
+ * and Yager's combinations, the focal elements of the partial combination
+ * before and after each step of the conjunctive fold, the combinations whose
+ * conflict was total and the results which were not valid.<br>
+ * The counters are striped (see {@link StripedCounter}), so that the
+ * recording threads do not contend. The metrics are recorded only if the
+ * system property {@value #METRICS_PROPERTY} or {@value #JMX_PROPERTY} is
+ * <code>true</code>, and they can be switched on and off at run time.<br>
+ * {@link #register()} publishes them as MBeans of the platform server, with
+ * the names {@value #OBJECT_NAME} and {@value #OBJECT_NAME}
+ * <code>,operator=DEMPSTER</code> (and the other operators). They are
+ * registered when the class is loaded if the system property
+ * {@value #JMX_PROPERTY} is <code>true</code>; if they cannot be registered,
+ * the error is logged and the combinations are not affected.
+ *
+ * @author Elisa Costante
+ *
+ */
+public class JointMetrics implements JointMetricsMBean {
+
+	public static final String METRICS_PROPERTY = "dempstershafer.metrics";
+	public static final String JMX_PROPERTY = "dempstershafer.metrics.jmx";
+	public static final String OBJECT_NAME = "dempstershafer:type=JointMetrics";
+
+	private static final double[] CONFLICT_BOUNDS = { 0.1, 0.2, 0.3, 0.4,
+			0.5, 0.6, 0.7, 0.8, 0.9, 0.99, 0.999, 1 };
+	/**
+	 * The focal elements buckets go from 1 to about a million.
+	 */
+	private static final int FOCAL_ELEMENTS_BUCKETS = 21;
+
+	private static final JointMetrics instance = new JointMetrics();
+
+	private volatile boolean enabled;
+	private boolean registered;
+
+	private final OperatorMetrics[] operators;
+	private final StripedCounter totalConflicts = new StripedCounter();
+	private final StripedCounter validationFailures = new StripedCounter();
+	private final Histogram conflict = new Histogram(CONFLICT_BOUNDS);
+	private final Histogram focalElementsBefore = Histogram.exponential(1,
+			FOCAL_ELEMENTS_BUCKETS);
+	private final Histogram focalElementsAfter = Histogram.exponential(1,
+			FOCAL_ELEMENTS_BUCKETS);
+
+	static {
+		if (Boolean.getBoolean(JMX_PROPERTY)) {
+			try {
+				instance.register();
+			} catch (JMException e) {
+				Logger.getLogger(JointMetrics.class.getName()).log(
+						Level.WARNING, "The metrics are not registered", e);
+			}
+		}
+	}
+
+	private JointMetrics() {
+		enabled = Boolean.getBoolean(METRICS_PROPERTY)
+				|| Boolean.getBoolean(JMX_PROPERTY);
+		JointOperator[] values = JointOperator.values();
+		operators = new OperatorMetrics[values.length];
+		for (int i = 0; i < values.length; i++) {
+			operators[i] = new OperatorMetrics(values[i]);
+		}
+	}
+
+	/**
+	 * @return the metrics of {@link JointManager}.
+	 */
+	public static JointMetrics getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Registers the metrics in the platform MBean server, if they are not
+	 * registered yet.
+	 *
+	 * @throws JMException
+	 */
+	public synchronized void register() throws JMException {
+		if (registered)
+			return;
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		server.registerMBean(this, new ObjectName(OBJECT_NAME));
+		for (OperatorMetrics operator : operators) {
+			server.registerMBean(operator, getObjectName(operator));
+		}
+		registered = true;
+	}
+
+	/**
+	 * Removes the metrics from the platform MBean server.
+	 *
+	 * @throws JMException
+	 */
+	public synchronized void unregister() throws JMException {
+		if (!registered)
+			return;
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		server.unregisterMBean(new ObjectName(OBJECT_NAME));
+		for (OperatorMetrics operator : operators) {
+			server.unregisterMBean(getObjectName(operator));
+		}
+		registered = false;
+	}
+
+	private static ObjectName getObjectName(OperatorMetrics operator)
+			throws JMException {
+		return new ObjectName(OBJECT_NAME + ",operator="
+				+ operator.getOperator());
+	}
+
+	/**
+	 * @param operator
+	 * @return the metrics of the <code>operator</code>.
+	 */
+	public OperatorMetrics getOperatorMetrics(JointOperator operator) {
+		return operators[operator.ordinal()];
+	}
+
+	/**
+	 * @return the start time of a combination, to be passed to
+	 *         {@link #recordCombination(JointOperator, long)}.
+	 */
+	long start() {
+		return enabled ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Records a combination of the <code>operator</code> which started at
+	 * <code>start</code>.
+	 */
+	void recordCombination(JointOperator operator, long start) {
+		if (enabled && start != 0)
+			operators[operator.ordinal()].record(System.nanoTime() - start);
+	}
+
+	/**
+	 * @return the nanoseconds elapsed since <code>start</code>, or 0 if the
+	 *         metrics are disabled.
+	 */
+	long getElapsed(long start) {
+		return (enabled && start != 0) ? System.nanoTime() - start : 0;
+	}
+
+	/**
+	 * Records a combination of the <code>operator</code> which took
+	 * <code>latency</code> nanoseconds.
+	 */
+	void recordLatency(JointOperator operator, long latency) {
+		if (enabled)
+			operators[operator.ordinal()].record(latency);
+	}
+
+	void recordConflict(double value) {
+		if (enabled)
+			conflict.record(value);
+	}
+
+	/**
+	 * Records a step of the conjunctive fold.
+	 *
+	 * @param before
+	 *            : the focal elements of the partial combination before the
+	 *            step.
+	 * @param after
+	 *            : the focal elements of the partial combination after the
+	 *            step.
+	 */
+	void recordFold(int before, int after) {
+		if (enabled) {
+			focalElementsBefore.record(before);
+			focalElementsAfter.record(after);
+		}
+	}
+
+	void recordTotalConflict() {
+		if (enabled)
+			totalConflicts.increment();
+	}
+
+	void recordValidationFailure() {
+		if (enabled)
+			validationFailures.increment();
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public long getCombinations() {
+		long combinations = 0;
+		for (OperatorMetrics operator : operators) {
+			combinations = combinations + operator.getCombinations();
+		}
+		return combinations;
+	}
+
+	public long getTotalConflicts() {
+		return totalConflicts.sum();
+	}
+
+	public long getValidationFailures() {
+		return validationFailures.sum();
+	}
+
+	public double[] getConflictBounds() {
+		return conflict.getBounds();
+	}
+
+	public long[] getConflictHistogram() {
+		return conflict.getCounts();
+	}
+
+	public double[] getFocalElementsBounds() {
+		return focalElementsBefore.getBounds();
+	}
+
+	public long[] getFocalElementsBeforeHistogram() {
+		return focalElementsBefore.getCounts();
+	}
+
+	public long[] getFocalElementsAfterHistogram() {
+		return focalElementsAfter.getCounts();
+	}
+
+	public void reset() {
+		for (OperatorMetrics operator : operators) {
+			operator.reset();
+		}
+		totalConflicts.reset();
+		validationFailures.reset();
+		conflict.reset();
+		focalElementsBefore.reset();
+		focalElementsAfter.reset();
+	}
+
+	@Override
+	public String toString() {
+		return "JointMetrics [combinations=" + getCombinations()
+				+ ", totalConflicts=" + getTotalConflicts()
+				+ ", validationFailures=" + getValidationFailures() + "]";
+	}
+
+}
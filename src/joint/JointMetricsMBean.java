@@ -0,0 +1,57 @@
+package joint;
+
+/**
+ * The management interface of {@link JointMetrics}.
+ *
+ * @author Elisa Costante
+ *
+ */
+public interface JointMetricsMBean {
+
+	public boolean isEnabled();
+
+	public void setEnabled(boolean enabled);
+
+	/**
+	 * @return the combinations of all the operators.
+	 */
+	public long getCombinations();
+
+	/**
+	 * @return the combinations whose conflict was total, whose result is the
+	 *         knowledge of the empty set.
+	 */
+	public long getTotalConflicts();
+
+	/**
+	 * @return the results which were not valid masses.
+	 */
+	public long getValidationFailures();
+
+	public double[] getConflictBounds();
+
+	/**
+	 * @return the number of combinations for each bucket of conflict.
+	 */
+	public long[] getConflictHistogram();
+
+	public double[] getFocalElementsBounds();
+
+	/**
+	 * @return the number of folds for each bucket of focal elements of the
+	 *         partial combination before the fold.
+	 */
+	public long[] getFocalElementsBeforeHistogram();
+
+	/**
+	 * @return the number of folds for each bucket of focal elements of the
+	 *         partial combination after the fold.
+	 */
+	public long[] getFocalElementsAfterHistogram();
+
+	/**
+	 * Sets all the metrics to 0.
+	 */
+	public void reset();
+
+}
@@ -0,0 +1,208 @@
+package joint;
+
+import interfaces.IElement;
+import interfaces.IFocalElement;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import massDistribution.JointMassDistribution;
+import massDistribution.MassDistribution;
+import core.FocalElement;
+
+/**
+ * A compact table of focal elements used by the operators of
+ * {@link JointManager}: the elements are indexed by a hash map and their bpa
+ * are stored in a <code>double[]</code>, so finding the bpa of an element
+ * does not scan the body of evidence. An element is stored only once, the bpa
+ * of an element added twice are summed.
+ *
+ * @author Elisa Costante
+ *
+ */
+public class MassTable {
+
+	private final ArrayList<IElement> elements;
+	private final HashMap<IElement, Integer> indexes;
+	private double[] bpas;
+
+	/**
+	 * Constructs an empty table.
+	 */
+	public MassTable() {
+		elements = new ArrayList<IElement>();
+		indexes = new HashMap<IElement, Integer>();
+		bpas = new double[8];
+	}
+
+	/**
+	 * Constructs the table of the focal elements of <code>mass</code>.
+	 *
+	 * @param mass
+	 */
+	public MassTable(MassDistribution mass) {
+		this();
+		add(mass, 1);
+	}
+
+	/**
+	 * Constructs a copy of <code>table</code>.
+	 *
+	 * @param table
+	 */
+	public MassTable(MassTable table) {
+		elements = new ArrayList<IElement>(table.elements);
+		indexes = new HashMap<IElement, Integer>(table.indexes);
+		bpas = table.bpas.clone();
+	}
+
+	/**
+	 * @return the number of elements of the table.
+	 */
+	public int size() {
+		return elements.size();
+	}
+
+	/**
+	 * @param element
+	 * @return the index of the <code>element</code>, or -1 if it is not in the
+	 *         table.
+	 */
+	public int indexOf(IElement element) {
+		Integer index = indexes.get(element);
+		if (index != null)
+			return index;
+		else
+			return -1;
+	}
+
+	/**
+	 * Adds the <code>element</code> with a zero bpa if it is not in the table.
+	 *
+	 * @param element
+	 * @return the index of the element.
+	 */
+	public int addElement(IElement element) {
+		Integer index = indexes.get(element);
+		if (index == null) {
+			index = elements.size();
+			if (index == bpas.length) {
+				double[] newBpas = new double[2 * bpas.length];
+				System.arraycopy(bpas, 0, newBpas, 0, bpas.length);
+				bpas = newBpas;
+			}
+			elements.add(element);
+			indexes.put(element, index);
+		}
+		return index;
+	}
+
+	/**
+	 * Adds the elements of <code>table</code> with a zero bpa.
+	 *
+	 * @param table
+	 */
+	public void addElements(MassTable table) {
+		for (IElement element : table.elements) {
+			addElement(element);
+		}
+	}
+
+	/**
+	 * Adds <code>bpa</code> to the bpa of the <code>element</code>, adding the
+	 * element if it is not in the table.
+	 *
+	 * @param element
+	 * @param bpa
+	 */
+	public void add(IElement element, double bpa) {
+		int index = addElement(element);
+		bpas[index] = bpas[index] + bpa;
+	}
+
+	/**
+	 * Adds the focal elements of <code>mass</code>, with their bpa multiplied
+	 * by <code>weight</code>.
+	 *
+	 * @param mass
+	 * @param weight
+	 */
+	public void add(MassDistribution mass, double weight) {
+		for (IFocalElement focalElement : mass.getBodyOfEvidence()) {
+			add(focalElement.getElement(), weight * focalElement.getBpa());
+		}
+	}
+
+	/**
+	 * Adds <code>bpa</code> to the bpa of the element at <code>index</code>.
+	 *
+	 * @param index
+	 * @param bpa
+	 */
+	public void add(int index, double bpa) {
+		checkIndex(index);
+		bpas[index] = bpas[index] + bpa;
+	}
+
+	public IElement getElement(int index) {
+		return elements.get(index);
+	}
+
+	public double getBpa(int index) {
+		checkIndex(index);
+		return bpas[index];
+	}
+
+	public void setBpa(int index, double bpa) {
+		checkIndex(index);
+		bpas[index] = bpa;
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= elements.size())
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: "
+					+ elements.size());
+	}
+
+	/**
+	 * @return the sum of the bpa of the table.
+	 */
+	public double getTotal() {
+		double total = 0;
+		for (int i = 0; i < elements.size(); i++) {
+			total = total + bpas[i];
+		}
+		return total;
+	}
+
+	/**
+	 * Multiplies all the bpa of the table by <code>factor</code>.
+	 *
+	 * @param factor
+	 */
+	public void scale(double factor) {
+		for (int i = 0; i < elements.size(); i++) {
+			bpas[i] = bpas[i] * factor;
+		}
+	}
+
+	/**
+	 * @return a {@link JointMassDistribution} with a new focal element for each
+	 *         element of the table, in the order they were added.
+	 */
+	public JointMassDistribution toJointMassDistribution() {
+		ArrayList<IFocalElement> bodyOfEvidence = new ArrayList<IFocalElement>(
+				elements.size());
+		for (int i = 0; i < elements.size(); i++) {
+			bodyOfEvidence.add(new FocalElement(elements.get(i), bpas[i]));
+		}
+		return new JointMassDistribution(bodyOfEvidence);
+	}
+
+	@Override
+	public String toString() {
+		return "MassTable [" + toJointMassDistribution().getBodyOfEvidence()
+				+ "]";
+	}
+
+}
@@ -0,0 +1,437 @@
+package joint;
+
+import interfaces.IFocalElement;
+import interfaces.IHypothesis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import massDistribution.MassDistribution;
+import utilities.SplitMix64;
+import core.ElementPool;
+import core.FrameOfDiscernment;
+import exception.JointNotPossibleException;
+
+/**
+ * Estimates Dempster's combination of many masses by sampling, for frames too
+ * big for the exact operators of {@link JointManager}. Each sample draws a
+ * focal element from every mass with probability equal to its bpa and
+ * intersects them: an empty intersection is rejected (it is conflict), a non
+ * empty one is counted. The frequency of each intersection among the accepted
+ * samples estimates its combined mass.<br>
+ * The samples are drawn in rounds by several threads, each with its own
+ * {@link SplitMix64} stream split from the seed, so the estimate depends only
+ * on the seed and on the number of threads. After each round the half-width
+ * of the confidence interval of the estimated masses is computed, and the
+ * sampling stops when it is lower than the target error or when the maximum
+ * number of samples is reached.<br>
+ * When the conflict is high most of the samples are rejected, so the
+ * estimate needs about 1/(1-conflict) times more samples.
+ *
+ * @author Elisa Costante
+ *
+ */
+public class MonteCarloDempster {
+
+	/**
+	 * The minimum number of accepted samples before the stopping rule is
+	 * checked, so that the estimate of a rare focal element is not trusted
+	 * too early.
+	 */
+	private static final long MIN_ACCEPTED = 100;
+
+	private final long seed;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private int batchSize = 10000;
+	private long maxSamples = 10000000;
+	private double targetError = 0.01;
+	private double confidence = 0.95;
+
+	/**
+	 * Constructs an estimator with the given <code>seed</code>.
+	 *
+	 * @param seed
+	 */
+	public MonteCarloDempster(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Estimates Dempster's combination of the <code>masses</code>.
+	 *
+	 * @param masses
+	 * @param frame
+	 *            : the frame of the masses, or null to use the hypothesies of
+	 *            the masses.
+	 * @return the estimate.
+	 * @throws JointNotPossibleException
+	 */
+	public MonteCarloEstimate combine(ArrayList<MassDistribution> masses,
+			FrameOfDiscernment frame) throws JointNotPossibleException {
+		if (masses.size() < 2)
+			throw new JointNotPossibleException(
+					"It's not possible do a joint with just one MassDistribution");
+
+		ElementPool pool = getPool(masses, frame);
+		int words = (pool.getHypothesisCount() + 63) >>> 6;
+		FocalSampler[] samplers = new FocalSampler[masses.size()];
+		for (int i = 0; i < samplers.length; i++) {
+			samplers[i] = new FocalSampler(masses.get(i), pool, words);
+			if (samplers[i].isEmpty())
+				throw new JointNotPossibleException("The mass "
+						+ masses.get(i) + " has no focal element with a bpa");
+		}
+
+		SplitMix64 random = new SplitMix64(seed);
+		Worker[] workers = new Worker[threads];
+		for (int i = 0; i < workers.length; i++) {
+			workers[i] = new Worker(random.split(), samplers, words, batchSize);
+		}
+
+		ExecutorService executor = (threads > 1) ? Executors
+				.newFixedThreadPool(threads) : null;
+		double z = getQuantile(confidence);
+		try {
+			while (true) {
+				runRound(workers, executor);
+
+				long samples = 0;
+				long accepted = 0;
+				HashMap<Mask, long[]> counts = new HashMap<Mask, long[]>();
+				for (Worker worker : workers) {
+					samples = samples + worker.samples;
+					accepted = accepted + worker.accepted;
+					for (Map.Entry<Mask, long[]> entry : worker.counts
+							.entrySet()) {
+						long[] count = counts.get(entry.getKey());
+						if (count == null)
+							counts.put(entry.getKey(), new long[] { entry
+									.getValue()[0] });
+						else
+							count[0] = count[0] + entry.getValue()[0];
+					}
+				}
+
+				MonteCarloEstimate estimate = new MonteCarloEstimate(pool,
+						toBitSets(counts), toCounts(counts), samples,
+						accepted, confidence, z);
+				if (samples >= maxSamples
+						|| (accepted >= MIN_ACCEPTED && estimate
+								.getMaxHalfWidth() <= targetError))
+					return estimate;
+			}
+		} finally {
+			if (executor != null)
+				executor.shutdown();
+		}
+	}
+
+	private static void runRound(Worker[] workers, ExecutorService executor) {
+		if (executor == null) {
+			for (Worker worker : workers) {
+				worker.call();
+			}
+			return;
+		}
+
+		ArrayList<Future<Object>> futures = new ArrayList<Future<Object>>();
+		for (Worker worker : workers) {
+			futures.add(executor.submit(worker));
+		}
+		try {
+			for (Future<Object> future : futures) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("The sampling was interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("The sampling failed", e
+					.getCause());
+		}
+	}
+
+	/**
+	 * Returns the pool of the frame if all the elements belong to it, a pool
+	 * of the hypothesies of the masses otherwise.
+	 */
+	private static ElementPool getPool(ArrayList<MassDistribution> masses,
+			FrameOfDiscernment frame) {
+		if (frame != null && frame.getHipothesies() != null) {
+			ElementPool pool = frame.getElementPool();
+			boolean inFrame = true;
+			for (MassDistribution mass : masses) {
+				for (IFocalElement focalElement : mass.getBodyOfEvidence()) {
+					if (pool.getMask(focalElement.getElement()) == null)
+						inFrame = false;
+				}
+			}
+			if (inFrame)
+				return pool;
+		}
+
+		ArrayList<IHypothesis> hypothesies = new ArrayList<IHypothesis>();
+		for (MassDistribution mass : masses) {
+			for (IFocalElement focalElement : mass.getBodyOfEvidence()) {
+				if (focalElement.getElement().getHypothesies() != null)
+					hypothesies.addAll(focalElement.getElement()
+							.getHypothesies());
+			}
+		}
+		return new ElementPool(hypothesies);
+	}
+
+	private static ArrayList<BitSet> toBitSets(HashMap<Mask, long[]> counts) {
+		ArrayList<BitSet> masks = new ArrayList<BitSet>(counts.size());
+		for (Mask mask : counts.keySet()) {
+			BitSet bitSet = new BitSet();
+			for (int i = 0; i < mask.words.length; i++) {
+				for (int bit = 0; bit < 64; bit++) {
+					if ((mask.words[i] & (1L << bit)) != 0)
+						bitSet.set(i * 64 + bit);
+				}
+			}
+			masks.add(bitSet);
+		}
+		return masks;
+	}
+
+	private static long[] toCounts(HashMap<Mask, long[]> counts) {
+		long[] values = new long[counts.size()];
+		int i = 0;
+		// in the same order of toBitSets
+		for (Mask mask : counts.keySet()) {
+			values[i] = counts.get(mask)[0];
+			i++;
+		}
+		return values;
+	}
+
+	/**
+	 * Returns the quantile of the standard normal distribution which leaves
+	 * (1-confidence)/2 in the upper tail (Abramowitz and Stegun 26.2.23, error
+	 * lower than 4.5e-4).
+	 */
+	static double getQuantile(double confidence) {
+		double p = (1 - confidence) / 2;
+		double t = Math.sqrt(-2 * Math.log(p));
+		return t - (2.515517 + 0.802853 * t + 0.010328 * t * t)
+				/ (1 + 1.432788 * t + 0.189269 * t * t + 0.001308 * t * t * t);
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * @param threads
+	 *            : the number of threads drawing the samples.
+	 */
+	public void setThreads(int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException("The number of threads "
+					+ threads + " must be at least 1");
+		this.threads = threads;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * @param batchSize
+	 *            : the number of samples drawn by each thread in a round.
+	 */
+	public void setBatchSize(int batchSize) {
+		if (batchSize < 1)
+			throw new IllegalArgumentException("The batch size " + batchSize
+					+ " must be at least 1");
+		this.batchSize = batchSize;
+	}
+
+	public long getMaxSamples() {
+		return maxSamples;
+	}
+
+	/**
+	 * @param maxSamples
+	 *            : the number of samples after which the sampling stops even
+	 *            if the target error is not reached.
+	 */
+	public void setMaxSamples(long maxSamples) {
+		if (maxSamples < 1)
+			throw new IllegalArgumentException("The maximum number of samples "
+					+ maxSamples + " must be at least 1");
+		this.maxSamples = maxSamples;
+	}
+
+	public double getTargetError() {
+		return targetError;
+	}
+
+	/**
+	 * @param targetError
+	 *            : the half-width of the confidence interval of the estimated
+	 *            masses at which the sampling stops.
+	 */
+	public void setTargetError(double targetError) {
+		if (!(targetError > 0))
+			throw new IllegalArgumentException("The target error "
+					+ targetError + " must be positive");
+		this.targetError = targetError;
+	}
+
+	public double getConfidence() {
+		return confidence;
+	}
+
+	/**
+	 * @param confidence
+	 *            : the confidence level of the intervals, for example 0.95.
+	 */
+	public void setConfidence(double confidence) {
+		if (!(confidence > 0 && confidence < 1))
+			throw new IllegalArgumentException("The confidence " + confidence
+					+ " must be between 0 and 1");
+		this.confidence = confidence;
+	}
+
+	/**
+	 * Draws the focal elements of a mass with probability equal to their bpa.
+	 */
+	private static class FocalSampler {
+		private final double[] cumulative;
+		private final long[][] masks;
+
+		FocalSampler(MassDistribution mass, ElementPool pool, int words) {
+			ArrayList<IFocalElement> focalElements = new ArrayList<IFocalElement>();
+			double total = 0;
+			for (IFocalElement focalElement : mass.getBodyOfEvidence()) {
+				if (focalElement.getBpa() > 0) {
+					focalElements.add(focalElement);
+					total = total + focalElement.getBpa();
+				}
+			}
+
+			cumulative = new double[focalElements.size()];
+			masks = new long[focalElements.size()][];
+			double sum = 0;
+			for (int i = 0; i < cumulative.length; i++) {
+				IFocalElement focalElement = focalElements.get(i);
+				sum = sum + focalElement.getBpa();
+				cumulative[i] = sum / total;
+
+				masks[i] = new long[words];
+				BitSet mask = pool.getMask(focalElement.getElement());
+				for (int bit = mask.nextSetBit(0); bit >= 0; bit = mask
+						.nextSetBit(bit + 1)) {
+					masks[i][bit >>> 6] = masks[i][bit >>> 6] | (1L << bit);
+				}
+			}
+		}
+
+		boolean isEmpty() {
+			return cumulative.length == 0;
+		}
+
+		long[] sample(SplitMix64 random) {
+			double u = random.nextDouble();
+			int low = 0;
+			int high = cumulative.length - 1;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (cumulative[middle] > u)
+					high = middle;
+				else
+					low = middle + 1;
+			}
+			return masks[low];
+		}
+	}
+
+	/**
+	 * Draws the samples of a thread and counts the accepted intersections.
+	 */
+	private static class Worker implements Callable<Object> {
+		private final SplitMix64 random;
+		private final FocalSampler[] samplers;
+		private final int batchSize;
+		private final long[] intersection;
+		private final HashMap<Mask, long[]> counts = new HashMap<Mask, long[]>();
+		private long samples;
+		private long accepted;
+
+		Worker(SplitMix64 random, FocalSampler[] samplers, int words,
+				int batchSize) {
+			this.random = random;
+			this.samplers = samplers;
+			this.batchSize = batchSize;
+			this.intersection = new long[words];
+		}
+
+		public Object call() {
+			for (int n = 0; n < batchSize; n++) {
+				System.arraycopy(samplers[0].sample(random), 0, intersection,
+						0, intersection.length);
+				boolean empty = false;
+				for (int i = 1; i < samplers.length && !empty; i++) {
+					long[] mask = samplers[i].sample(random);
+					long any = 0;
+					for (int w = 0; w < intersection.length; w++) {
+						intersection[w] = intersection[w] & mask[w];
+						any = any | intersection[w];
+					}
+					empty = (any == 0);
+				}
+
+				samples++;
+				if (!empty) {
+					accepted++;
+					Mask key = new Mask(intersection.clone());
+					long[] count = counts.get(key);
+					if (count == null)
+						counts.put(key, new long[] { 1 });
+					else
+						count[0]++;
+				}
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * A bit mask used as key of the counts.
+	 */
+	private static final class Mask {
+		private final long[] words;
+		private final int hash;
+
+		Mask(long[] words) {
+			this.words = words;
+			this.hash = Arrays.hashCode(words);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Mask && Arrays.equals(words, ((Mask) obj).words);
+		}
+	}
+
+}
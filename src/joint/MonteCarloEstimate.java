@@ -0,0 +1,174 @@
+package joint;
+
+import interfaces.IElement;
+import interfaces.IFocalElement;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+
+import massDistribution.JointMassDistribution;
+import core.ElementPool;
+import core.FocalElement;
+
+/**
+ * The estimate of Dempster's combination computed by
+ * {@link MonteCarloDempster}: the number of accepted samples of each focal
+ * element and the confidence intervals of the estimated mass, belief and
+ * plausibility.<br>
+ * The half-width of the interval of an estimated probability p over n
+ * accepted samples is z*sqrt(p*(1-p)/n), where z is the quantile of the
+ * normal distribution for the confidence level.
+ *
+ * @author Elisa Costante
+ *
+ */
+public class MonteCarloEstimate {
+
+	private final ElementPool pool;
+	private final ArrayList<BitSet> masks;
+	private final long[] counts;
+	private final long samples;
+	private final long accepted;
+	private final double confidence;
+	private final double z;
+
+	MonteCarloEstimate(ElementPool pool, ArrayList<BitSet> masks,
+			long[] counts, long samples, long accepted, double confidence,
+			double z) {
+		this.pool = pool;
+		this.masks = masks;
+		this.counts = counts;
+		this.samples = samples;
+		this.accepted = accepted;
+		this.confidence = confidence;
+		this.z = z;
+	}
+
+	/**
+	 * @return the estimated combination. If all the samples were rejected it
+	 *         is the knowledge of the empty set.
+	 */
+	public JointMassDistribution getMass() {
+		if (accepted == 0)
+			return JointMassDistribution.getEmptySetKnowledge();
+
+		ArrayList<IFocalElement> bodyOfEvidence = new ArrayList<IFocalElement>();
+		for (int i = 0; i < counts.length; i++) {
+			bodyOfEvidence.add(new FocalElement(pool.getElement(masks.get(i)),
+					(double) counts[i] / accepted));
+		}
+		JointMassDistribution mass = new JointMassDistribution(bodyOfEvidence);
+		mass.setOperator(JointOperator.DEMPSTER);
+		return mass;
+	}
+
+	/**
+	 * @param element
+	 * @return the estimated mass of the <code>element</code>.
+	 */
+	public double getBpa(IElement element) {
+		BitSet mask = pool.getMask(element);
+		long count = 0;
+		for (int i = 0; i < counts.length; i++) {
+			if (masks.get(i).equals(mask))
+				count = count + counts[i];
+		}
+		return getFrequency(count);
+	}
+
+	/**
+	 * @param element
+	 * @return the estimated belief of the <code>element</code>: the mass of
+	 *         the focal elements included in it.
+	 */
+	public double getBelief(IElement element) {
+		BitSet mask = pool.getMask(element);
+		if (mask == null)
+			return 0;
+		long count = 0;
+		for (int i = 0; i < counts.length; i++) {
+			BitSet outside = (BitSet) masks.get(i).clone();
+			outside.andNot(mask);
+			if (outside.isEmpty())
+				count = count + counts[i];
+		}
+		return getFrequency(count);
+	}
+
+	/**
+	 * @param element
+	 * @return the estimated plausibility of the <code>element</code>: the mass
+	 *         of the focal elements which intersect it.
+	 */
+	public double getPlausibility(IElement element) {
+		BitSet mask = pool.getMask(element);
+		if (mask == null)
+			return 0;
+		long count = 0;
+		for (int i = 0; i < counts.length; i++) {
+			if (masks.get(i).intersects(mask))
+				count = count + counts[i];
+		}
+		return getFrequency(count);
+	}
+
+	private double getFrequency(long count) {
+		if (accepted > 0)
+			return (double) count / accepted;
+		else
+			return 0;
+	}
+
+	/**
+	 * @param estimate
+	 *            : a probability estimated on the accepted samples, as the
+	 *            bpa, the belief or the plausibility of an element.
+	 * @return the half-width of the confidence interval of the estimate.
+	 */
+	public double getHalfWidth(double estimate) {
+		if (accepted == 0)
+			return 1;
+		return z * Math.sqrt(estimate * (1 - estimate) / accepted);
+	}
+
+	/**
+	 * @return the biggest half-width of the confidence intervals of the
+	 *         estimated masses.
+	 */
+	public double getMaxHalfWidth() {
+		if (accepted == 0)
+			return 1;
+		double max = 0;
+		for (long count : counts) {
+			max = Math.max(max, getHalfWidth((double) count / accepted));
+		}
+		return max;
+	}
+
+	/**
+	 * @return the estimated conflict: the fraction of rejected samples.
+	 */
+	public double getConflict() {
+		return 1 - (double) accepted / samples;
+	}
+
+	public long getSamples() {
+		return samples;
+	}
+
+	public long getAcceptedSamples() {
+		return accepted;
+	}
+
+	public double getConfidence() {
+		return confidence;
+	}
+
+	@Override
+	public String toString() {
+		return "MonteCarloEstimate [" + getMass() + ", samples=" + samples
+				+ ", accepted=" + accepted + ", halfWidth="
+				+ getMaxHalfWidth() + "]";
+	}
+
+}
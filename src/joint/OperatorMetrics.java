@@ -0,0 +1,84 @@
+package joint;
+
+import utilities.Histogram;
+import utilities.StripedCounter;
+
+/**
+ * The number and the latency of the combinations of a {@link JointOperator}
+ * (see {@link JointMetrics}).
+ *
+ * @author Elisa Costante
+ *
+ */
+public class OperatorMetrics implements OperatorMetricsMBean {
+
+	/**
+	 * The latency buckets go from 1 microsecond to about 9 hours.
+	 */
+	private static final int LATENCY_BUCKETS = 36;
+
+	private final JointOperator operator;
+	private final StripedCounter combinations = new StripedCounter();
+	private final StripedCounter latency = new StripedCounter();
+	private final Histogram latencyHistogram = Histogram.exponential(1,
+			LATENCY_BUCKETS);
+
+	OperatorMetrics(JointOperator operator) {
+		this.operator = operator;
+	}
+
+	/**
+	 * @param nanos
+	 *            : the latency of a combination in nanoseconds.
+	 */
+	void record(long nanos) {
+		combinations.increment();
+		latency.add(nanos);
+		latencyHistogram.record(nanos / 1000.0);
+	}
+
+	void reset() {
+		combinations.reset();
+		latency.reset();
+		latencyHistogram.reset();
+	}
+
+	public String getOperator() {
+		return operator.getName();
+	}
+
+	public long getCombinations() {
+		return combinations.sum();
+	}
+
+	public double getMeanLatency() {
+		long count = combinations.sum();
+		if (count == 0)
+			return Double.NaN;
+		return latency.sum() / 1000.0 / count;
+	}
+
+	public double getMedianLatency() {
+		return latencyHistogram.getQuantile(0.5);
+	}
+
+	public double getPercentile99Latency() {
+		return latencyHistogram.getQuantile(0.99);
+	}
+
+	public double[] getLatencyBounds() {
+		return latencyHistogram.getBounds();
+	}
+
+	public long[] getLatencyHistogram() {
+		return latencyHistogram.getCounts();
+	}
+
+	@Override
+	public String toString() {
+		return "OperatorMetrics [operator=" + getOperator()
+				+ ", combinations=" + getCombinations() + ", meanLatency="
+				+ getMeanLatency() + "]";
+	}
+
+}
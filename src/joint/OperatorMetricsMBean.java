@@ -0,0 +1,35 @@
+package joint;
+
+/**
+ * The management interface of {@link OperatorMetrics}. The latencies are in
+ * microseconds.
+ *
+ * @author Elisa Costante
+ *
+ */
+public interface OperatorMetricsMBean {
+
+	public String getOperator();
+
+	public long getCombinations();
+
+	public double getMeanLatency();
+
+	/**
+	 * @return the bound of the bucket of the median latency.
+	 */
+	public double getMedianLatency();
+
+	/**
+	 * @return the bound of the bucket of the 99th percentile of the latency.
+	 */
+	public double getPercentile99Latency();
+
+	public double[] getLatencyBounds();
+
+	/**
+	 * @return the number of combinations for each bucket of latency.
+	 */
+	public long[] getLatencyHistogram();
+
+}
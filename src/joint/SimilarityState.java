@@ -0,0 +1,221 @@
+package joint;
+
+import java.util.ArrayList;
+
+import massDistribution.DistanceKernel;
+import massDistribution.MassDistribution;
+
+/**
+ * The similarity state of a set of sources for the Distance Evidence operator
+ * (see {@link JointOperator#DISTANCE}). It keeps the masses, the similarity
+ * matrix and the support degree of each mass, and it updates them when a
+ * source is added or removed instead of recomputing all the N^2 distances:
+ * <ul>
+ * <li>adding a source computes its distance from the N masses already in the
+ * state, that is O(N) distances;</li>
+ * <li>removing a source does not compute any distance.</li>
+ * </ul>
+ * The similarity between two masses is sim(m1,m2)= (cos(d(m1,m2)*PI) + 1) / 2,
+ * where d is Jousselme's distance (see {@link DistanceKernel}). The support
+ * degree of a mass is the sum of its similarities with the other masses, its
+ * credibility is the support degree divided by the sum of all the support
+ * degrees.<br>
+ * The state is not thread safe.
+ *
+ * @author Elisa Costante
+ *
+ */
+public class SimilarityState {
+
+	private final DistanceKernel kernel;
+	private final ArrayList<MassDistribution> masses;
+	/**
+	 * The similarity matrix: similarities.get(i)[j] is the similarity between
+	 * the mass i and the mass j. The rows may be longer than the number of
+	 * masses, so that adding a source does not copy them.
+	 */
+	private final ArrayList<double[]> similarities;
+	private final ArrayList<Double> supportDegrees;
+
+	public SimilarityState() {
+		this(new DistanceKernel());
+	}
+
+	/**
+	 * Constructs an empty state which measures the distances with the
+	 * <code>kernel</code>.
+	 *
+	 * @param kernel
+	 */
+	public SimilarityState(DistanceKernel kernel) {
+		this.kernel = kernel;
+		masses = new ArrayList<MassDistribution>();
+		similarities = new ArrayList<double[]>();
+		supportDegrees = new ArrayList<Double>();
+	}
+
+	/**
+	 * Constructs the state of <code>masses</code>.
+	 *
+	 * @param masses
+	 */
+	public SimilarityState(ArrayList<MassDistribution> masses) {
+		this(new DistanceKernel(), masses);
+	}
+
+	/**
+	 * Constructs the state of <code>masses</code>, which measures the
+	 * distances with the <code>kernel</code>.
+	 *
+	 * @param kernel
+	 * @param masses
+	 */
+	public SimilarityState(DistanceKernel kernel,
+			ArrayList<MassDistribution> masses) {
+		this(kernel);
+		for (MassDistribution mass : masses) {
+			addSource(mass);
+		}
+	}
+
+	/**
+	 * Adds the <code>mass</code> of a new source to the state. Its distance
+	 * from each mass of the state is computed and the support degrees are
+	 * updated.
+	 *
+	 * @param mass
+	 */
+	public void addSource(MassDistribution mass) {
+		int n = masses.size();
+
+		double[] row = new double[Math.max(2 * n, 4)];
+		double support = 0;
+		for (int i = 0; i < n; i++) {
+			double sim = getSimilarity(kernel.getDistance(masses.get(i), mass));
+			row[i] = sim;
+
+			double[] otherRow = similarities.get(i);
+			if (otherRow.length <= n) {
+				double[] newRow = new double[2 * otherRow.length];
+				System.arraycopy(otherRow, 0, newRow, 0, n);
+				otherRow = newRow;
+				similarities.set(i, otherRow);
+			}
+			otherRow[n] = sim;
+
+			supportDegrees.set(i, supportDegrees.get(i) + sim);
+			support = support + sim;
+		}
+		row[n] = 1;
+
+		masses.add(mass);
+		similarities.add(row);
+		supportDegrees.add(support);
+	}
+
+	/**
+	 * Removes the source at <code>index</code> from the state. The support
+	 * degrees of the other sources are updated without computing any
+	 * distance.
+	 *
+	 * @param index
+	 * @return the mass of the removed source.
+	 */
+	public MassDistribution removeSource(int index) {
+		int n = masses.size();
+		double[] removedRow = similarities.get(index);
+
+		for (int i = 0; i < n; i++) {
+			if (i != index) {
+				supportDegrees.set(i, supportDegrees.get(i) - removedRow[i]);
+
+				double[] otherRow = similarities.get(i);
+				System.arraycopy(otherRow, index + 1, otherRow, index, n
+						- index - 1);
+			}
+		}
+
+		similarities.remove(index);
+		supportDegrees.remove(index);
+		return masses.remove(index);
+	}
+
+	/**
+	 * @return the number of sources of the state.
+	 */
+	public int size() {
+		return masses.size();
+	}
+
+	/**
+	 * @return the masses of the sources, in the order they were added. The
+	 *         list must not be modified.
+	 */
+	public ArrayList<MassDistribution> getMasses() {
+		return masses;
+	}
+
+	/**
+	 * @param i
+	 * @param j
+	 * @return the similarity between the mass i and the mass j.
+	 */
+	public double getSimilarity(int i, int j) {
+		return similarities.get(i)[j];
+	}
+
+	/**
+	 * @return a copy of the similarity matrix.
+	 */
+	public double[][] getSimilarityMatrix() {
+		double[][] matrix = new double[masses.size()][];
+		for (int i = 0; i < matrix.length; i++) {
+			matrix[i] = new double[masses.size()];
+			System.arraycopy(similarities.get(i), 0, matrix[i], 0,
+					matrix.length);
+		}
+		return matrix;
+	}
+
+	/**
+	 * @return the support degree of each mass.
+	 */
+	public double[] getSupportDegree() {
+		double[] supportDegree = new double[supportDegrees.size()];
+		for (int i = 0; i < supportDegree.length; i++) {
+			supportDegree[i] = supportDegrees.get(i);
+		}
+		return supportDegree;
+	}
+
+	/**
+	 * @return the credibility of each mass: credibility(mi)= Sup(mi) /
+	 *         Summation(Sup(mj)) for each mass j.
+	 */
+	public double[] getCredibility() {
+		double[] credibility = getSupportDegree();
+		double summation = 0;
+		for (int i = 0; i < credibility.length; i++) {
+			summation = summation + credibility[i];
+		}
+		for (int i = 0; i < credibility.length; i++) {
+			credibility[i] = credibility[i] / summation;
+		}
+		return credibility;
+	}
+
+	/**
+	 * @return the kernel which measures the distances.
+	 */
+	public DistanceKernel getKernel() {
+		return kernel;
+	}
+
+	/**
+	 * Returns the similarity between two masses given their distance.
+	 */
+	private static double getSimilarity(double distance) {
+		return (Math.cos(distance * Math.PI) + 1) / 2;
+	}
+
+}
@@ -0,0 +1,418 @@
+package joint;
+
+import interfaces.IElement;
+
+import java.util.ArrayList;
+
+import massDistribution.JointMassDistribution;
+import massDistribution.MassDistribution;
+import utilities.DoubleUtility;
+import core.Element;
+import core.FrameOfDiscernment;
+import exception.JointNotPossibleException;
+import exception.MassDistributionNotValidException;
+
+/**
+ * The combination of the masses of a sliding window: the last masses by
+ * count ({@link #setMaxSize(int)}), by event time ({@link #setMaxAge(long)})
+ * or both. The window does not combine again all its masses when a mass is
+ * added or evicted, it keeps them in two stacks of partial combinations:
+ * <ul>
+ * <li>the back stack receives the new masses, and keeps the combination of
+ * all of them;</li>
+ * <li>the front stack gives the oldest mass to evict, and keeps for each of
+ * its masses the combination of the mass with the newer ones of the stack.
+ * When it is empty the back stack is moved into it, combining its masses from
+ * the newest to the oldest.</li>
+ * </ul>
+ * The combination of the window is the combination of the top of the front
+ * stack with the back stack, so adding, evicting and combining cost an
+ * amortized constant number of combinations. It works for the operators whose
+ * partial combinations are associative:
+ * <ul>
+ * <li>{@link JointOperator#DEMPSTER} and {@link JointOperator#YAGER} keep the
+ * unnormalized conjunctive combination and its conflict, which is normalized
+ * (Dempster) or moved to the universal set (Yager) only by
+ * {@link #getJoint()};</li>
+ * <li>{@link JointOperator#AVERAGE} keeps the sum of the masses and their
+ * number.</li>
+ * </ul>
+ * The Distance Evidence operator is not associative, its incremental state is
+ * {@link SimilarityState}.<br>
+ * The window is not thread safe.
+ *
+ * @author Elisa Costante
+ *
+ */
+public class SlidingWindow {
+
+	private final JointOperator operator;
+	private final FrameOfDiscernment frame;
+
+	private int maxSize;
+	private long maxAge;
+	/**
+	 * The time of the window, that is the time of the newest mass or the time
+	 * it was advanced to.
+	 */
+	private long time = Long.MIN_VALUE;
+
+	/**
+	 * The front stack, with the oldest mass at the end.
+	 */
+	private final ArrayList<Entry> front = new ArrayList<Entry>();
+	/**
+	 * The back stack, with the newest mass at the end.
+	 */
+	private final ArrayList<Entry> back = new ArrayList<Entry>();
+	/**
+	 * The combination of the masses of the back stack, or null if it is empty.
+	 */
+	private Combination backCombination;
+
+	/**
+	 * Constructs an empty window without limits of size and age.
+	 *
+	 * @param operator
+	 *            : {@link JointOperator#DEMPSTER}, {@link JointOperator#YAGER}
+	 *            or {@link JointOperator#AVERAGE}.
+	 * @param frame
+	 *            : the frame of the masses. Yager's operator needs it.
+	 * @throws IllegalArgumentException
+	 *             if the operator is not associative, or if the operator is
+	 *             Yager's and the frame is null.
+	 */
+	public SlidingWindow(JointOperator operator, FrameOfDiscernment frame) {
+		if (operator == JointOperator.DISTANCE)
+			throw new IllegalArgumentException(
+					"The Distance Evidence operator is not associative");
+		if (operator == JointOperator.YAGER && frame == null)
+			throw new IllegalArgumentException(
+					"Yager's operator needs the frame of discernment");
+		this.operator = operator;
+		this.frame = frame;
+	}
+
+	public JointOperator getOperator() {
+		return operator;
+	}
+
+	public FrameOfDiscernment getFrame() {
+		return frame;
+	}
+
+	/**
+	 * @return the maximum number of masses of the window, or 0 if it is not
+	 *         limited.
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Limits the number of masses of the window, evicting the oldest masses
+	 * which exceed it.
+	 *
+	 * @param maxSize
+	 *            : the maximum number of masses, or 0 not to limit it.
+	 */
+	public void setMaxSize(int maxSize) {
+		if (maxSize < 0)
+			throw new IllegalArgumentException("The size must not be negative");
+		this.maxSize = maxSize;
+		evict();
+	}
+
+	/**
+	 * @return the maximum age of the masses of the window, or 0 if it is not
+	 *         limited.
+	 */
+	public long getMaxAge() {
+		return maxAge;
+	}
+
+	/**
+	 * Limits the age of the masses of the window: a mass is evicted when the
+	 * time of the window is at least its time plus <code>maxAge</code>.
+	 *
+	 * @param maxAge
+	 *            : the maximum age, in the unit of the times of the masses, or
+	 *            0 not to limit it.
+	 */
+	public void setMaxAge(long maxAge) {
+		if (maxAge < 0)
+			throw new IllegalArgumentException("The age must not be negative");
+		this.maxAge = maxAge;
+		evict();
+	}
+
+	/**
+	 * @return the time of the newest mass, or the time the window was
+	 *         advanced to if it is later.
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * Adds the <code>mass</code> with the time of the window, evicting the
+	 * masses which exceed the size of the window.
+	 *
+	 * @param mass
+	 */
+	public void addSource(MassDistribution mass) {
+		addSource(mass, time == Long.MIN_VALUE ? 0 : time);
+	}
+
+	/**
+	 * Adds the <code>mass</code> observed at <code>time</code>, advancing the
+	 * window to it and evicting the masses which exceed the size or the age
+	 * of the window.
+	 *
+	 * @param mass
+	 * @param time
+	 *            : the time of the mass, not before the time of the window.
+	 */
+	public void addSource(MassDistribution mass, long time) {
+		if (time < this.time)
+			throw new IllegalArgumentException("The time " + time
+					+ " is before the time of the window " + this.time);
+		if (frame != null)
+			frame.getElementPool().intern(mass.getBodyOfEvidence());
+		this.time = time;
+
+		Entry entry = new Entry(mass, time, new Combination(mass));
+		back.add(entry);
+		backCombination = combine(backCombination, entry.combination);
+		evict();
+	}
+
+	/**
+	 * Advances the window to <code>time</code>, evicting the masses older
+	 * than the age of the window.
+	 *
+	 * @param time
+	 *            : the new time, not before the time of the window.
+	 */
+	public void advanceTo(long time) {
+		if (time < this.time)
+			throw new IllegalArgumentException("The time " + time
+					+ " is before the time of the window " + this.time);
+		this.time = time;
+		evict();
+	}
+
+	/**
+	 * Removes the oldest mass of the window.
+	 *
+	 * @return the removed mass, or null if the window is empty.
+	 */
+	public MassDistribution removeOldest() {
+		if (front.isEmpty()) {
+			if (back.isEmpty())
+				return null;
+			// the masses of the back stack are combined from the newest, so
+			// each entry of the front stack combines it with the newer ones
+			Combination combination = null;
+			for (int i = back.size() - 1; i >= 0; i--) {
+				Entry entry = back.get(i);
+				combination = combine(entry.combination, combination);
+				front.add(new Entry(entry.mass, entry.time, combination));
+			}
+			back.clear();
+			backCombination = null;
+		}
+		return front.remove(front.size() - 1).mass;
+	}
+
+	private Entry getOldest() {
+		if (!front.isEmpty())
+			return front.get(front.size() - 1);
+		else if (!back.isEmpty())
+			return back.get(0);
+		else
+			return null;
+	}
+
+	private void evict() {
+		if (maxSize > 0) {
+			while (size() > maxSize) {
+				removeOldest();
+			}
+		}
+		if (maxAge > 0 && time >= Long.MIN_VALUE + maxAge) {
+			Entry oldest = getOldest();
+			while (oldest != null && oldest.time <= time - maxAge) {
+				removeOldest();
+				oldest = getOldest();
+			}
+		}
+	}
+
+	/**
+	 * Removes all the masses of the window.
+	 */
+	public void clear() {
+		front.clear();
+		back.clear();
+		backCombination = null;
+	}
+
+	/**
+	 * @return the number of masses of the window.
+	 */
+	public int size() {
+		return front.size() + back.size();
+	}
+
+	/**
+	 * @return a new list of the masses of the window, from the oldest.
+	 */
+	public ArrayList<MassDistribution> getMasses() {
+		ArrayList<MassDistribution> masses = new ArrayList<MassDistribution>(
+				size());
+		for (int i = front.size() - 1; i >= 0; i--) {
+			masses.add(front.get(i).mass);
+		}
+		for (Entry entry : back) {
+			masses.add(entry.mass);
+		}
+		return masses;
+	}
+
+	/**
+	 * Returns the result of the operator of the window applied to its
+	 * masses. If the conflict of Dempster's operator is total the knowledge
+	 * of the empty set is returned, as by {@link JointManager}.
+	 *
+	 * @return the combination of the masses of the window.
+	 * @throws JointNotPossibleException
+	 *             if the window has less than two masses.
+	 * @throws MassDistributionNotValidException
+	 */
+	public JointMassDistribution getJoint() throws JointNotPossibleException,
+			MassDistributionNotValidException {
+		if (size() < 2)
+			throw new JointNotPossibleException(
+					"It's not possible do a joint with just one MassDistribution");
+
+		Combination combination = combine(front.isEmpty() ? null : front
+				.get(front.size() - 1).combination, backCombination);
+		MassTable table = new MassTable(combination.table);
+		JointMassDistribution jointMass;
+		switch (operator) {
+		case DEMPSTER:
+			if (DoubleUtility.areEqualsDouble(combination.conflict, 1.0,
+					DoubleUtility.EPSILON)) {
+				jointMass = JointMassDistribution.getEmptySetKnowledge();
+				jointMass.setLogConflict(Double.POSITIVE_INFINITY);
+			} else {
+				table.scale(1 / (1 - combination.conflict));
+				jointMass = table.toJointMassDistribution();
+				jointMass.setLogConflict(-Math.log1p(-combination.conflict));
+			}
+			break;
+		case YAGER:
+			table.add(frame.getUniversalSet(), combination.conflict);
+			jointMass = table.toJointMassDistribution();
+			break;
+		default:
+			table.scale(1.0 / combination.count);
+			jointMass = table.toJointMassDistribution();
+			break;
+		}
+		jointMass.setOperator(operator);
+		return JointManager.validate(jointMass, frame);
+	}
+
+	/**
+	 * Combines two partial combinations, either of which may be null (the
+	 * combination of no mass). The arguments are not modified.
+	 */
+	private Combination combine(Combination c1, Combination c2) {
+		if (c1 == null)
+			return c2;
+		if (c2 == null)
+			return c1;
+
+		if (operator == JointOperator.AVERAGE) {
+			MassTable table = new MassTable(c1.table);
+			for (int i = 0; i < c2.table.size(); i++) {
+				table.add(c2.table.getElement(i), c2.table.getBpa(i));
+			}
+			return new Combination(table, 0, c1.count + c2.count);
+		}
+
+		// the mass of the empty set of the combination is the conflict of
+		// each side plus the products of the other focal elements whose
+		// intersection is empty
+		double conflict = c1.conflict + c2.conflict - c1.conflict
+				* c2.conflict;
+		MassTable table = new MassTable();
+		for (int i = 0; i < c1.table.size(); i++) {
+			double bpa1 = c1.table.getBpa(i);
+			if (bpa1 == 0)
+				continue;
+			IElement element1 = c1.table.getElement(i);
+
+			for (int j = 0; j < c2.table.size(); j++) {
+				double product = bpa1 * c2.table.getBpa(j);
+				if (product == 0)
+					continue;
+				Element intersection = Element.getIntersection(element1,
+						c2.table.getElement(j));
+				if (intersection.isEmptySet())
+					conflict = conflict + product;
+				else
+					table.add(intersection, product);
+			}
+		}
+		return new Combination(table, conflict, c1.count + c2.count);
+	}
+
+	/**
+	 * The partial combination of some consecutive masses of the window: the
+	 * unnormalized conjunctive combination and its conflict, or the sum of
+	 * the masses.
+	 */
+	private static class Combination {
+		private final MassTable table;
+		private final double conflict;
+		private final int count;
+
+		private Combination(MassDistribution mass) {
+			this(new MassTable(mass), 0, 1);
+		}
+
+		private Combination(MassTable table, double conflict, int count) {
+			this.table = table;
+			this.conflict = conflict;
+			this.count = count;
+		}
+	}
+
+	private static class Entry {
+		private final MassDistribution mass;
+		private final long time;
+		/**
+		 * The combination of the mass in the back stack, or of the mass with
+		 * the newer masses of the front stack.
+		 */
+		private final Combination combination;
+
+		private Entry(MassDistribution mass, long time,
+				Combination combination) {
+			this.mass = mass;
+			this.time = time;
+			this.combination = combination;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "SlidingWindow [operator=" + operator + ", size=" + size()
+				+ ", maxSize=" + maxSize + ", maxAge=" + maxAge + ", time="
+				+ time + "]";
+	}
+
+}
@@ -0,0 +1,390 @@
+package joint;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import massDistribution.JointMassDistribution;
+import massDistribution.MassDistribution;
+import core.FrameOfDiscernment;
+import exception.DempsterTotalConflictException;
+import exception.JointNotPossibleException;
+import exception.MassDistributionNotValidException;
+
+/**
+ * The fusion of the masses reported about a set of entities, where the older
+ * masses weigh less: the reliability of a mass halves every half-life (see
+ * {@link Discounting#getReliability(double, double)}), and each mass is
+ * discounted by Shafer's discounting (see {@link Discounting}) before the
+ * combination. The state of each entity is updated when a mass is added or
+ * the entity is combined, so a combination does not process again all the
+ * masses of the entity:
+ * <ul>
+ * <li>{@link JointOperator#AVERAGE}: the average of the discounted masses.
+ * The state of an entity is the sum of its masses, each multiplied by its
+ * reliability, and the number of masses: when the time advances all the
+ * reliabilities are multiplied by the same factor, so the state is scaled and
+ * the result is exact;</li>
+ * <li>{@link JointOperator#DEMPSTER}: Dempster's combination of the
+ * discounted masses. The discounting does not commute with Dempster's rule,
+ * so a decayed combination cannot be scaled as the average. The times are
+ * rounded down to a multiple of the step of the fusion (by default
+ * 1/{@link #STEPS_PER_HALF_LIFE} of the half-life), so the reliabilities of
+ * all the masses change only when the time enters a new step. The state of an
+ * entity is its masses and the combination of the last step: the masses added
+ * in the same step are discounted and combined with it, and the masses are
+ * discounted and combined again only at the first combination of a new step.
+ * The age of a mass is rounded by up to a step. A combination costs one
+ * pairwise combination for each new mass, but the first combination of a
+ * step combines again all the masses of the entity: unlike the average, the
+ * history is processed again once per step. The masses whose reliability
+ * falls below {@link #MIN_RELIABILITY} are dropped, so the masses of about
+ * ten half-lives are kept. Any mass can be added, dogmatic ones included.</li>
+ * </ul>
+ * The times are in the unit of the half-life. A mass can be added with a time
+ * before the time of its entity, and it is discounted by its age at that
+ * time.<br>
+ * The fusion is not thread safe.
+ *
+ * @author Elisa Costante
+ *
+ */
+public class TemporalFusion {
+
+	/**
+	 * The reliability under which a mass of Dempster's operator is dropped:
+	 * its discounted bpa differ from the vacuous mass by less than it.
+	 */
+	public static final double MIN_RELIABILITY = 0.001;
+
+	/**
+	 * The default number of steps of Dempster's operator in a half-life: a
+	 * reliability is wrong by less than 1.1%.
+	 */
+	public static final int STEPS_PER_HALF_LIFE = 64;
+
+	private final JointOperator operator;
+	private final FrameOfDiscernment frame;
+	private final double halfLife;
+	private final long step;
+	private final HashMap<String, State> states = new HashMap<String, State>();
+
+	/**
+	 * Constructs a fusion without entities, with
+	 * {@link #STEPS_PER_HALF_LIFE} steps in a half-life (at least one time
+	 * unit).
+	 *
+	 * @see #TemporalFusion(JointOperator, FrameOfDiscernment, double, long)
+	 */
+	public TemporalFusion(JointOperator operator, FrameOfDiscernment frame,
+			double halfLife) {
+		this(operator, frame, halfLife, Math.max(1,
+				(long) (halfLife / STEPS_PER_HALF_LIFE)));
+	}
+
+	/**
+	 * Constructs a fusion without entities.
+	 *
+	 * @param operator
+	 *            : {@link JointOperator#AVERAGE} or
+	 *            {@link JointOperator#DEMPSTER}.
+	 * @param frame
+	 *            : the frame of the masses.
+	 * @param halfLife
+	 *            : the time after which the reliability of a mass is halved.
+	 * @param step
+	 *            : the time to which the times are rounded by Dempster's
+	 *            operator.
+	 * @throws IllegalArgumentException
+	 *             if the operator is not supported, the frame is null or the
+	 *             half-life or the step is not positive.
+	 */
+	public TemporalFusion(JointOperator operator, FrameOfDiscernment frame,
+			double halfLife, long step) {
+		if (operator != JointOperator.AVERAGE
+				&& operator != JointOperator.DEMPSTER)
+			throw new IllegalArgumentException("The operator " + operator
+					+ " is not supported");
+		if (frame == null)
+			throw new IllegalArgumentException(
+					"The discounting needs the frame of discernment");
+		if (!(halfLife > 0))
+			throw new IllegalArgumentException("The half-life " + halfLife
+					+ " is not positive");
+		if (step <= 0)
+			throw new IllegalArgumentException("The step " + step
+					+ " is not positive");
+		this.operator = operator;
+		this.frame = frame;
+		this.halfLife = halfLife;
+		this.step = step;
+	}
+
+	public JointOperator getOperator() {
+		return operator;
+	}
+
+	public FrameOfDiscernment getFrame() {
+		return frame;
+	}
+
+	public double getHalfLife() {
+		return halfLife;
+	}
+
+	public long getStep() {
+		return step;
+	}
+
+	/**
+	 * Adds the <code>mass</code> reported about the <code>entity</code> at
+	 * <code>time</code>. If the time is after the time of the entity, the
+	 * state of the entity is decayed to it.
+	 *
+	 * @param entity
+	 * @param mass
+	 * @param time
+	 */
+	public void addSource(String entity, MassDistribution mass, long time) {
+		frame.getElementPool().intern(mass.getBodyOfEvidence());
+
+		State state = states.get(entity);
+		if (state == null) {
+			state = new State(time);
+			states.put(entity, state);
+		}
+
+		if (operator == JointOperator.AVERAGE) {
+			if (time > state.time)
+				state.table.scale(Discounting.getReliability(time
+						- state.time, halfLife));
+			state.table.add(mass, Discounting.getReliability(state.time
+					- time, halfLife));
+		} else {
+			// a copy, so the caller can modify the mass, combined by the
+			// next combination
+			state.masses.add(new MassTable(mass).toJointMassDistribution());
+			state.steps.add(getStep(time));
+		}
+		state.time = Math.max(state.time, time);
+		state.count++;
+	}
+
+	/**
+	 * Returns the combination of the masses of the <code>entity</code>,
+	 * discounted by their age at <code>time</code>.
+	 *
+	 * @param entity
+	 * @param time
+	 *            : the time of the combination, not before the last mass of
+	 *            the entity.
+	 * @return the combination of the masses of the entity.
+	 * @throws JointNotPossibleException
+	 *             if no mass of the entity was added.
+	 * @throws MassDistributionNotValidException
+	 * @throws DempsterTotalConflictException
+	 */
+	public JointMassDistribution getJoint(String entity, long time)
+			throws JointNotPossibleException,
+			MassDistributionNotValidException, DempsterTotalConflictException {
+		State state = states.get(entity);
+		if (state == null)
+			throw new JointNotPossibleException("No mass of the entity "
+					+ entity);
+		if (time < state.time)
+			throw new IllegalArgumentException("The time " + time
+					+ " is before the last mass of the entity " + entity);
+		if (operator == JointOperator.DEMPSTER)
+			return getDempster(state, time);
+
+		// the discounted masses move 1-reliability to the universal set
+		double reliability = Discounting.getReliability(time - state.time,
+				halfLife);
+		MassTable table = new MassTable(state.table);
+		table.scale(reliability / state.count);
+		table.add(frame.getUniversalSet(), 1 - reliability
+				* state.table.getTotal() / state.count);
+		JointMassDistribution jointMass = table.toJointMassDistribution();
+		jointMass.setOperator(operator);
+		return JointManager.validate(jointMass, frame);
+	}
+
+	/**
+	 * Dempster's combination of the masses of the <code>state</code>, each
+	 * discounted by its age at <code>time</code> rounded to the step.
+	 */
+	private JointMassDistribution getDempster(State state, long time)
+			throws JointNotPossibleException,
+			MassDistributionNotValidException, DempsterTotalConflictException {
+		long timeStep = getStep(time);
+		if (state.joint == null || state.jointStep != timeStep)
+			state.combine(timeStep);
+		else
+			state.fold();
+
+		// a copy, so the caller cannot modify the state
+		JointMassDistribution jointMass;
+		if (Double.isInfinite(state.joint.getLogConflict())) {
+			jointMass = JointMassDistribution.getEmptySetKnowledge();
+		} else {
+			jointMass = new MassTable(state.joint).toJointMassDistribution();
+			MassDistribution.setBodyOfEvidence(jointMass);
+			jointMass.setFrameOfDiscernment(frame);
+		}
+		jointMass.setOperator(operator);
+		jointMass.setLogConflict(state.joint.getLogConflict());
+		return jointMass;
+	}
+
+	/**
+	 * Returns the index of the step of <code>time</code>, rounded down.
+	 */
+	private long getStep(long time) {
+		if (time >= 0)
+			return time / step;
+		else
+			return -((-time - 1) / step) - 1;
+	}
+
+	/**
+	 * Returns the reliability of a mass of the step <code>massStep</code> at
+	 * the step <code>timeStep</code>.
+	 */
+	private double getReliability(long massStep, long timeStep) {
+		return Discounting.getReliability((double) (timeStep - massStep)
+				* step, halfLife);
+	}
+
+	/**
+	 * @param entity
+	 * @return the number of masses added for the <code>entity</code>.
+	 */
+	public int size(String entity) {
+		State state = states.get(entity);
+		return state != null ? state.count : 0;
+	}
+
+	/**
+	 * @param entity
+	 * @return the time of the last mass of the <code>entity</code>, or
+	 *         {@link Long#MIN_VALUE} if it has no mass.
+	 */
+	public long getTime(String entity) {
+		State state = states.get(entity);
+		return state != null ? state.time : Long.MIN_VALUE;
+	}
+
+	/**
+	 * @return a new list of the entities with a mass.
+	 */
+	public ArrayList<String> getEntities() {
+		return new ArrayList<String>(states.keySet());
+	}
+
+	/**
+	 * Removes the state of the <code>entity</code>.
+	 *
+	 * @param entity
+	 * @return true if the entity had a state.
+	 */
+	public boolean remove(String entity) {
+		return states.remove(entity) != null;
+	}
+
+	/**
+	 * The state of an entity at its time: the sum of its masses multiplied
+	 * by their reliability, or its masses, their steps and the combination of
+	 * the masses at a step.
+	 */
+	private class State {
+		private long time;
+		private int count;
+		private final MassTable table;
+		private final ArrayList<MassDistribution> masses;
+		private final ArrayList<Long> steps;
+		/**
+		 * The combination of the first <code>combined</code> masses at the
+		 * step <code>jointStep</code>, or null.
+		 */
+		private JointMassDistribution joint;
+		private long jointStep;
+		private int combined;
+
+		private State(long time) {
+			this.time = time;
+			if (operator == JointOperator.AVERAGE) {
+				table = new MassTable();
+				masses = null;
+				steps = null;
+			} else {
+				table = null;
+				masses = new ArrayList<MassDistribution>();
+				steps = new ArrayList<Long>();
+			}
+		}
+
+		/**
+		 * Combines again all the masses at the step <code>timeStep</code>,
+		 * dropping the masses which are almost vacuous at the time of the
+		 * state.
+		 */
+		private void combine(long timeStep) throws JointNotPossibleException,
+				MassDistributionNotValidException,
+				DempsterTotalConflictException {
+			long stateStep = getStep(time);
+			for (int i = masses.size() - 1; i >= 0; i--) {
+				if (getReliability(steps.get(i), stateStep) < MIN_RELIABILITY) {
+					masses.remove(i);
+					steps.remove(i);
+				}
+			}
+
+			int size = masses.size();
+			if (size > 1) {
+				double[] reliabilities = new double[size];
+				for (int i = 0; i < size; i++) {
+					reliabilities[i] = getReliability(steps.get(i), timeStep);
+				}
+				joint = JointManager.applyOperator(masses, reliabilities,
+						JointOperator.DEMPSTER, frame);
+				combined = size;
+			} else {
+				// the vacuous mass, combined with the single mass if any
+				MassTable vacuous = new MassTable();
+				vacuous.add(frame.getUniversalSet(), 1);
+				joint = vacuous.toJointMassDistribution();
+				combined = 0;
+			}
+			jointStep = timeStep;
+			fold();
+		}
+
+		/**
+		 * Combines the masses added after the combination of the state, each
+		 * discounted at its step.
+		 */
+		private void fold() throws JointNotPossibleException,
+				MassDistributionNotValidException,
+				DempsterTotalConflictException {
+			for (; combined < masses.size(); combined++) {
+				double logConflict = joint.getLogConflict();
+				if (Double.isInfinite(logConflict))
+					continue;
+				ArrayList<MassDistribution> pair = new ArrayList<MassDistribution>();
+				pair.add(joint);
+				pair.add(masses.get(combined));
+				joint = JointManager.applyOperator(pair, new double[] { 1,
+						getReliability(steps.get(combined), jointStep) },
+						JointOperator.DEMPSTER, frame);
+				// the normalizations of the pairs multiply
+				joint.setLogConflict(logConflict + joint.getLogConflict());
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "TemporalFusion [operator=" + operator + ", halfLife="
+				+ halfLife + ", entities=" + states.size() + "]";
+	}
+
+}
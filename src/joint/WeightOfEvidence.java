@@ -0,0 +1,306 @@
+package joint;
+
+import interfaces.IElement;
+import interfaces.IFocalElement;
+
+import java.util.ArrayList;
+
+import massDistribution.DenseMass;
+import massDistribution.JointMassDistribution;
+import massDistribution.MassDistribution;
+import core.Element;
+import core.ElementPool;
+import core.FocalElement;
+import core.FrameOfDiscernment;
+
+/**
+ * The canonical decomposition of a mass: a non dogmatic mass (m(Theta)>0) is
+ * the combination by Dempster's rule of a simple support mass for each subset
+ * A of the frame, with m(A)=1-exp(-W(A)) and m(Theta)=exp(-W(A)). W(A) is the
+ * weight of evidence of A.<br>
+ * The weights of the combination of two masses are the sums of their weights,
+ * so many masses are combined adding their weights and converting the result
+ * back to a mass only once (see
+ * {@link JointManager#weightOfEvidenceJoint(ArrayList, FrameOfDiscernment)}).
+ * The sum is associative, so the weights of different groups of masses can
+ * be summed separately and then merged with {@link #add(WeightOfEvidence)}.
+ * <br>
+ * A mass is separable if all its weights are positive; the weights of the
+ * other masses can be negative (Smets).
+ *
+ * @author Elisa Costante
+ *
+ */
+public class WeightOfEvidence {
+
+	/**
+	 * The weights smaller than this (in absolute value) are considered zero.
+	 */
+	private static final double ROUNDING_ERROR = 1e-12;
+
+	private final FrameOfDiscernment frame;
+	private final MassTable weights;
+
+	/**
+	 * Constructs the weights of evidence of the vacuous mass (m(Theta)=1): all
+	 * the weights are zero.
+	 *
+	 * @param frame
+	 */
+	public WeightOfEvidence(FrameOfDiscernment frame) {
+		if (frame == null)
+			throw new IllegalArgumentException(
+					"The weights of evidence need the frame of discernment");
+		this.frame = frame;
+		this.weights = new MassTable();
+	}
+
+	/**
+	 * Returns the weights of evidence of <code>mass</code>. A simple support
+	 * mass (a focal element and the universal set) is decomposed directly,
+	 * the other masses need a frame small enough to be represented by a
+	 * {@link DenseMass}: ln q(B)=-Summation W(A) for each A| (B included
+	 * A==false), so the weights are the Moebius inversion of the logarithm of
+	 * the commonality function.
+	 *
+	 * @param mass
+	 * @param frame
+	 * @return the weights of evidence of the mass.
+	 * @throws IllegalArgumentException
+	 *             if the mass is dogmatic, or if it is not a simple support
+	 *             mass and the frame is too big.
+	 */
+	public static WeightOfEvidence fromMass(MassDistribution mass,
+			FrameOfDiscernment frame) {
+		WeightOfEvidence weightOfEvidence = new WeightOfEvidence(frame);
+		ElementPool pool = frame.getElementPool();
+		IElement universalSet = frame.getUniversalSet();
+
+		double total = 0;
+		double ignorance = 0;
+		IElement focus = null;
+		boolean simpleSupport = true;
+		for (IFocalElement focalElement : mass.getBodyOfEvidence()) {
+			double bpa = focalElement.getBpa();
+			if (bpa <= 0)
+				continue;
+			IElement element = pool.intern(focalElement.getElement());
+			total = total + bpa;
+			if (element.equals(universalSet))
+				ignorance = ignorance + bpa;
+			else if (focus == null || focus.equals(element))
+				focus = element;
+			else
+				simpleSupport = false;
+		}
+		if (!(ignorance > 0))
+			throw new IllegalArgumentException("The mass " + mass
+					+ " is dogmatic, it has no weights of evidence");
+
+		if (simpleSupport) {
+			if (focus != null)
+				weightOfEvidence.add(focus, Math.log(total / ignorance));
+			return weightOfEvidence;
+		}
+
+		DenseMass dense = DenseMass.fromMass(mass, frame);
+		if (dense == null)
+			throw new IllegalArgumentException("The mass " + mass
+					+ " is not a simple support mass and the frame is too big");
+		dense.toCommonality();
+		double[] values = dense.getValues();
+		for (int a = 0; a < values.length; a++) {
+			values[a] = Math.log(values[a]);
+		}
+		DenseMass.toMass(values);
+		// the weight of the empty set only adds conflict, which is removed by
+		// the normalization, and the universal set has no weight
+		for (int a = 1; a < values.length - 1; a++) {
+			if (Math.abs(values[a]) > ROUNDING_ERROR)
+				weightOfEvidence.add(dense.getElement(a), values[a]);
+		}
+		return weightOfEvidence;
+	}
+
+	/**
+	 * Adds <code>weight</code> to the weight of evidence of the
+	 * <code>element</code>, that is combines these weights with the simple
+	 * support mass m(element)=1-exp(-weight). The weights of the empty set and
+	 * of the universal set are ignored.
+	 *
+	 * @param element
+	 * @param weight
+	 */
+	public void add(IElement element, double weight) {
+		ElementPool pool = frame.getElementPool();
+		if (pool.getMask(element) == null)
+			throw new IllegalArgumentException("The element " + element
+					+ " does not belong to the frame");
+		IElement canonical = pool.intern(element);
+		if (!canonical.isEmptySet()
+				&& !canonical.equals(frame.getUniversalSet()))
+			weights.add(canonical, weight);
+	}
+
+	/**
+	 * Adds the weights of <code>weightOfEvidence</code> to these weights, that
+	 * is combines the two masses by Dempster's rule.
+	 *
+	 * @param weightOfEvidence
+	 */
+	public void add(WeightOfEvidence weightOfEvidence) {
+		for (int i = 0; i < weightOfEvidence.weights.size(); i++) {
+			add(weightOfEvidence.weights.getElement(i),
+					weightOfEvidence.weights.getBpa(i));
+		}
+	}
+
+	/**
+	 * @param element
+	 * @return the weight of evidence of the <code>element</code>.
+	 */
+	public double getWeight(IElement element) {
+		int index = weights.indexOf(frame.getElementPool().intern(element));
+		return (index >= 0) ? weights.getBpa(index) : 0;
+	}
+
+	/**
+	 * @return the number of elements with a weight.
+	 */
+	public int size() {
+		return weights.size();
+	}
+
+	public IElement getElement(int index) {
+		return weights.getElement(index);
+	}
+
+	public double getWeight(int index) {
+		return weights.getBpa(index);
+	}
+
+	public FrameOfDiscernment getFrameOfDiscernment() {
+		return frame;
+	}
+
+	/**
+	 * @return true if all the weights are positive, that is the mass is the
+	 *         combination of simple support masses.
+	 */
+	public boolean isSeparable() {
+		for (int i = 0; i < weights.size(); i++) {
+			if (weights.getBpa(i) < -ROUNDING_ERROR)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the mass with these weights of evidence, normalized as by
+	 * Dempster's rule. On a frame which can be represented by a
+	 * {@link DenseMass} the commonality function is computed from all the
+	 * weights at once, otherwise the simple support masses are combined one
+	 * after the other. If the conflict is total the knowledge of the empty set
+	 * is returned.
+	 *
+	 * @return the mass.
+	 */
+	public JointMassDistribution toJointMassDistribution() {
+		if (weights.size() == 0) {
+			ArrayList<IFocalElement> bodyOfEvidence = new ArrayList<IFocalElement>();
+			bodyOfEvidence.add(new FocalElement(frame.getUniversalSet(), 1));
+			return new JointMassDistribution(bodyOfEvidence);
+		}
+
+		if (DenseMass.isRepresentable(frame))
+			return toDenseMass();
+		else
+			return toSparseMass();
+	}
+
+	/**
+	 * ln q(B)=Summation W(A) for each A| (B included A==true) - Summation W(A):
+	 * the first sum is the commonality transformation of the weights. The
+	 * commonality is scaled by its biggest value before the exponential, so
+	 * big weights do not underflow, and the scale is removed by the
+	 * normalization.
+	 */
+	private JointMassDistribution toDenseMass() {
+		DenseMass dense = new DenseMass(frame.getElementPool());
+		double[] values = dense.getValues();
+		for (int i = 0; i < weights.size(); i++) {
+			int index = dense.indexOf(weights.getElement(i));
+			values[index] = values[index] + weights.getBpa(i);
+		}
+		dense.toCommonality();
+
+		// the commonality of the empty set only gives the conflict
+		double max = Double.NEGATIVE_INFINITY;
+		for (int a = 1; a < values.length; a++) {
+			max = Math.max(max, values[a]);
+		}
+		values[0] = 0;
+		for (int a = 1; a < values.length; a++) {
+			values[a] = Math.exp(values[a] - max);
+		}
+		dense.toMass();
+
+		values[0] = 0;
+		double total = 0;
+		for (int a = 1; a < values.length; a++) {
+			total = total + values[a];
+		}
+		if (!(total > ROUNDING_ERROR))
+			return JointMassDistribution.getEmptySetKnowledge();
+		for (int a = 1; a < values.length; a++) {
+			values[a] = values[a] / total;
+		}
+		return dense.toJointMassDistribution();
+	}
+
+	/**
+	 * Combines the simple support masses with the conjunctive rule, dropping
+	 * the conflict and renormalizing after each step so the products do not
+	 * underflow.
+	 */
+	private JointMassDistribution toSparseMass() {
+		ElementPool pool = frame.getElementPool();
+		MassTable combination = new MassTable();
+		combination.add(frame.getUniversalSet(), 1);
+		for (int i = 0; i < weights.size(); i++) {
+			IElement focus = weights.getElement(i);
+			double ignorance = Math.exp(-weights.getBpa(i));
+
+			MassTable result = new MassTable();
+			for (int j = 0; j < combination.size(); j++) {
+				IElement element = combination.getElement(j);
+				double bpa = combination.getBpa(j);
+				IElement intersection = pool.intern(Element.getIntersection(
+						element, focus));
+				if (!intersection.isEmptySet())
+					result.add(intersection, bpa * (1 - ignorance));
+				result.add(element, bpa * ignorance);
+			}
+
+			double total = result.getTotal();
+			if (!(total > ROUNDING_ERROR))
+				return JointMassDistribution.getEmptySetKnowledge();
+			result.scale(1 / total);
+			combination = result;
+		}
+
+		ArrayList<IFocalElement> bodyOfEvidence = new ArrayList<IFocalElement>();
+		for (int i = 0; i < combination.size(); i++) {
+			if (Math.abs(combination.getBpa(i)) > ROUNDING_ERROR)
+				bodyOfEvidence.add(new FocalElement(combination.getElement(i),
+						combination.getBpa(i)));
+		}
+		return new JointMassDistribution(bodyOfEvidence);
+	}
+
+	@Override
+	public String toString() {
+		return "WeightOfEvidence " + weights;
+	}
+
+}
@@ -0,0 +1,157 @@
+package massDistribution;
+
+/**
+ * The loops over the whole power set used by {@link DenseMass}: the
+ * transformations between a mass and its commonality function and the
+ * pointwise power of a commonality function, and the discounting of a batch
+ * of dense masses. They are regular loops, so besides the scalar kernel there
+ * is a kernel which uses the vector instructions of the processor
+ * (<code>VectorDenseKernel</code>, in the <code>src-vector</code> source
+ * folder, which needs Java 17 and the <code>jdk.incubator.vector</code>
+ * module, built by the <code>compile-vector</code> target of
+ * <code>build.xml</code>).<br>
+ * {@link #getInstance()} selects the kernel the first time it is called:
+ * the vector kernel is used if it can be loaded and if it gives the same
+ * results as the scalar one on a sample array. The kernels are not timed,
+ * because a probe at the first call only measures the interpreted code. The
+ * system property {@value #KERNEL_PROPERTY} can force the scalar kernel with
+ * the value <code>scalar</code>.
+ *
+ * @author Elisa Costante
+ *
+ */
+public abstract class DenseKernel {
+
+	public static final String KERNEL_PROPERTY = "dempstershafer.denseKernel";
+
+	private static final String VECTOR_KERNEL = "massDistribution.VectorDenseKernel";
+
+	/**
+	 * The hypothesies of the frame of the sample used to check the vector
+	 * kernel.
+	 */
+	private static final int PROBE_HYPOTHESIES = 12;
+	private static final double PROBE_TOLERANCE = 1e-9;
+
+	private static DenseKernel instance;
+
+	/**
+	 * Transforms in place the mass <code>m</code> into its commonality
+	 * function q(A)=Summation m(B) for each B| (A included B==true).
+	 *
+	 * @param m
+	 *            : a mass indexed by subset, its length is a power of two.
+	 */
+	public abstract void toCommonality(double[] m);
+
+	/**
+	 * Transforms in place the commonality function <code>q</code> into its
+	 * mass.
+	 *
+	 * @param q
+	 *            : a commonality function indexed by subset, its length is a
+	 *            power of two.
+	 */
+	public abstract void toMass(double[] q);
+
+	/**
+	 * Raises in place each value of <code>q</code> to the <code>k</code>-th
+	 * power.
+	 *
+	 * @param q
+	 * @param k
+	 */
+	public abstract void power(double[] q, int k);
+
+	/**
+	 * Discounts in place a batch of dense masses by the reliability of their
+	 * sources: the values of each mass are multiplied by the reliability r,
+	 * and 1-r is added to the universal set, that is the last value of the
+	 * mass.
+	 *
+	 * @param masses
+	 *            : the masses one after the other, each indexed by subset.
+	 * @param length
+	 *            : the length of each mass, a power of two.
+	 * @param reliabilities
+	 *            : the reliability of each source, between 0 and 1.
+	 * @param sources
+	 *            : the index of the source of each mass in
+	 *            <code>reliabilities</code>, or null if the masses and the
+	 *            reliabilities are in the same order.
+	 */
+	public abstract void discount(double[] masses, int length,
+			double[] reliabilities, int[] sources);
+
+	/**
+	 * @return the name of the kernel.
+	 */
+	public abstract String getName();
+
+	/**
+	 * @return the kernel used by {@link DenseMass}.
+	 */
+	public static synchronized DenseKernel getInstance() {
+		if (instance == null) {
+			DenseKernel scalar = new ScalarDenseKernel();
+			String choice = System.getProperty(KERNEL_PROPERTY, "auto");
+			if ("scalar".equalsIgnoreCase(choice)) {
+				instance = scalar;
+			} else {
+				DenseKernel vector = loadVectorKernel(scalar);
+				instance = (vector != null) ? vector : scalar;
+			}
+		}
+		return instance;
+	}
+
+	/**
+	 * Returns the vector kernel, or null if it is not on the class path, if
+	 * the <code>jdk.incubator.vector</code> module is not available or if its
+	 * results differ from the ones of the <code>scalar</code> kernel.
+	 */
+	private static DenseKernel loadVectorKernel(DenseKernel scalar) {
+		try {
+			DenseKernel vector = (DenseKernel) Class.forName(VECTOR_KERNEL)
+					.getDeclaredConstructor().newInstance();
+			double[] expected = getSample();
+			double[] actual = expected.clone();
+			run(scalar, expected);
+			run(vector, actual);
+			for (int i = 0; i < expected.length; i++) {
+				if (Math.abs(expected[i] - actual[i]) > PROBE_TOLERANCE
+						* Math.max(1, Math.abs(expected[i])))
+					return null;
+			}
+			return vector;
+		} catch (Throwable e) {
+			// the class or the module is missing, or the class was compiled
+			// for a newer Java version: the scalar kernel is used
+			return null;
+		}
+	}
+
+	/**
+	 * The operations of a combination: the commonality of a mass, its power
+	 * and the mass of the result.
+	 */
+	private static void run(DenseKernel kernel, double[] values) {
+		kernel.toCommonality(values);
+		kernel.power(values, 3);
+		kernel.toMass(values);
+	}
+
+	private static double[] getSample() {
+		double[] values = new double[1 << PROBE_HYPOTHESIES];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = (double) ((i * 7919) % 1000) / (1000.0 * values.length);
+		}
+		return values;
+	}
+
+	@Override
+	public String toString() {
+		return getName();
+	}
+
+}
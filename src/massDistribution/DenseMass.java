@@ -0,0 +1,206 @@
+package massDistribution;
+
+import interfaces.IElement;
+import interfaces.IFocalElement;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+
+import core.CanonicalElement;
+import core.ElementPool;
+import core.FocalElement;
+import core.FrameOfDiscernment;
+
+/**
+ * A {@link DenseMass} stores a function over the whole power set of a small
+ * {@link FrameOfDiscernment} in a <code>double[]</code> of size 2^n: the value
+ * of the subset A is at the index whose bit <code>i</code> is set if the i-th
+ * hypothesis of the frame belongs to A (see {@link ElementPool}).<br>
+ * The array holds either a mass or its commonality function
+ * q(A)=Summation m(B) for each B| (A included B==true). Dempster's rule is a
+ * pointwise product of commonalities, so the transformations between the two
+ * make the combination of many masses on small frames cheap. The loops over
+ * the values are run by a {@link DenseKernel}.
+ *
+ * @author Elisa Costante
+ *
+ */
+public class DenseMass {
+
+	/**
+	 * The biggest frame which can be represented by a {@link DenseMass}.
+	 */
+	public static final int MAX_HYPOTHESIES = 20;
+
+	/**
+	 * The values smaller than this (in absolute value) are considered zero when
+	 * converting back to a {@link MassDistribution}.
+	 */
+	private static final double ROUNDING_ERROR = 1e-12;
+
+	private final ElementPool pool;
+	private final double[] values;
+
+	/**
+	 * Constructs a {@link DenseMass} with all the values equal to zero.
+	 *
+	 * @param pool
+	 *            : the pool of the frame, with at most
+	 *            {@link #MAX_HYPOTHESIES} hypothesies.
+	 */
+	public DenseMass(ElementPool pool) {
+		if (pool.getHypothesisCount() > MAX_HYPOTHESIES)
+			throw new IllegalArgumentException("The frame has "
+					+ pool.getHypothesisCount()
+					+ " hypothesies, a dense mass supports at most "
+					+ MAX_HYPOTHESIES);
+		this.pool = pool;
+		this.values = new double[1 << pool.getHypothesisCount()];
+	}
+
+	/**
+	 * Returns the dense representation of <code>mass</code> on
+	 * <code>frame</code>, or null if the frame is too big or an element of
+	 * the mass does not belong to the frame.
+	 *
+	 * @param mass
+	 * @param frame
+	 * @return the dense mass or null.
+	 */
+	public static DenseMass fromMass(MassDistribution mass,
+			FrameOfDiscernment frame) {
+		if (frame == null || !isRepresentable(frame))
+			return null;
+
+		DenseMass dense = new DenseMass(frame.getElementPool());
+		for (IFocalElement focalElement : mass.getBodyOfEvidence()) {
+			int index = dense.indexOf(focalElement.getElement());
+			if (index < 0)
+				return null;
+			dense.values[index] = dense.values[index] + focalElement.getBpa();
+		}
+		return dense;
+	}
+
+	/**
+	 * @param frame
+	 * @return true if the masses on <code>frame</code> can be represented by a
+	 *         {@link DenseMass}.
+	 */
+	public static boolean isRepresentable(FrameOfDiscernment frame) {
+		return frame.getHipothesies() != null
+				&& frame.getElementPool().getHypothesisCount() <= MAX_HYPOTHESIES;
+	}
+
+	/**
+	 * Returns the index of the <code>element</code> or -1 if it does not belong
+	 * to the frame.
+	 *
+	 * @param element
+	 * @return the index of the element.
+	 */
+	public int indexOf(IElement element) {
+		BitSet mask = pool.getMask(element);
+		if (mask == null)
+			return -1;
+		int index = 0;
+		for (int i = mask.nextSetBit(0); i >= 0; i = mask.nextSetBit(i + 1)) {
+			index = index | (1 << i);
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the canonical element at <code>index</code>.
+	 *
+	 * @param index
+	 * @return the canonical element.
+	 */
+	public CanonicalElement getElement(int index) {
+		BitSet mask = new BitSet(pool.getHypothesisCount());
+		for (int i = 0; i < pool.getHypothesisCount(); i++) {
+			if ((index & (1 << i)) != 0)
+				mask.set(i);
+		}
+		return pool.getElement(mask);
+	}
+
+	/**
+	 * @return the values, indexed by subset. The array is not copied.
+	 */
+	public double[] getValues() {
+		return values;
+	}
+
+	/**
+	 * @return the pool of the frame.
+	 */
+	public ElementPool getPool() {
+		return pool;
+	}
+
+	/**
+	 * Transforms a mass into its commonality function, in place.
+	 */
+	public void toCommonality() {
+		toCommonality(values);
+	}
+
+	/**
+	 * Transforms a commonality function into its mass, in place.
+	 */
+	public void toMass() {
+		toMass(values);
+	}
+
+	/**
+	 * Raises each value to the <code>k</code>-th power, in place. On a
+	 * commonality function it gives the combination of the mass with itself
+	 * <code>k</code> times.
+	 *
+	 * @param k
+	 */
+	public void power(int k) {
+		DenseKernel.getInstance().power(values, k);
+	}
+
+	/**
+	 * Transforms in place the mass <code>m</code> into its commonality
+	 * function q(A)=Summation m(B) for each B| (A included B==true).
+	 *
+	 * @param m
+	 *            : a mass indexed by subset, its length is a power of two.
+	 */
+	public static void toCommonality(double[] m) {
+		DenseKernel.getInstance().toCommonality(m);
+	}
+
+	/**
+	 * Transforms in place the commonality function <code>q</code> into its
+	 * mass (Moebius inversion of {@link #toCommonality(double[])}).
+	 *
+	 * @param q
+	 *            : a commonality function indexed by subset, its length is a
+	 *            power of two.
+	 */
+	public static void toMass(double[] q) {
+		DenseKernel.getInstance().toMass(q);
+	}
+
+	/**
+	 * Returns the {@link JointMassDistribution} with a focal element for each
+	 * non empty subset with a positive value. The values must be a mass.
+	 *
+	 * @return the joint mass distribution.
+	 */
+	public JointMassDistribution toJointMassDistribution() {
+		ArrayList<IFocalElement> bodyOfEvidence = new ArrayList<IFocalElement>();
+		for (int a = 1; a < values.length; a++) {
+			if (values[a] > ROUNDING_ERROR) {
+				bodyOfEvidence.add(new FocalElement(getElement(a), values[a]));
+			}
+		}
+		return new JointMassDistribution(bodyOfEvidence);
+	}
+
+}
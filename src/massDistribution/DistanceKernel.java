@@ -0,0 +1,239 @@
+package massDistribution;
+
+import interfaces.IElement;
+import interfaces.IFocalElement;
+import interfaces.IHypothesis;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import core.CanonicalElement;
+import core.ElementPool;
+import core.FrameOfDiscernment;
+
+/**
+ * Computes the Jousselme's distance between two {@link MassDistribution}:<br>
+ * d(m1,m2)= sqrt( 1/2 * (m1-m2)' D (m1-m2) )<br>
+ * where D(A,B)= |A intersect B| / |A union B| is the Jaccard weight of two
+ * focal elements.<br>
+ * Each element is translated once into a bit mask over the hypothesies met by
+ * the kernel, so the Jaccard weight of two elements is computed by counting
+ * the bits of the and/or of their masks, without building the intersection
+ * and the union. The masks of the canonical elements of a pool (see
+ * {@link ElementPool}) are kept by the kernel, which is meant to be shared by
+ * all the masses of a frame, up to {@link #MAX_MASKS} of them; the mask of
+ * any other element is computed when it is measured, so the kernel does not
+ * keep the elements of the callers. The kernel is safe to be used by several
+ * threads.
+ *
+ * @author Elisa Costante
+ *
+ */
+public class DistanceKernel {
+
+	/**
+	 * The maximum number of masks kept by a kernel: when it is reached the
+	 * masks are dropped, and computed again as they are needed.
+	 */
+	public static final int MAX_MASKS = 1 << 16;
+
+	private static final long[] EMPTY_MASK = new long[0];
+
+	/**
+	 * The index of each hypothesis in the masks, guarded by <code>this</code>.
+	 */
+	private final HashMap<IHypothesis, Integer> hypothesisIndexes;
+	private final ConcurrentHashMap<IElement, long[]> masks;
+
+	/**
+	 * Constructs a kernel which assigns an index to the hypothesies as they
+	 * are met.
+	 */
+	public DistanceKernel() {
+		hypothesisIndexes = new HashMap<IHypothesis, Integer>();
+		masks = new ConcurrentHashMap<IElement, long[]>();
+	}
+
+	/**
+	 * Constructs the kernel of the masses of <code>frame</code>: the
+	 * hypothesies of the frame are indexed in advance.
+	 *
+	 * @param frame
+	 */
+	public DistanceKernel(FrameOfDiscernment frame) {
+		this();
+		if (frame != null && frame.getHipothesies() != null) {
+			for (IHypothesis hypothesis : frame.getHipothesies()) {
+				indexOf(hypothesis);
+			}
+		}
+	}
+
+	private synchronized int indexOf(IHypothesis hypothesis) {
+		Integer index = hypothesisIndexes.get(hypothesis);
+		if (index == null) {
+			index = hypothesisIndexes.size();
+			hypothesisIndexes.put(hypothesis, index);
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the bit mask of <code>element</code>: the bit i of the word i/64
+	 * is set if the element contains the hypothesis with index i. Only the
+	 * masks of the canonical elements are kept, because they cannot be
+	 * modified and they are already kept by their pool.
+	 */
+	private long[] getMask(IElement element) {
+		if (element == null)
+			return EMPTY_MASK;
+		if (!(element instanceof CanonicalElement))
+			return newMask(element);
+
+		long[] mask = masks.get(element);
+		if (mask == null) {
+			mask = newMask(element);
+			if (masks.size() >= MAX_MASKS)
+				masks.clear();
+			long[] previous = masks.putIfAbsent(element, mask);
+			if (previous != null)
+				mask = previous;
+		}
+		return mask;
+	}
+
+	private long[] newMask(IElement element) {
+		ArrayList<IHypothesis> hypothesies = element.getHypothesies();
+		long[] mask = EMPTY_MASK;
+		if (hypothesies != null) {
+			for (IHypothesis hypothesis : hypothesies) {
+				int index = indexOf(hypothesis);
+				int word = index >>> 6;
+				if (word >= mask.length) {
+					long[] newMask = new long[word + 1];
+					System.arraycopy(mask, 0, newMask, 0, mask.length);
+					mask = newMask;
+				}
+				mask[word] = mask[word] | (1L << index);
+			}
+		}
+		return mask;
+	}
+
+	private static double getJaccard(long[] mask1, long[] mask2) {
+		int intersectionSize = 0;
+		int unionSize = 0;
+		int common = Math.min(mask1.length, mask2.length);
+		for (int i = 0; i < common; i++) {
+			intersectionSize = intersectionSize
+					+ Long.bitCount(mask1[i] & mask2[i]);
+			unionSize = unionSize + Long.bitCount(mask1[i] | mask2[i]);
+		}
+		long[] longer = (mask1.length > common) ? mask1 : mask2;
+		for (int i = common; i < longer.length; i++) {
+			unionSize = unionSize + Long.bitCount(longer[i]);
+		}
+
+		if (unionSize > 0)
+			return (double) intersectionSize / unionSize;
+		else
+			return 0;
+	}
+
+	/**
+	 * Returns the Jaccard weight |el1 intersect el2| / |el1 union el2|, or 0
+	 * if both the elements are empty.
+	 *
+	 * @param element1
+	 * @param element2
+	 * @return the Jaccard weight of the two elements.
+	 */
+	public double getJaccard(IElement element1, IElement element2) {
+		return getJaccard(getMask(element1), getMask(element2));
+	}
+
+	/**
+	 * Returns the scalar product <m1,m2>= Summation m1(A)*m2(B)*D(A,B) for
+	 * each focal element A of m1 and B of m2.
+	 *
+	 * @param m1
+	 * @param m2
+	 * @return the scalar product of the two masses.
+	 */
+	public double getScalarProduct(MassDistribution m1, MassDistribution m2) {
+		ArrayList<IFocalElement> m1Elements = m1.getBodyOfEvidence();
+		ArrayList<IFocalElement> m2Elements = m2.getBodyOfEvidence();
+
+		long[][] m2Masks = new long[m2Elements.size()][];
+		for (int j = 0; j < m2Masks.length; j++) {
+			m2Masks[j] = getMask(m2Elements.get(j).getElement());
+		}
+
+		double scalarProduct = 0;
+		for (IFocalElement el1 : m1Elements) {
+			long[] mask1 = getMask(el1.getElement());
+			double sum = 0;
+			for (int j = 0; j < m2Masks.length; j++) {
+				sum = sum + m2Elements.get(j).getBpa()
+						* getJaccard(mask1, m2Masks[j]);
+			}
+			scalarProduct = scalarProduct + el1.getBpa() * sum;
+		}
+		return scalarProduct;
+	}
+
+	/**
+	 * Returns the Jousselme's distance between <code>m1</code> and
+	 * <code>m2</code>. The difference m1-m2 is computed over the union of the
+	 * focal elements of the two masses and the distance is a single quadratic
+	 * form of it, so it is never negative because of rounding errors.
+	 *
+	 * @param m1
+	 * @param m2
+	 * @return the distance between the two masses, between 0 and 1.
+	 */
+	public double getDistance(MassDistribution m1, MassDistribution m2) {
+		ArrayList<long[]> focalMasks = new ArrayList<long[]>();
+		ArrayList<Double> differences = new ArrayList<Double>();
+		HashMap<IElement, Integer> indexes = new HashMap<IElement, Integer>();
+		addDifferences(m1, 1, indexes, focalMasks, differences);
+		addDifferences(m2, -1, indexes, focalMasks, differences);
+
+		int n = focalMasks.size();
+		double[] d = new double[n];
+		for (int i = 0; i < n; i++) {
+			d[i] = differences.get(i);
+		}
+
+		// D is symmetric with D(A,A)=1 for each non empty A
+		double form = 0;
+		for (int i = 0; i < n; i++) {
+			long[] mask = focalMasks.get(i);
+			double row = 0;
+			for (int j = i + 1; j < n; j++) {
+				row = row + getJaccard(mask, focalMasks.get(j)) * d[j];
+			}
+			form = form + d[i] * (getJaccard(mask, mask) * d[i] + 2 * row);
+		}
+		return Math.sqrt(Math.max(0, form / 2));
+	}
+
+	private void addDifferences(MassDistribution mass, double sign,
+			HashMap<IElement, Integer> indexes, ArrayList<long[]> focalMasks,
+			ArrayList<Double> differences) {
+		for (IFocalElement focalElement : mass.getBodyOfEvidence()) {
+			IElement element = focalElement.getElement();
+			Integer index = indexes.get(element);
+			if (index == null) {
+				indexes.put(element, focalMasks.size());
+				focalMasks.add(getMask(element));
+				differences.add(sign * focalElement.getBpa());
+			} else {
+				differences.set(index, differences.get(index) + sign
+						* focalElement.getBpa());
+			}
+		}
+	}
+
+}
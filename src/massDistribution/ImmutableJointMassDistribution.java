@@ -0,0 +1,150 @@
+package massDistribution;
+
+import interfaces.IElement;
+import interfaces.IFocalElement;
+import interfaces.IFrameOfDiscernment;
+import interfaces.IHypothesis;
+
+import java.util.ArrayList;
+
+import joint.JointOperator;
+import utilities.UnmodifiableArrayList;
+import core.CanonicalElement;
+import core.ElementPool;
+import core.FocalElement;
+import core.FrameOfDiscernment;
+import core.ImmutableFocalElement;
+
+/**
+ * A {@link JointMassDistribution} which cannot be modified: its body of
+ * evidence, its focal elements and their elements are all immutable. The
+ * elements are {@link CanonicalElement}, even those outside the frame (see
+ * {@link #freeze(JointMassDistribution, FrameOfDiscernment)}), so their
+ * hypothesies cannot be modified either. It can be safely shared between
+ * several callers, for example by a cache of results.<br>
+ * {@link #clone()} returns a modifiable copy.
+ *
+ * @author Elisa Costante
+ *
+ */
+public class ImmutableJointMassDistribution extends JointMassDistribution {
+
+	private boolean frozen;
+
+	private ImmutableJointMassDistribution(ArrayList<IFocalElement> elements,
+			JointOperator operator, IFrameOfDiscernment frameOfDiscernment,
+			double approximationError, double logConflict) {
+		super(elements);
+		super.setOperator(operator);
+		super.setFrameOfDiscernment(frameOfDiscernment);
+		super.setApproximationError(approximationError);
+		super.setLogConflict(logConflict);
+		this.frozen = true;
+	}
+
+	/**
+	 * Returns an immutable copy of <code>mass</code>. The elements are replaced
+	 * by the canonical instances of the <code>frame</code>; the elements which
+	 * do not belong to the frame are replaced by canonical instances of a pool
+	 * private to the copy.
+	 *
+	 * @param mass
+	 * @param frame
+	 *            : the frame of the mass, or null.
+	 * @return the immutable copy of the mass.
+	 */
+	public static ImmutableJointMassDistribution freeze(
+			JointMassDistribution mass, FrameOfDiscernment frame) {
+		if (mass instanceof ImmutableJointMassDistribution)
+			return (ImmutableJointMassDistribution) mass;
+
+		ArrayList<IFocalElement> bodyOfEvidence = mass.getBodyOfEvidence();
+		ElementPool framePool = (frame != null) ? frame.getElementPool()
+				: null;
+		ElementPool privatePool = null;
+
+		// the belief and the plausability of the frozen focal elements are
+		// computed on a private copy of the body of evidence, which the
+		// callers cannot modify
+		ArrayList<IFocalElement> copy = new ArrayList<IFocalElement>(
+				bodyOfEvidence.size());
+		for (IFocalElement focalElement : bodyOfEvidence) {
+			IElement element = focalElement.getElement();
+			if (framePool != null)
+				element = framePool.intern(element);
+			if (!(element instanceof CanonicalElement)) {
+				if (privatePool == null)
+					privatePool = new ElementPool(getAllHypothesies(mass));
+				element = privatePool.intern(element);
+			}
+			copy.add(new FocalElement(element, focalElement.getBpa()));
+		}
+		ArrayList<IFocalElement> frozenElements = new ArrayList<IFocalElement>(
+				copy.size());
+		for (IFocalElement focalElement : copy) {
+			frozenElements.add(new ImmutableFocalElement(focalElement
+					.getElement(), focalElement.getBpa(), copy));
+		}
+
+		return new ImmutableJointMassDistribution(
+				new UnmodifiableArrayList<IFocalElement>(frozenElements), mass
+						.getOperator(), frame, mass.getApproximationError(), mass
+						.getLogConflict());
+	}
+
+	private static ArrayList<IHypothesis> getAllHypothesies(
+			MassDistribution mass) {
+		ArrayList<IHypothesis> hypothesies = new ArrayList<IHypothesis>();
+		for (IFocalElement focalElement : mass.getBodyOfEvidence()) {
+			ArrayList<IHypothesis> elementHypothesies = focalElement
+					.getElement().getHypothesies();
+			if (elementHypothesies != null) {
+				hypothesies.addAll(elementHypothesies);
+			}
+		}
+		return hypothesies;
+	}
+
+	private void checkFrozen() {
+		if (frozen)
+			throw new UnsupportedOperationException(
+					"An immutable mass distribution cannot be modified");
+	}
+
+	@Override
+	public void setElements(ArrayList<IFocalElement> focalElements) {
+		checkFrozen();
+		super.setElements(focalElements);
+	}
+
+	@Override
+	public void addElement(FocalElement element) {
+		checkFrozen();
+		super.addElement(element);
+	}
+
+	@Override
+	public void setFrameOfDiscernment(IFrameOfDiscernment frameOfDiscernment) {
+		checkFrozen();
+		super.setFrameOfDiscernment(frameOfDiscernment);
+	}
+
+	@Override
+	public void setOperator(JointOperator operator) {
+		checkFrozen();
+		super.setOperator(operator);
+	}
+
+	@Override
+	public void setApproximationError(double approximationError) {
+		checkFrozen();
+		super.setApproximationError(approximationError);
+	}
+
+	@Override
+	public void setLogConflict(double logConflict) {
+		checkFrozen();
+		super.setLogConflict(logConflict);
+	}
+
+}
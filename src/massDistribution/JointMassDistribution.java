@@ -11,6 +11,16 @@ import core.FrameOfDiscernment;
 public class JointMassDistribution extends MassDistribution {
 
 	private JointOperator operator;
+	/**
+	 * The fraction of the mass dropped by the approximations applied while
+	 * combining the masses, 0 for an exact result.
+	 */
+	private double approximationError;
+	/**
+	 * The weight of conflict -ln(1-conflict) of Dempster's combination, summed
+	 * over the combination steps: +Infinity if the conflict is total.
+	 */
+	private double logConflict;
 
 	public JointMassDistribution(ArrayList<IFocalElement> elements) {
 		super(elements);
@@ -24,23 +34,25 @@ public class JointMassDistribution extends MassDistribution {
 		this.operator = operator;
 	}
 
-	@Override
-	public String toString() {
-		return "[" + bodyOfEvidence + "]; [operator=" + operator + "]";
+	public double getApproximationError() {
+		return approximationError;
+	}
+
+	public void setApproximationError(double approximationError) {
+		this.approximationError = approximationError;
+	}
+
+	public double getLogConflict() {
+		return logConflict;
+	}
+
+	public void setLogConflict(double logConflict) {
+		this.logConflict = logConflict;
 	}
 
-	/*
-	 * (non-Javadoc)
-	 * 
-	 * @see java.lang.Object#hashCode()
-	 */
 	@Override
-	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = prime * result
-				+ ((operator == null) ? 0 : operator.hashCode());
-		return result;
+	public String toString() {
+		return "[" + bodyOfEvidence + "]; [operator=" + operator + "]";
 	}
 
 	public static JointMassDistribution order(JointMassDistribution mass) {
@@ -76,6 +88,8 @@ public class JointMassDistribution extends MassDistribution {
 			}
 			if (this.operator != null)
 				cloned.setOperator(operator);
+			cloned.setApproximationError(approximationError);
+			cloned.setLogConflict(logConflict);
 			return cloned;
 		}
 
@@ -6,8 +6,11 @@ import interfaces.IFrameOfDiscernment;
 import interfaces.IMassDistribution;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 
 import utilities.DoubleUtility;
+import utilities.FingerprintUtility;
+import core.Element;
 import core.FocalElement;
 import core.FrameOfDiscernment;
 
@@ -89,44 +92,104 @@ public class MassDistribution implements Cloneable, IMassDistribution {
 		return massTOString;
 	}
 
-	/*
-	 * (non-Javadoc)
+	/**
+	 * The hash code is the sum of the hash codes of the elements of the body
+	 * of evidence. It does not depend on the order of the focal elements nor
+	 * on their bpa, which {@link #equals(Object)} compares with a tolerance.
 	 * 
 	 * @see java.lang.Object#hashCode()
 	 */
 	@Override
 	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = prime * result
-				+ ((bodyOfEvidence == null) ? 0 : bodyOfEvidence.hashCode());
-		return result;
+		int hash = 0;
+		if (bodyOfEvidence != null) {
+			for (IFocalElement focalElement : bodyOfEvidence) {
+				hash = hash + focalElement.getElement().hashCode();
+			}
+		}
+		return hash;
 	}
 
-	/*
-	 * (non-Javadoc)
+	/**
+	 * Two {@link MassDistribution} are equal if they have the same number of
+	 * focal elements and each focal element of one has an equal focal element
+	 * (same element and same bpa within {@link DoubleUtility#EPSILON}) in the
+	 * other.
 	 * 
 	 * @see java.lang.Object#equals(java.lang.Object)
 	 */
 	@Override
 	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof MassDistribution))
+			return false;
 
 		MassDistribution other = (MassDistribution) obj;
+		ArrayList<IFocalElement> otherBodyOfEvidence = other
+				.getBodyOfEvidence();
+		if (bodyOfEvidence == null || otherBodyOfEvidence == null)
+			return bodyOfEvidence == otherBodyOfEvidence;
+
+		if (otherBodyOfEvidence.size() == bodyOfEvidence.size())
+			return containsAll(bodyOfEvidence, otherBodyOfEvidence)
+					&& containsAll(otherBodyOfEvidence, bodyOfEvidence);
+		else
+			return false;
+	}
 
-		if (other.getBodyOfEvidence().size() == bodyOfEvidence.size()
-				&& other.getBodyOfEvidence().containsAll(bodyOfEvidence)) {
-			boolean equal = true;
-			for (int i = 0; i < other.getBodyOfEvidence().size(); i++) {
-				IFocalElement el1 = other.getBodyOfEvidence().get(i);
-				IFocalElement el2 = MassDistribution.findFocalElement(
-						bodyOfEvidence, el1);
+	/**
+	 * Returns true if each focal element of <code>contained</code> has an
+	 * equal focal element in <code>container</code>.
+	 */
+	private static boolean containsAll(ArrayList<IFocalElement> container,
+			ArrayList<IFocalElement> contained) {
+		HashMap<IElement, ArrayList<IFocalElement>> index = new HashMap<IElement, ArrayList<IFocalElement>>();
+		for (IFocalElement focalElement : container) {
+			ArrayList<IFocalElement> same = index.get(focalElement
+					.getElement());
+			if (same == null) {
+				same = new ArrayList<IFocalElement>(1);
+				index.put(focalElement.getElement(), same);
+			}
+			same.add(focalElement);
+		}
 
-				if (!el1.equals(el2))
-					equal = false;
+		for (IFocalElement focalElement : contained) {
+			ArrayList<IFocalElement> same = index.get(focalElement
+					.getElement());
+			if (same == null || !same.contains(focalElement))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the 64-bit content fingerprint of the mass, computed over the
+	 * fingerprints of its focal elements (element and bpa rounded to
+	 * {@link utilities.FingerprintUtility#BPA_QUANTUM}). It does not depend on
+	 * the order of the focal elements. Masses with the same focal elements
+	 * whose bpa are rounded to the same quantum have the same fingerprint.
+	 * The fingerprint is not consistent with {@link #equals(Object)}, which
+	 * compares the bpa within {@link utilities.DoubleUtility#EPSILON}: equal
+	 * masses whose bpa differ by more than the quantum have different
+	 * fingerprints. It can be used to find the candidates for deduplication
+	 * and caching of masses computed in the same way, and different masses
+	 * can collide, so the candidates must be confirmed by
+	 * {@link #equals(Object)}.
+	 * 
+	 * @return the fingerprint of the mass.
+	 */
+	public long getFingerprint() {
+		long sum = 0;
+		int count = 0;
+		if (bodyOfEvidence != null) {
+			for (IFocalElement focalElement : bodyOfEvidence) {
+				sum = sum + focalElement.getFingerprint();
+				count++;
 			}
-			return equal;
-		} else
-			return false;
+		}
+		return FingerprintUtility.combine(sum, count);
 	}
 
 	@Override
@@ -218,6 +281,44 @@ public class MassDistribution implements Cloneable, IMassDistribution {
 		return sum;
 	}
 
+	/**
+	 * Returns the shape of the mass, looking only at the focal elements with a
+	 * positive bpa:
+	 * <ul>
+	 * <li>{@link MassShape#BAYESIAN} if they are all singletons;</li>
+	 * <li>{@link MassShape#SIMPLE_SUPPORT} if there is only one of them, or
+	 * one and the universal set of the frame of the mass;</li>
+	 * <li>{@link MassShape#CONSONANT} if they are nested;</li>
+	 * <li>{@link MassShape#GENERAL} otherwise.</li>
+	 * </ul>
+	 * 
+	 * @return the shape of the mass.
+	 */
+	public MassShape getShape() {
+		ArrayList<IElement> elements = new ArrayList<IElement>();
+		boolean bayesian = true;
+		for (IFocalElement focalElement : bodyOfEvidence) {
+			if (focalElement.getBpa() > 0) {
+				IElement element = focalElement.getElement();
+				if (element.isEmptySet())
+					return MassShape.GENERAL;
+				bayesian = bayesian && element.isSingleton();
+				elements.add(element);
+			}
+		}
+		if (bayesian)
+			return MassShape.BAYESIAN;
+
+		ArrayList<IElement> chain = Element.getChain(elements);
+		if (chain == null)
+			return MassShape.GENERAL;
+		if (chain.size() == 1
+				|| (chain.size() == 2 && frameOfDiscernment != null && chain
+						.get(1).equals(frameOfDiscernment.getUniversalSet())))
+			return MassShape.SIMPLE_SUPPORT;
+		return MassShape.CONSONANT;
+	}
+
 	/**
 	 * @return the frameOfDiscernment
 	 */
@@ -0,0 +1,58 @@
+package massDistribution;
+
+/**
+ * The shape of the focal elements of a {@link MassDistribution} (see
+ * {@link MassDistribution#getShape()}). The combination operators use it to
+ * choose a specialized algorithm.
+ * 
+ * @author Elisa Costante
+ * 
+ */
+public enum MassShape {
+	/**
+	 * All the focal elements are singletons.
+	 */
+	BAYESIAN("BAYESIAN", 1),
+	/**
+	 * A single focal element, or a focal element and the universal set of the
+	 * frame.
+	 */
+	SIMPLE_SUPPORT("SIMPLE_SUPPORT", 2),
+	/**
+	 * The focal elements are nested: each one is included in the next.
+	 */
+	CONSONANT("CONSONANT", 3),
+	/**
+	 * Any other mass.
+	 */
+	GENERAL("GENERAL", 4);
+
+	private String name;
+	private int value;
+
+	private MassShape(String name, int value) {
+		this.name = name;
+		this.value = value;
+	}
+
+	/**
+	 * @return the name
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * @return the value
+	 */
+	public int getValue() {
+		return this.value;
+	}
+
+	/**
+	 * @return true if the focal elements of a mass with this shape are nested.
+	 */
+	public boolean isConsonant() {
+		return this == SIMPLE_SUPPORT || this == CONSONANT;
+	}
+}
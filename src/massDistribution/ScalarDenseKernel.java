@@ -0,0 +1,64 @@
+package massDistribution;
+
+/**
+ * The {@link DenseKernel} written with plain loops, used when the vector
+ * kernel is not available or is slower.
+ *
+ * @author Elisa Costante
+ *
+ */
+class ScalarDenseKernel extends DenseKernel {
+
+	@Override
+	public void toCommonality(double[] m) {
+		// for each bit the subsets without it are in the lower half of the
+		// blocks of 2*bit values, the same subsets with the bit in the upper
+		for (int bit = 1; bit < m.length; bit = bit << 1) {
+			for (int block = 0; block < m.length; block = block + 2 * bit) {
+				for (int a = block; a < block + bit; a++) {
+					m[a] = m[a] + m[a + bit];
+				}
+			}
+		}
+	}
+
+	@Override
+	public void toMass(double[] q) {
+		for (int bit = 1; bit < q.length; bit = bit << 1) {
+			for (int block = 0; block < q.length; block = block + 2 * bit) {
+				for (int a = block; a < block + bit; a++) {
+					q[a] = q[a] - q[a + bit];
+				}
+			}
+		}
+	}
+
+	@Override
+	public void power(double[] q, int k) {
+		for (int a = 0; a < q.length; a++) {
+			q[a] = Math.pow(q[a], k);
+		}
+	}
+
+	@Override
+	public void discount(double[] masses, int length, double[] reliabilities,
+			int[] sources) {
+		int count = masses.length / length;
+		for (int i = 0; i < count; i++) {
+			double reliability = reliabilities[sources == null ? i
+					: sources[i]];
+			int start = i * length;
+			for (int a = start; a < start + length; a++) {
+				masses[a] = masses[a] * reliability;
+			}
+			masses[start + length - 1] = masses[start + length - 1] + 1
+					- reliability;
+		}
+	}
+
+	@Override
+	public String getName() {
+		return "scalar";
+	}
+
+}
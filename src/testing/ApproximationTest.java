@@ -0,0 +1,163 @@
+package testing;
+
+import interfaces.IFocalElement;
+import interfaces.IHypothesis;
+
+import java.util.ArrayList;
+
+import joint.Approximation;
+import joint.JointManager;
+import joint.JointOperator;
+import joint.MassTable;
+import junit.framework.TestCase;
+import massDistribution.JointMassDistribution;
+import massDistribution.MassDistribution;
+import utilities.DoubleUtility;
+import core.Element;
+import core.FocalElement;
+import core.Hypothesis;
+
+/**
+ * @author Elisa Costante
+ *
+ */
+public class ApproximationTest extends TestCase {
+
+	private MassTable table;
+
+	public ApproximationTest(String name) {
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		table = new MassTable();
+		table.add(newElement("A"), 0.5);
+		table.add(newElement("B"), 0.3);
+		table.add(newElement("C"), 0.15);
+		table.add(newElement("A", "C"), 0.05);
+	}
+
+	private static Element newElement(String... identifiers) {
+		ArrayList<IHypothesis> hypothesies = new ArrayList<IHypothesis>();
+		for (String identifier : identifiers) {
+			hypothesies.add(new Hypothesis(identifier));
+		}
+		return new Element(hypothesies);
+	}
+
+	private static double getBpa(MassTable table, Element element) {
+		int index = table.indexOf(element);
+		return (index >= 0) ? table.getBpa(index) : 0;
+	}
+
+	public void testThreshold() {
+		MassTable result = new MassTable();
+		double dropped = Approximation.threshold(0.1)
+				.approximate(table, result);
+
+		assertEquals(3, result.size());
+		assertEquals(0.05, dropped, DoubleUtility.EPSILON);
+		assertEquals(1, result.getTotal(), DoubleUtility.EPSILON);
+		assertEquals(0.5 / 0.95, getBpa(result, newElement("A")),
+				DoubleUtility.EPSILON);
+	}
+
+	public void testThresholdOfConflictingMasses() throws Exception {
+		// the total mass of the partial results shrinks with the conflict, so
+		// the threshold is relative to it
+		ArrayList<MassDistribution> masses = new ArrayList<MassDistribution>();
+		for (int i = 0; i < 5; i++) {
+			ArrayList<IFocalElement> bodyOfEvidence = new ArrayList<IFocalElement>();
+			bodyOfEvidence.add(new FocalElement(newElement("A"), 0.45));
+			bodyOfEvidence.add(new FocalElement(newElement("B"), 0.35));
+			bodyOfEvidence.add(new FocalElement(newElement("C"), 0.2));
+			masses.add(new MassDistribution(bodyOfEvidence));
+		}
+		JointMassDistribution exact = JointManager.applyOperator(masses,
+				JointOperator.DEMPSTER, null);
+		JointMassDistribution approximated = JointManager.applyOperator(
+				masses, JointOperator.DEMPSTER, null, Approximation
+						.threshold(0.01));
+
+		double a = Math.pow(0.45, 5);
+		double b = Math.pow(0.35, 5);
+		double c = Math.pow(0.2, 5);
+		assertEquals(b / (a + b + c), exact.getFocalElement("{B}").getBpa(),
+				DoubleUtility.EPSILON);
+		assertEquals(3, approximated.getBodyOfEvidence().size());
+		assertEquals(0, approximated.getApproximationError(),
+				DoubleUtility.EPSILON);
+		for (IFocalElement focalElement : exact.getBodyOfEvidence()) {
+			assertEquals(focalElement.getBpa(), approximated.getFocalElement(
+					focalElement.getElement().toString()).getBpa(),
+					DoubleUtility.EPSILON);
+		}
+	}
+
+	public void testTopK() {
+		MassTable result = new MassTable();
+		double dropped = Approximation.topK(2).approximate(table, result);
+
+		assertEquals(2, result.size());
+		assertEquals(0.2, dropped, DoubleUtility.EPSILON);
+		assertEquals(0.625, getBpa(result, newElement("A")),
+				DoubleUtility.EPSILON);
+		assertEquals(0.375, getBpa(result, newElement("B")),
+				DoubleUtility.EPSILON);
+	}
+
+	public void testKlx() {
+		// at least 1 focal element, at most 3, drop at most 10% of the mass
+		MassTable result = new MassTable();
+		double dropped = Approximation.klx(1, 3, 0.1).approximate(table,
+				result);
+
+		assertEquals(3, result.size());
+		assertEquals(0.05, dropped, DoubleUtility.EPSILON);
+	}
+
+	public void testSummarization() {
+		MassTable result = new MassTable();
+		double moved = Approximation.summarization(2).approximate(table,
+				result);
+
+		assertEquals(2, result.size());
+		assertEquals(0.5, moved, DoubleUtility.EPSILON);
+		assertEquals(0.5, getBpa(result, newElement("A")),
+				DoubleUtility.EPSILON);
+		assertEquals(0.5, getBpa(result, newElement("A", "B", "C")),
+				DoubleUtility.EPSILON);
+	}
+
+	public void testApproximatedDempster() throws Exception {
+		String filename = "test1.txt";
+		ArrayList<MassDistribution> masses = new ArrayList<MassDistribution>();
+		ReadTestUtility.readInput(filename, masses);
+
+		JointMassDistribution exact = JointManager.applyOperator(masses,
+				JointOperator.DEMPSTER, null);
+		JointMassDistribution approximated = JointManager.applyOperator(
+				masses, JointOperator.DEMPSTER, null, Approximation
+						.threshold(0));
+
+		assertEquals(0, exact.getApproximationError(), 0);
+		assertEquals(0, approximated.getApproximationError(),
+				DoubleUtility.EPSILON);
+		assertTrue(approximated.isValid());
+
+		// m (+) m has the focal elements {A}=0.25, {B}=0.04, {C}=0.09 before
+		// the normalization, the top 2 drop {B}
+		ArrayList<MassDistribution> same = new ArrayList<MassDistribution>();
+		same.add(masses.get(0));
+		same.add(masses.get(0));
+		approximated = JointManager.applyOperator(same,
+				JointOperator.DEMPSTER, null, Approximation.topK(2));
+		assertEquals(0.04 / 0.38, approximated.getApproximationError(),
+				DoubleUtility.EPSILON);
+		assertEquals(0.25 / 0.34, approximated.getFocalElement("{A}")
+				.getBpa(), DoubleUtility.EPSILON);
+		assertTrue(approximated.isValid());
+	}
+
+}
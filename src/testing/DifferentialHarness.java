@@ -0,0 +1,777 @@
+package testing;
+
+import interfaces.IElement;
+import interfaces.IFocalElement;
+import interfaces.IHypothesis;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Random;
+
+import joint.Approximation;
+import joint.JointCache;
+import joint.JointManager;
+import joint.JointOperator;
+import joint.MonteCarloDempster;
+import joint.MonteCarloEstimate;
+import massDistribution.DenseMass;
+import massDistribution.JointMassDistribution;
+import massDistribution.MassDistribution;
+import massDistribution.MassShape;
+import utilities.DoubleUtility;
+import utilities.WorkloadGenerator;
+import core.Element;
+import core.ElementPool;
+import core.FocalElement;
+import core.FrameOfDiscernment;
+import exception.JointNotPossibleException;
+
+/**
+ * Compares the alternative engines of the combination (the weights of
+ * evidence, the stable and the transform-based Dempster, the approximations,
+ * Monte Carlo, the shared and cached operators) with the reference
+ * {@link JointManager#applyOperator(ArrayList, JointOperator, FrameOfDiscernment)}
+ * on random masses (see {@link WorkloadGenerator}), and on masses whose focal
+ * elements overlap without being nested.<br>
+ * A case is skipped when neither the reference nor the engine can combine the
+ * masses, or the result of the reference is the knowledge of the empty set. A
+ * case fails if only one of the reference and the engine throws an exception,
+ * or the result of the engine differs from the reference by more than the
+ * tolerance of the engine on the bpa of an element. Each failure is shrunk
+ * to a smaller case which still fails, removing masses, focal elements and
+ * hypothesies and rounding the bpa, and it can be written in the format of
+ * <code>test1.txt</code> with the result of the reference after
+ * <code>$Output</code>.
+ *
+ * @author Elisa Costante
+ *
+ */
+public class DifferentialHarness {
+
+	/**
+	 * The maximum number of shrinking steps of a failure.
+	 */
+	private static final int MAX_SHRINKS = 1000;
+
+	private Random random;
+	private ArrayList<Engine> engines;
+
+	/**
+	 * An engine compared with the reference.
+	 */
+	public static abstract class Engine {
+		private String name;
+		private JointOperator operator;
+
+		/**
+		 * @param name
+		 * @param operator
+		 *            : the operator of the reference.
+		 */
+		public Engine(String name, JointOperator operator) {
+			this.name = name;
+			this.operator = operator;
+		}
+
+		/**
+		 * Combines the <code>masses</code>.
+		 *
+		 * @param masses
+		 *            : a copy of the masses, which the engine can modify.
+		 * @param frame
+		 * @return the result, or null if the engine cannot combine the
+		 *         masses by design (a case it does not support).
+		 * @throws Exception
+		 */
+		public abstract JointMassDistribution combine(
+				ArrayList<MassDistribution> masses, FrameOfDiscernment frame)
+				throws Exception;
+
+		/**
+		 * @param reference
+		 * @param result
+		 * @return the maximum difference on the bpa of an element between the
+		 *         <code>result</code> and the <code>reference</code>,
+		 *         {@link DoubleUtility#EPSILON} by default.
+		 */
+		public double getTolerance(JointMassDistribution reference,
+				JointMassDistribution result) {
+			return DoubleUtility.EPSILON;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public JointOperator getOperator() {
+			return operator;
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+
+	/**
+	 * A case where an engine disagrees with the reference.
+	 */
+	public static class Failure {
+		private Engine engine;
+		private FrameOfDiscernment frame;
+		private ArrayList<MassDistribution> masses;
+		private JointMassDistribution reference;
+		private Exception referenceException;
+		private JointMassDistribution result;
+		private Exception exception;
+		private double difference;
+		private double tolerance;
+
+		private Failure(Engine engine, FrameOfDiscernment frame,
+				ArrayList<MassDistribution> masses,
+				JointMassDistribution reference) {
+			this.engine = engine;
+			this.frame = frame;
+			this.masses = masses;
+			this.reference = reference;
+		}
+
+		/**
+		 * Writes the failure in the format of <code>test1.txt</code>: the
+		 * frame, the masses and the result of the reference, preceded by a
+		 * comment with the engine and its result.
+		 *
+		 * @param writer
+		 * @throws IOException
+		 */
+		public void write(Writer writer) throws IOException {
+			writer.write("#Differential failure of the engine " + engine
+					+ "\n");
+			if (referenceException != null)
+				writer.write("#the reference throws " + referenceException
+						+ "\n#" + engine + " result: " + result + "\n");
+			else if (exception != null)
+				writer.write("#" + engine + " throws " + exception + "\n");
+			else
+				writer.write("#" + engine + " result: " + result
+						+ "\n#difference " + difference + " > tolerance "
+						+ tolerance + "\n");
+			WorkloadGenerator.writeScenario(frame, masses, writer);
+			if (reference != null)
+				WorkloadGenerator.writeOutput(engine.getOperator(), reference,
+						writer);
+		}
+
+		public Engine getEngine() {
+			return engine;
+		}
+
+		public FrameOfDiscernment getFrameOfDiscernment() {
+			return frame;
+		}
+
+		public ArrayList<MassDistribution> getMasses() {
+			return masses;
+		}
+
+		/**
+		 * @return the result of the reference, or null if it threw an
+		 *         exception.
+		 */
+		public JointMassDistribution getReference() {
+			return reference;
+		}
+
+		/**
+		 * @return the exception thrown by the reference, or null.
+		 */
+		public Exception getReferenceException() {
+			return referenceException;
+		}
+
+		/**
+		 * @return the result of the engine, or null if it threw an exception.
+		 */
+		public JointMassDistribution getResult() {
+			return result;
+		}
+
+		/**
+		 * @return the exception thrown by the engine, or null.
+		 */
+		public Exception getException() {
+			return exception;
+		}
+
+		public double getDifference() {
+			return difference;
+		}
+
+		@Override
+		public String toString() {
+			return "Failure [engine=" + engine + ", masses=" + masses
+					+ ", reference=" + reference + ", referenceException="
+					+ referenceException + ", result=" + result
+					+ ", exception=" + exception + "]";
+		}
+	}
+
+	/**
+	 * Constructs a harness of the engines returned by
+	 * {@link #getDefaultEngines()}.
+	 *
+	 * @param seed
+	 *            : the seed of the random cases.
+	 */
+	public DifferentialHarness(long seed) {
+		this.random = new Random(seed);
+		this.engines = getDefaultEngines();
+	}
+
+	public ArrayList<Engine> getEngines() {
+		return engines;
+	}
+
+	public void setEngines(ArrayList<Engine> engines) {
+		this.engines = engines;
+	}
+
+	/**
+	 * Runs the engines on <code>cases</code> random cases of 2 to 6
+	 * hypothesies and 2 to 4 masses of any shape. A quarter of the cases are
+	 * masses whose focal elements overlap without being nested.
+	 *
+	 * @param cases
+	 * @return the shrunk failures, at most one for each engine.
+	 */
+	public ArrayList<Failure> run(int cases) {
+		ArrayList<Failure> failures = new ArrayList<Failure>();
+		ArrayList<Engine> failed = new ArrayList<Engine>();
+		for (int i = 0; i < cases; i++) {
+			WorkloadGenerator generator = new WorkloadGenerator(random
+					.nextLong());
+			generator.setHypothesies(2 + random.nextInt(5));
+			generator.setFocalElements(1 + random.nextInt(4));
+			generator.setShape(MassShape.values()[random.nextInt(MassShape
+					.values().length)]);
+			if (random.nextBoolean())
+				generator.setConflict(random.nextDouble());
+			FrameOfDiscernment frame = generator.newFrame();
+			ArrayList<MassDistribution> masses;
+			if (random.nextInt(4) == 0)
+				masses = newOverlappingMasses(frame, 2 + random.nextInt(3));
+			else
+				masses = generator.newMasses(frame, 2 + random.nextInt(3));
+
+			for (Engine engine : engines) {
+				if (failed.contains(engine))
+					continue;
+				Failure failure = check(engine, frame, masses);
+				if (failure != null) {
+					failures.add(shrink(failure));
+					failed.add(engine);
+				}
+			}
+		}
+		return failures;
+	}
+
+	/**
+	 * Compares the <code>engine</code> with the reference on the
+	 * <code>masses</code>.
+	 *
+	 * @param engine
+	 * @param frame
+	 * @param masses
+	 * @return the failure, or null if the engine agrees with the reference or
+	 *         the case is skipped.
+	 */
+	public static Failure check(Engine engine, FrameOfDiscernment frame,
+			ArrayList<MassDistribution> masses) {
+		JointMassDistribution reference;
+		try {
+			reference = JointManager.applyOperator(copy(masses, frame), engine
+					.getOperator(), frame);
+		} catch (Exception e) {
+			// the engine must not combine what the reference cannot
+			Failure failure = new Failure(engine, frame, masses, null);
+			failure.referenceException = e;
+			try {
+				failure.result = engine.combine(copy(masses, frame), frame);
+			} catch (Exception engineException) {
+				return null;
+			}
+			if (failure.result == null)
+				return null;
+			failure.difference = 1;
+			return failure;
+		}
+		HashMap<BitSet, Double> expected = toBpas(reference, frame);
+		if (expected == null)
+			return null;
+
+		Failure failure = new Failure(engine, frame, masses, reference);
+		try {
+			failure.result = engine.combine(copy(masses, frame), frame);
+		} catch (Exception e) {
+			failure.exception = e;
+			return failure;
+		}
+		if (failure.result == null)
+			return null;
+
+		HashMap<BitSet, Double> actual = toBpas(failure.result, frame);
+		if (actual == null) {
+			failure.difference = 1;
+		} else {
+			for (BitSet mask : expected.keySet()) {
+				failure.difference = Math.max(failure.difference, Math
+						.abs(expected.get(mask) - getBpa(actual, mask)));
+			}
+			for (BitSet mask : actual.keySet()) {
+				failure.difference = Math.max(failure.difference, Math
+						.abs(actual.get(mask) - getBpa(expected, mask)));
+			}
+		}
+		failure.tolerance = engine.getTolerance(reference, failure.result);
+		if (failure.difference > failure.tolerance)
+			return failure;
+		return null;
+	}
+
+	/**
+	 * Shrinks the <code>failure</code> to a case which still fails, trying
+	 * in turn to remove a mass, to remove a focal element, to remove a
+	 * hypothesis from a focal element and to round the bpa, until none of
+	 * them fails.
+	 *
+	 * @param failure
+	 * @return the shrunk failure.
+	 */
+	public static Failure shrink(Failure failure) {
+		for (int step = 0; step < MAX_SHRINKS; step++) {
+			Failure smaller = null;
+			for (ArrayList<MassDistribution> candidate : getSmallerCases(failure)) {
+				smaller = check(failure.engine, failure.frame, candidate);
+				if (smaller != null)
+					break;
+			}
+			if (smaller == null)
+				break;
+			failure = smaller;
+		}
+		return failure;
+	}
+
+	/**
+	 * Returns the default engines:
+	 * <ul>
+	 * <li>DEMPSTER: the weights of evidence (separable masses only), the
+	 * stable combination, the product of the commonalities of
+	 * {@link DenseMass}, the threshold approximation, Monte Carlo and the
+	 * cache;</li>
+	 * <li>each operator: the shared combination of
+	 * {@link JointManager#applyOperators(ArrayList, ArrayList, FrameOfDiscernment)}
+	 * .</li>
+	 * </ul>
+	 *
+	 * @return the engines.
+	 */
+	public static ArrayList<Engine> getDefaultEngines() {
+		ArrayList<Engine> defaultEngines = new ArrayList<Engine>();
+		defaultEngines.add(new Engine("weightOfEvidence",
+				JointOperator.DEMPSTER) {
+			@Override
+			public JointMassDistribution combine(
+					ArrayList<MassDistribution> masses,
+					FrameOfDiscernment frame) throws Exception {
+				try {
+					return JointManager.weightOfEvidenceJoint(masses, frame);
+				} catch (JointNotPossibleException e) {
+					// a dogmatic mass has no weights
+					return null;
+				}
+			}
+		});
+		defaultEngines.add(new Engine("stableDempster",
+				JointOperator.DEMPSTER) {
+			@Override
+			public JointMassDistribution combine(
+					ArrayList<MassDistribution> masses,
+					FrameOfDiscernment frame) throws Exception {
+				return JointManager.stableDempsterJoint(masses, frame);
+			}
+		});
+		defaultEngines.add(new Engine("denseCommonality",
+				JointOperator.DEMPSTER) {
+			@Override
+			public JointMassDistribution combine(
+					ArrayList<MassDistribution> masses,
+					FrameOfDiscernment frame) throws Exception {
+				return denseDempster(masses, frame);
+			}
+		});
+		defaultEngines.add(new Engine("threshold", JointOperator.DEMPSTER) {
+			@Override
+			public JointMassDistribution combine(
+					ArrayList<MassDistribution> masses,
+					FrameOfDiscernment frame) throws Exception {
+				return JointManager.applyOperator(masses,
+						JointOperator.DEMPSTER, frame, Approximation
+								.threshold(1e-6));
+			}
+
+			/**
+			 * The dropped mass is spread over the result by the
+			 * normalization.
+			 */
+			@Override
+			public double getTolerance(JointMassDistribution reference,
+					JointMassDistribution result) {
+				double conflict = -Math.expm1(-reference.getLogConflict());
+				return DoubleUtility.EPSILON + result.getApproximationError()
+						/ (1 - conflict);
+			}
+		});
+		defaultEngines.add(new Engine("monteCarlo", JointOperator.DEMPSTER) {
+			private double halfWidth;
+
+			@Override
+			public JointMassDistribution combine(
+					ArrayList<MassDistribution> masses,
+					FrameOfDiscernment frame) throws Exception {
+				MonteCarloDempster monteCarlo = new MonteCarloDempster(masses
+						.hashCode());
+				monteCarlo.setThreads(1);
+				monteCarlo.setConfidence(0.9999);
+				monteCarlo.setTargetError(0.01);
+				monteCarlo.setMaxSamples(1000000);
+				MonteCarloEstimate estimate = monteCarlo.combine(masses, frame);
+				halfWidth = estimate.getHalfWidth(0.5);
+				return estimate.getMass();
+			}
+
+			/**
+			 * The widest confidence interval of the estimated bpa.
+			 */
+			@Override
+			public double getTolerance(JointMassDistribution reference,
+					JointMassDistribution result) {
+				return DoubleUtility.EPSILON + halfWidth;
+			}
+		});
+		defaultEngines.add(new Engine("cache", JointOperator.DEMPSTER) {
+			private JointCache cache = new JointCache(16, 0);
+
+			@Override
+			public JointMassDistribution combine(
+					ArrayList<MassDistribution> masses,
+					FrameOfDiscernment frame) throws Exception {
+				// the second lookup is a hit
+				cache.applyOperator(masses, JointOperator.DEMPSTER, frame);
+				return cache.applyOperator(masses, JointOperator.DEMPSTER,
+						frame);
+			}
+		});
+		for (final JointOperator operator : JointOperator.values()) {
+			defaultEngines.add(new Engine("applyOperators/"
+					+ operator.getName(), operator) {
+				@Override
+				public JointMassDistribution combine(
+						ArrayList<MassDistribution> masses,
+						FrameOfDiscernment frame) throws Exception {
+					ArrayList<JointOperator> operators = new ArrayList<JointOperator>();
+					operators.add(operator);
+					return JointManager.applyOperators(masses, operators,
+							frame).get(operator);
+				}
+			});
+		}
+		return defaultEngines;
+	}
+
+	/**
+	 * Runs the harness from the command line:
+	 * <code>DifferentialHarness [cases] [seed] [folder]</code>. Each failure
+	 * is written to the folder (by default the current one) in a file named
+	 * after the engine.
+	 *
+	 * @param args
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		int cases = (args.length > 0) ? Integer.parseInt(args[0]) : 1000;
+		long seed = (args.length > 1) ? Long.parseLong(args[1]) : 42;
+		File folder = new File((args.length > 2) ? args[2] : ".");
+
+		ArrayList<Failure> failures = new DifferentialHarness(seed).run(cases);
+		for (Failure failure : failures) {
+			File file = new File(folder, "failure-"
+					+ failure.getEngine().getName().replace('/', '-') + ".txt");
+			Writer writer = new BufferedWriter(new OutputStreamWriter(
+					new FileOutputStream(file), "US-ASCII"));
+			try {
+				failure.write(writer);
+			} finally {
+				writer.close();
+			}
+			System.out.println(failure.getEngine() + ": " + file);
+		}
+		System.out.println(cases + " cases, " + failures.size()
+				+ " failing engines");
+	}
+
+	/**
+	 * Returns <code>count</code> masses whose focal elements are arcs of
+	 * consecutive hypothesies on the circle of the hypothesies of the
+	 * <code>frame</code>, so two focal elements often overlap without being
+	 * nested and their intersection is not a focal element.
+	 */
+	private ArrayList<MassDistribution> newOverlappingMasses(
+			FrameOfDiscernment frame, int count) {
+		ElementPool pool = frame.getElementPool();
+		int n = pool.getHypothesisCount();
+		ArrayList<MassDistribution> masses = new ArrayList<MassDistribution>();
+		for (int i = 0; i < count; i++) {
+			ArrayList<BitSet> masks = new ArrayList<BitSet>();
+			int focalElements = 1 + random.nextInt(3);
+			for (int j = 0; j < focalElements; j++) {
+				int start = random.nextInt(n);
+				int length = 1 + random.nextInt(n);
+				BitSet mask = new BitSet(n);
+				for (int h = 0; h < length; h++) {
+					mask.set((start + h) % n);
+				}
+				if (!masks.contains(mask))
+					masks.add(mask);
+			}
+
+			double[] bpas = new double[masks.size()];
+			double total = 0;
+			for (int j = 0; j < bpas.length; j++) {
+				bpas[j] = 0.01 + random.nextDouble();
+				total = total + bpas[j];
+			}
+			ArrayList<IFocalElement> bodyOfEvidence = new ArrayList<IFocalElement>();
+			for (int j = 0; j < bpas.length; j++) {
+				bodyOfEvidence.add(new FocalElement(pool.getElement(masks
+						.get(j)), bpas[j] / total));
+			}
+			MassDistribution mass = new MassDistribution(bodyOfEvidence);
+			mass.setFrameOfDiscernment(frame);
+			masses.add(mass);
+		}
+		return masses;
+	}
+
+	/**
+	 * Dempster's combination as the product of the commonalities of the
+	 * masses, through {@link DenseMass}.
+	 */
+	private static JointMassDistribution denseDempster(
+			ArrayList<MassDistribution> masses, FrameOfDiscernment frame) {
+		double[] q = null;
+		for (MassDistribution mass : masses) {
+			DenseMass dense = DenseMass.fromMass(mass, frame);
+			if (dense == null)
+				return null;
+			dense.toCommonality();
+			if (q == null) {
+				q = dense.getValues();
+			} else {
+				double[] values = dense.getValues();
+				for (int a = 0; a < q.length; a++) {
+					q[a] = q[a] * values[a];
+				}
+			}
+		}
+
+		DenseMass combination = new DenseMass(frame.getElementPool());
+		System.arraycopy(q, 0, combination.getValues(), 0, q.length);
+		combination.toMass();
+		double[] m = combination.getValues();
+		double conflict = m[0];
+		m[0] = 0;
+		for (int a = 1; a < m.length; a++) {
+			m[a] = m[a] / (1 - conflict);
+		}
+		return combination.toJointMassDistribution();
+	}
+
+	/**
+	 * Returns the cases with a mass, a focal element or a hypothesis less,
+	 * and the case with the bpa rounded to two digits.
+	 */
+	private static ArrayList<ArrayList<MassDistribution>> getSmallerCases(
+			Failure failure) {
+		ArrayList<MassDistribution> masses = failure.masses;
+		ArrayList<ArrayList<MassDistribution>> cases = new ArrayList<ArrayList<MassDistribution>>();
+
+		if (masses.size() > 2) {
+			for (int i = 0; i < masses.size(); i++) {
+				ArrayList<MassDistribution> smaller = copy(masses,
+						failure.frame);
+				smaller.remove(i);
+				cases.add(smaller);
+			}
+		}
+
+		for (int i = 0; i < masses.size(); i++) {
+			ArrayList<IFocalElement> bodyOfEvidence = masses.get(i)
+					.getBodyOfEvidence();
+			for (int j = 0; j < bodyOfEvidence.size(); j++) {
+				if (bodyOfEvidence.size() > 1) {
+					ArrayList<IFocalElement> smaller = copy(bodyOfEvidence);
+					smaller.remove(j);
+					cases.add(replace(masses, i, normalize(smaller),
+							failure.frame));
+				}
+
+				ArrayList<IHypothesis> hypothesies = bodyOfEvidence.get(j)
+						.getElement().getHypothesies();
+				for (int h = 0; hypothesies.size() > 1
+						&& h < hypothesies.size(); h++) {
+					ArrayList<IHypothesis> fewer = new ArrayList<IHypothesis>(
+							hypothesies);
+					fewer.remove(h);
+					ArrayList<IFocalElement> smaller = copy(bodyOfEvidence);
+					smaller.set(j, new FocalElement(new Element(fewer), smaller
+							.get(j).getBpa()));
+					cases.add(replace(masses, i, merge(smaller),
+							failure.frame));
+				}
+			}
+
+			ArrayList<IFocalElement> rounded = round(bodyOfEvidence);
+			if (rounded != null)
+				cases.add(replace(masses, i, rounded, failure.frame));
+		}
+		return cases;
+	}
+
+	/**
+	 * Returns the bpa rounded to two digits, the last one taking the rest, or
+	 * null if they are already rounded or a bpa would not be positive.
+	 */
+	private static ArrayList<IFocalElement> round(
+			ArrayList<IFocalElement> bodyOfEvidence) {
+		ArrayList<IFocalElement> rounded = new ArrayList<IFocalElement>();
+		double total = 0;
+		boolean changed = false;
+		for (int i = 0; i < bodyOfEvidence.size(); i++) {
+			IFocalElement focal = bodyOfEvidence.get(i);
+			double bpa = Math.round(focal.getBpa() * 100) / 100.0;
+			if (i == bodyOfEvidence.size() - 1)
+				bpa = Math.round((1 - total) * 100) / 100.0;
+			if (bpa <= 0)
+				return null;
+			changed = changed || bpa != focal.getBpa();
+			total = total + bpa;
+			rounded.add(new FocalElement(focal.getElement(), bpa));
+		}
+		return changed ? rounded : null;
+	}
+
+	private static ArrayList<IFocalElement> normalize(
+			ArrayList<IFocalElement> bodyOfEvidence) {
+		double total = 0;
+		for (IFocalElement focal : bodyOfEvidence) {
+			total = total + focal.getBpa();
+		}
+		ArrayList<IFocalElement> normalized = new ArrayList<IFocalElement>();
+		for (IFocalElement focal : bodyOfEvidence) {
+			normalized.add(new FocalElement(focal.getElement(), focal.getBpa()
+					/ total));
+		}
+		return normalized;
+	}
+
+	/**
+	 * Sums the bpa of the equal elements.
+	 */
+	private static ArrayList<IFocalElement> merge(
+			ArrayList<IFocalElement> bodyOfEvidence) {
+		ArrayList<IFocalElement> merged = new ArrayList<IFocalElement>();
+		for (IFocalElement focal : bodyOfEvidence) {
+			IFocalElement same = null;
+			for (IFocalElement other : merged) {
+				if (other.getElement().equals(focal.getElement()))
+					same = other;
+			}
+			if (same != null)
+				same.setBpa(same.getBpa() + focal.getBpa());
+			else
+				merged.add(new FocalElement(focal.getElement(), focal.getBpa()));
+		}
+		return merged;
+	}
+
+	private static ArrayList<MassDistribution> replace(
+			ArrayList<MassDistribution> masses, int index,
+			ArrayList<IFocalElement> bodyOfEvidence, FrameOfDiscernment frame) {
+		ArrayList<MassDistribution> replaced = copy(masses, frame);
+		MassDistribution mass = new MassDistribution(bodyOfEvidence);
+		mass.setFrameOfDiscernment(frame);
+		replaced.set(index, mass);
+		return replaced;
+	}
+
+	/**
+	 * Copies the masses, so that the operators do not share their focal
+	 * elements.
+	 */
+	private static ArrayList<MassDistribution> copy(
+			ArrayList<MassDistribution> masses, FrameOfDiscernment frame) {
+		ArrayList<MassDistribution> copies = new ArrayList<MassDistribution>();
+		for (MassDistribution mass : masses) {
+			MassDistribution copied = new MassDistribution(copy(mass
+					.getBodyOfEvidence()));
+			copied.setFrameOfDiscernment(frame);
+			copies.add(copied);
+		}
+		return copies;
+	}
+
+	private static ArrayList<IFocalElement> copy(
+			ArrayList<IFocalElement> bodyOfEvidence) {
+		ArrayList<IFocalElement> copied = new ArrayList<IFocalElement>();
+		for (IFocalElement focal : bodyOfEvidence) {
+			copied.add(new FocalElement(focal.getElement(), focal.getBpa()));
+		}
+		return copied;
+	}
+
+	/**
+	 * Returns the bpa of each element of the <code>mass</code> by its mask,
+	 * or null if the mass gives a bpa to the empty set.
+	 */
+	private static HashMap<BitSet, Double> toBpas(MassDistribution mass,
+			FrameOfDiscernment frame) {
+		ElementPool pool = frame.getElementPool();
+		HashMap<BitSet, Double> bpas = new HashMap<BitSet, Double>();
+		for (IFocalElement focal : mass.getBodyOfEvidence()) {
+			IElement element = focal.getElement();
+			BitSet mask = pool.getMask(element);
+			if (mask == null || mask.isEmpty()) {
+				if (focal.getBpa() > 0)
+					return null;
+				continue;
+			}
+			bpas.put(mask, getBpa(bpas, mask) + focal.getBpa());
+		}
+		return bpas;
+	}
+
+	private static double getBpa(HashMap<BitSet, Double> bpas, BitSet mask) {
+		Double bpa = bpas.get(mask);
+		return (bpa != null) ? bpa : 0;
+	}
+
+}
@@ -0,0 +1,71 @@
+package testing;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+
+import joint.JointManager;
+import joint.JointOperator;
+import junit.framework.TestCase;
+import massDistribution.JointMassDistribution;
+import massDistribution.MassDistribution;
+import testing.DifferentialHarness.Engine;
+import testing.DifferentialHarness.Failure;
+import utilities.DoubleUtility;
+import core.FrameOfDiscernment;
+
+/**
+ * @author Elisa Costante
+ *
+ */
+public class DifferentialHarnessTest extends TestCase {
+
+	public DifferentialHarnessTest(String name) {
+		super(name);
+	}
+
+	public void testDefaultEnginesAgree() {
+		ArrayList<Failure> failures = new DifferentialHarness(42).run(300);
+		assertTrue(failures.toString(), failures.isEmpty());
+	}
+
+	/**
+	 * The average is not Dempster's combination: the failure is shrunk to two
+	 * masses and written as a scenario.
+	 */
+	public void testShrinkFailure() throws Exception {
+		ArrayList<Engine> engines = new ArrayList<Engine>();
+		engines.add(new Engine("average", JointOperator.DEMPSTER) {
+			@Override
+			public JointMassDistribution combine(
+					ArrayList<MassDistribution> masses,
+					FrameOfDiscernment frame) throws Exception {
+				return JointManager.averageJoint(masses, frame);
+			}
+		});
+		DifferentialHarness harness = new DifferentialHarness(7);
+		harness.setEngines(engines);
+		ArrayList<Failure> failures = harness.run(20);
+		assertEquals(1, failures.size());
+
+		Failure failure = failures.get(0);
+		assertEquals(2, failure.getMasses().size());
+		assertTrue(failure.getDifference() > DoubleUtility.EPSILON);
+
+		File file = File.createTempFile("failure", ".txt");
+		file.deleteOnExit();
+		Writer writer = new FileWriter(file);
+		failure.write(writer);
+		writer.close();
+
+		ArrayList<MassDistribution> masses = new ArrayList<MassDistribution>();
+		ReadTestUtility.readInput(file.getPath(), masses);
+		assertEquals(2, masses.size());
+		JointMassDistribution expected = ReadTestUtility
+				.readDempsterResult(file.getPath());
+		assertEquals(failure.getReference().getBodyOfEvidence().size(),
+				expected.getBodyOfEvidence().size());
+	}
+
+}
@@ -0,0 +1,172 @@
+package testing;
+
+import interfaces.IFocalElement;
+
+import java.util.ArrayList;
+
+import joint.Discounting;
+import joint.JointManager;
+import joint.JointOperator;
+import joint.MassTable;
+import junit.framework.TestCase;
+import massDistribution.DenseMass;
+import massDistribution.JointMassDistribution;
+import massDistribution.MassDistribution;
+import core.FrameOfDiscernment;
+import exception.JointNotPossibleException;
+
+/**
+ * @author Elisa Costante
+ *
+ */
+public class DiscountingTest extends TestCase {
+
+	private FrameOfDiscernment frame;
+
+	public DiscountingTest(String name) {
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		frame = MassTestUtility.newFrame(3);
+	}
+
+	public void testMassTable() {
+		MassTable table = new MassTable(MassTestUtility.newMass("A", 0.6, "AB",
+				0.4));
+		Discounting.discount(table, 0.5, frame.getUniversalSet());
+		assertEquals(0.3, table.getBpa(table.indexOf(MassTestUtility
+				.newElement("A"))), 1e-12);
+		assertEquals(0.2, table.getBpa(table.indexOf(MassTestUtility
+				.newElement("AB"))), 1e-12);
+		assertEquals(0.5, table.getBpa(table.indexOf(frame.getUniversalSet())),
+				1e-12);
+	}
+
+	public void testDenseMass() {
+		DenseMass dense = DenseMass.fromMass(MassTestUtility.newMass("A", 0.6,
+				"ABC", 0.4), frame);
+		Discounting.discount(dense, 0.25);
+		JointMassDistribution mass = dense.toJointMassDistribution();
+		assertEquals(0.15, MassTestUtility.getBpa(mass, "A"), 1e-12);
+		assertEquals(0.85, MassTestUtility.getBpa(mass, frame
+				.getUniversalSet()), 1e-12);
+	}
+
+	public void testRepeatedUniversalSet() {
+		// the universal set is a focal element twice
+		MassDistribution mass = Discounting.discount(MassTestUtility.newMass(
+				"A", 0.6, "ABC", 0.2, "ABC", 0.2), 0.5, frame);
+		assertEquals(0.3, MassTestUtility.getBpa(mass, "A"), 1e-12);
+		assertEquals(0.7, MassTestUtility.getBpa(mass, "ABC"), 1e-12);
+	}
+
+	public void testDenseBatch() {
+		// two sources, three masses on the frame {A,B,C}
+		MassDistribution[] masses = {
+				MassTestUtility.newMass("A", 0.6, "ABC", 0.4),
+				MassTestUtility.newMass("B", 1.0),
+				MassTestUtility.newMass("AB", 0.5, "C", 0.5) };
+		double[] reliabilities = { 0.9, 0.5 };
+		int[] sources = { 1, 0, 1 };
+
+		double[] batch = new double[8 * masses.length];
+		for (int i = 0; i < masses.length; i++) {
+			double[] values = DenseMass.fromMass(masses[i], frame).getValues();
+			System.arraycopy(values, 0, batch, 8 * i, 8);
+		}
+		Discounting.discount(batch, 3, reliabilities, sources);
+
+		for (int i = 0; i < masses.length; i++) {
+			DenseMass expected = DenseMass.fromMass(masses[i], frame);
+			Discounting.discount(expected, reliabilities[sources[i]]);
+			for (int a = 0; a < 8; a++) {
+				assertEquals(expected.getValues()[a], batch[8 * i + a], 1e-12);
+			}
+		}
+	}
+
+	public void testSparseBatch() {
+		// {A}-0.6 {ABC}-0.4, {B}-1.0 and a place for its universal set
+		double[] bpas = { 0.6, 0.4, 1.0, 0 };
+		int[] offsets = { 0, 2, 4 };
+		int[] universalSets = { 1, 3 };
+		Discounting.discount(bpas, offsets, universalSets, new double[] {
+				0.5, 0.8 }, null);
+		assertEquals(0.3, bpas[0], 1e-12);
+		assertEquals(0.7, bpas[1], 1e-12);
+		assertEquals(0.8, bpas[2], 1e-12);
+		assertEquals(0.2, bpas[3], 1e-12);
+
+		try {
+			Discounting.discount(bpas, offsets, universalSets, new double[] {
+					0.5, 1.5 }, null);
+			fail("A reliability is not between 0 and 1");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	public void testSparseBatchIndexes() {
+		double[] bpas = { 0.6, 0.4, 1.0, 0 };
+		double[] reliabilities = { 0.5, 0.8 };
+		checkSparseBatchFails(bpas, new int[] { 0, 2, 4 }, new int[] { 1, 1 },
+				reliabilities, "The universal set of {B} is in {A}-{ABC}");
+		checkSparseBatchFails(bpas, new int[] { 0, 2, 4 }, new int[] { 2, 3 },
+				reliabilities, "The universal set of {A} is after its mass");
+		checkSparseBatchFails(bpas, new int[] { 0, 3, 2 }, new int[] { 1, 2 },
+				reliabilities, "The offsets decrease");
+		checkSparseBatchFails(bpas, new int[] { 0, 2, 5 }, new int[] { 1, 3 },
+				reliabilities, "The last mass is after the bpa");
+		checkSparseBatchFails(bpas, new int[] {}, new int[] {},
+				reliabilities, "There is not the end of the last mass");
+
+		// the bpa are not modified by a wrong batch
+		assertEquals(0.6, bpas[0], 0);
+		assertEquals(0.4, bpas[1], 0);
+		assertEquals(1.0, bpas[2], 0);
+		assertEquals(0, bpas[3], 0);
+	}
+
+	private static void checkSparseBatchFails(double[] bpas, int[] offsets,
+			int[] universalSets, double[] reliabilities, String message) {
+		try {
+			Discounting.discount(bpas, offsets, universalSets, reliabilities,
+					null);
+			fail(message);
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	public void testApplyOperator() throws Exception {
+		ArrayList<MassDistribution> masses = new ArrayList<MassDistribution>();
+		masses.add(MassTestUtility.newMass("A", 0.6, "ABC", 0.4));
+		masses.add(MassTestUtility.newMass("B", 0.5, "ABC", 0.5));
+		double[] reliabilities = { 1, 0.5 };
+
+		ArrayList<MassDistribution> discounted = new ArrayList<MassDistribution>();
+		discounted.add(masses.get(0));
+		discounted.add(Discounting.discount(masses.get(1), 0.5, frame));
+		JointMassDistribution expected = JointManager.applyOperator(
+				discounted, JointOperator.DEMPSTER, frame);
+		JointMassDistribution joint = JointManager.applyOperator(masses,
+				reliabilities, JointOperator.DEMPSTER, frame);
+		for (IFocalElement focalElement : expected.getBodyOfEvidence()) {
+			assertEquals(focalElement.getBpa(), MassTestUtility.getBpa(joint,
+					focalElement.getElement()), 1e-12);
+		}
+		// the masses of the caller are not modified
+		assertEquals(0.5, MassTestUtility.getBpa(masses.get(1), "B"), 1e-12);
+
+		try {
+			JointManager.applyOperator(masses, new double[] { 1 },
+					JointOperator.DEMPSTER, frame);
+			fail("There is not a reliability for each mass");
+		} catch (JointNotPossibleException e) {
+			// expected
+		}
+	}
+
+}
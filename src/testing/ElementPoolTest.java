@@ -0,0 +1,109 @@
+package testing;
+
+import interfaces.IElement;
+import interfaces.IHypothesis;
+
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+import core.CanonicalElement;
+import core.Element;
+import core.ElementPool;
+import core.FrameOfDiscernment;
+import core.Hypothesis;
+
+/**
+ * @author Elisa Costante
+ *
+ */
+public class ElementPoolTest extends TestCase {
+
+	private FrameOfDiscernment frame;
+
+	public ElementPoolTest(String name) {
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		ArrayList<IHypothesis> hypothesies = new ArrayList<IHypothesis>();
+		hypothesies.add(new Hypothesis("A"));
+		hypothesies.add(new Hypothesis("B"));
+		hypothesies.add(new Hypothesis("C"));
+		frame = new FrameOfDiscernment(hypothesies);
+	}
+
+	private static Element newElement(String... identifiers) {
+		Element element = new Element();
+		for (String identifier : identifiers) {
+			element.addHypothesis(new Hypothesis(identifier));
+		}
+		return element;
+	}
+
+	public void testUniversalAndEmptySetAreShared() {
+		assertSame(frame.getUniversalSet(), frame.getUniversalSet());
+		assertSame(FrameOfDiscernment.getEmptySet(), FrameOfDiscernment
+				.getEmptySet());
+		assertEquals(3, frame.getUniversalSet().size());
+		assertTrue(FrameOfDiscernment.getEmptySet().isEmptySet());
+	}
+
+	public void testInternReturnsCanonicalInstance() {
+		ElementPool pool = frame.getElementPool();
+		IElement ab = pool.intern(newElement("A", "B"));
+		IElement ba = pool.intern(newElement("B", "A"));
+
+		assertTrue(ab instanceof CanonicalElement);
+		assertSame(ab, ba);
+		assertEquals(ab, newElement("A", "B"));
+		assertEquals(ab.hashCode(), ba.hashCode());
+		assertFalse(ab.equals(pool.intern(newElement("A"))));
+	}
+
+	public void testInternKeepsElementsOutsideTheFrame() {
+		Element ad = newElement("A", "D");
+		assertSame(ad, frame.getElementPool().intern(ad));
+	}
+
+	public void testIntersectionAndUnionArePooled() {
+		ElementPool pool = frame.getElementPool();
+		IElement ab = pool.intern(newElement("A", "B"));
+		IElement bc = pool.intern(newElement("B", "C"));
+
+		assertSame(pool.intern(newElement("B")), Element.getIntersection(ab,
+				bc));
+		assertSame(frame.getUniversalSet(), Element.getUnion(ab, bc));
+		assertSame(FrameOfDiscernment.getEmptySet(), Element.getIntersection(
+				pool.intern(newElement("A")), pool.intern(newElement("C"))));
+	}
+
+	public void testCanonicalElementIsImmutable() {
+		try {
+			frame.getUniversalSet().addHypothesis(new Hypothesis("D"));
+			fail("A canonical element must not be modified");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+	}
+
+	public void testHypothesiesOfCanonicalElementAreImmutable() {
+		IElement universalSet = frame.getUniversalSet();
+		try {
+			universalSet.getHypothesies().add(new Hypothesis("D"));
+			fail("The hypothesies of a canonical element must not be modified");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+		try {
+			universalSet.getHypothesies().remove(0);
+			fail("The hypothesies of a canonical element must not be modified");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+		assertEquals(3, universalSet.getHypothesies().size());
+		assertEquals(universalSet, newElement("A", "B", "C"));
+		assertNull(FrameOfDiscernment.getEmptySet().getHypothesies());
+	}
+
+}
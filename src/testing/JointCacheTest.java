@@ -0,0 +1,194 @@
+package testing;
+
+import interfaces.IElement;
+import interfaces.IFocalElement;
+
+import java.util.ArrayList;
+
+import joint.JointCache;
+import joint.JointManager;
+import joint.JointOperator;
+import junit.framework.TestCase;
+import massDistribution.ImmutableJointMassDistribution;
+import massDistribution.JointMassDistribution;
+import massDistribution.MassDistribution;
+import core.Element;
+import core.FocalElement;
+import core.FrameOfDiscernment;
+import core.Hypothesis;
+
+/**
+ * @author Elisa Costante
+ *
+ */
+public class JointCacheTest extends TestCase {
+
+	private String filename = "test1.txt";
+	private FrameOfDiscernment frame;
+
+	public JointCacheTest(String name) {
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		frame = ReadTestUtility.readFrameOfDiscernment(filename);
+	}
+
+	private ArrayList<MassDistribution> readMasses() {
+		ArrayList<MassDistribution> masses = new ArrayList<MassDistribution>();
+		ReadTestUtility.readInput(filename, masses);
+		return masses;
+	}
+
+	/**
+	 * Returns the masses of the file and a mass on <code>element</code>.
+	 */
+	private ArrayList<MassDistribution> readMasses(Element element) {
+		ArrayList<MassDistribution> masses = readMasses();
+		ArrayList<IFocalElement> bodyOfEvidence = new ArrayList<IFocalElement>();
+		bodyOfEvidence.add(new FocalElement(element, 1.0));
+		masses.add(new MassDistribution(bodyOfEvidence));
+		return masses;
+	}
+
+	private static Element newOutsideElement() {
+		Element element = new Element();
+		element.addHypothesis(new Hypothesis("Z"));
+		return element;
+	}
+
+	public void testSameInputsHitTheCache() throws Exception {
+		JointCache cache = new JointCache(10, 0);
+
+		ImmutableJointMassDistribution first = cache.applyOperator(
+				readMasses(), JointOperator.DEMPSTER, frame);
+		ImmutableJointMassDistribution second = cache.applyOperator(
+				readMasses(), JointOperator.DEMPSTER, frame);
+
+		assertSame(first, second);
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		assertEquals(JointManager.dempsterJoint(readMasses(), frame), first);
+	}
+
+	public void testOperatorIsPartOfTheKey() throws Exception {
+		JointCache cache = new JointCache(10, 0);
+
+		cache.applyOperator(readMasses(), JointOperator.DEMPSTER, frame);
+		cache.applyOperator(readMasses(), JointOperator.AVERAGE, frame);
+
+		assertEquals(0, cache.getHits());
+		assertEquals(2, cache.size());
+	}
+
+	public void testLeastRecentlyUsedIsEvicted() throws Exception {
+		JointCache cache = new JointCache(1, 0);
+
+		cache.applyOperator(readMasses(), JointOperator.DEMPSTER, frame);
+		cache.applyOperator(readMasses(), JointOperator.AVERAGE, frame);
+		cache.applyOperator(readMasses(), JointOperator.DEMPSTER, frame);
+
+		assertEquals(1, cache.size());
+		assertEquals(0, cache.getHits());
+		assertEquals(2, cache.getEvictions());
+	}
+
+	public void testExpiredResultsAreRecomputed() throws Exception {
+		JointCache cache = new JointCache(10, 1);
+
+		cache.applyOperator(readMasses(), JointOperator.AVERAGE, frame);
+		Thread.sleep(5);
+		cache.applyOperator(readMasses(), JointOperator.AVERAGE, frame);
+
+		assertEquals(0, cache.getHits());
+		assertEquals(1, cache.getExpirations());
+	}
+
+	public void testFingerprintCollisionIsAMiss() throws Exception {
+		JointCache cache = new JointCache(10, 0);
+		ArrayList<MassDistribution> masses = readMasses();
+		cache.applyOperator(masses, JointOperator.AVERAGE, frame);
+
+		// a different mass with the fingerprint of the first one
+		final long fingerprint = masses.get(0).getFingerprint();
+		ArrayList<MassDistribution> colliding = readMasses();
+		colliding.set(0, new MassDistribution(colliding.get(1)
+				.getBodyOfEvidence()) {
+			@Override
+			public long getFingerprint() {
+				return fingerprint;
+			}
+		});
+		ImmutableJointMassDistribution result = cache.applyOperator(
+				colliding, JointOperator.AVERAGE, frame);
+
+		assertEquals(0, cache.getHits());
+		assertEquals(JointManager.averageJoint(colliding, frame), result);
+	}
+
+	public void testStoredKeysDoNotShareTheElements() throws Exception {
+		JointCache cache = new JointCache(10, 0);
+		Element outside = newOutsideElement();
+		cache.applyOperator(readMasses(outside), JointOperator.AVERAGE, frame);
+
+		// the element of the caller is modified after the result is stored
+		outside.addHypothesis(new Hypothesis("Y"));
+		cache.applyOperator(readMasses(newOutsideElement()),
+				JointOperator.AVERAGE, frame);
+		assertEquals(1, cache.getHits());
+	}
+
+	public void testFrozenBeliefIgnoresTheSource() throws Exception {
+		JointMassDistribution joint = JointManager.averageJoint(readMasses(),
+				frame);
+		ImmutableJointMassDistribution frozen = ImmutableJointMassDistribution
+				.freeze(joint, frame);
+		double expected = JointManager.averageJoint(readMasses(), frame)
+				.getBodyOfEvidence().get(0).getBelief();
+
+		IFocalElement source = joint.getBodyOfEvidence().get(0);
+		source.setBpa(source.getBpa() + 0.5);
+		assertEquals(expected, frozen.getBodyOfEvidence().get(0).getBelief(),
+				1e-12);
+	}
+
+	public void testCachedResultsCannotBeModified() throws Exception {
+		JointCache cache = new JointCache(10, 0);
+		ImmutableJointMassDistribution result = cache.applyOperator(
+				readMasses(), JointOperator.AVERAGE, frame);
+
+		try {
+			result.getBodyOfEvidence().get(0).setBpa(1.0);
+			fail("The bpa of a cached result must not be modified");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+		try {
+			result.getBodyOfEvidence().add(
+					new FocalElement(frame.getUniversalSet(), 0));
+			fail("The body of evidence of a cached result must not be modified");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+
+		// the elements outside the frame are frozen too
+		result = cache.applyOperator(readMasses(newOutsideElement()),
+				JointOperator.AVERAGE, frame);
+		for (IFocalElement focalElement : result.getBodyOfEvidence()) {
+			IElement element = focalElement.getElement();
+			try {
+				element.getHypothesies().add(new Hypothesis("Y"));
+				fail("The elements of a cached result must not be modified");
+			} catch (UnsupportedOperationException e) {
+				// expected
+			}
+		}
+
+		JointMassDistribution copy = (JointMassDistribution) result.clone();
+		IFocalElement focalElement = copy.getBodyOfEvidence().get(0);
+		focalElement.setBpa(focalElement.getBpa());
+		assertEquals(copy, result);
+	}
+
+}
@@ -3,15 +3,25 @@
  */
 package testing;
 
+import interfaces.IFocalElement;
+import interfaces.IHypothesis;
+
 import java.util.ArrayList;
+import java.util.HashMap;
 
+import joint.Approximation;
 import joint.JointManager;
 import joint.JointOperator;
+import joint.SimilarityState;
 import junit.framework.AssertionFailedError;
 import junit.framework.TestCase;
 import massDistribution.JointMassDistribution;
 import massDistribution.MassDistribution;
+import utilities.DoubleUtility;
+import core.Element;
+import core.FocalElement;
 import core.FrameOfDiscernment;
+import core.Hypothesis;
 import exception.DempsterTotalConflictException;
 import exception.JointNotPossibleException;
 import exception.MassDistributionNotValidException;
@@ -170,4 +180,256 @@ public class JointManagerTest extends TestCase {
 
 	}
 
+	/**
+	 * Test method for
+	 * {@link joint.JointManager#dempsterPower(MassDistribution, int, FrameOfDiscernment)}
+	 * .
+	 * 
+	 * @throws MassDistributionNotValidException
+	 * @throws JointNotPossibleException
+	 * @throws DempsterTotalConflictException
+	 */
+	public void testDempsterPower() throws JointNotPossibleException,
+			MassDistributionNotValidException, DempsterTotalConflictException {
+		FrameOfDiscernment denseFrame = new FrameOfDiscernment(
+				new ArrayList<IHypothesis>());
+		denseFrame.getHipothesies().add(new Hypothesis("A"));
+		denseFrame.getHipothesies().add(new Hypothesis("B"));
+		denseFrame.getHipothesies().add(new Hypothesis("C"));
+
+		MassDistribution mass = masses.get(0);
+		ArrayList<MassDistribution> copies = new ArrayList<MassDistribution>();
+		for (int i = 0; i < 5; i++) {
+			copies.add(mass);
+		}
+
+		JointMassDistribution folded = JointManager.dempsterJoint(copies, null);
+		JointMassDistribution squared = JointManager.dempsterPower(mass, 5,
+				null);
+		JointMassDistribution commonality = JointManager.dempsterPower(mass,
+				5, denseFrame);
+
+		for (IFocalElement focalElement : folded.getBodyOfEvidence()) {
+			String element = focalElement.getElement().toString();
+			assertEquals(focalElement.getBpa(), squared
+					.getFocalElement(element).getBpa(), DoubleUtility.EPSILON);
+			IFocalElement dense = commonality.getFocalElement(element);
+			assertEquals(focalElement.getBpa(), (dense != null) ? dense
+					.getBpa() : 0, DoubleUtility.EPSILON);
+		}
+	}
+
+	public void testDempsterPowerOfOverlappingElements()
+			throws MassDistributionNotValidException,
+			DempsterTotalConflictException {
+		FrameOfDiscernment denseFrame = new FrameOfDiscernment(
+				new ArrayList<IHypothesis>());
+		denseFrame.getHipothesies().add(new Hypothesis("A"));
+		denseFrame.getHipothesies().add(new Hypothesis("B"));
+		denseFrame.getHipothesies().add(new Hypothesis("C"));
+
+		// {A,B} and {B,C} are not nested: their intersection {B} is not a
+		// focal element of the mass
+		MassDistribution mass = MassTestUtility.newMass("AB", 0.5, "BC", 0.5);
+		JointMassDistribution squared = JointManager.dempsterPower(mass, 1000,
+				null);
+		JointMassDistribution commonality = JointManager.dempsterPower(mass,
+				1000, denseFrame);
+		assertEquals(1, squared.getFocalElement("{B}").getBpa(), 1e-9);
+		assertEquals(1, commonality.getFocalElement("{B}").getBpa(), 1e-9);
+
+		squared = JointManager.dempsterPower(mass, 2, null);
+		assertEquals(0.5, squared.getFocalElement("{B}").getBpa(), 1e-12);
+
+		// the power 1 is a copy of the mass
+		assertNotSame(mass, JointManager.dempsterPower(mass, 1, null));
+		JointMassDistribution joint = JointManager.dempsterPower(mass, 2, null);
+		assertNotSame(joint, JointManager.dempsterPower(joint, 1, null));
+	}
+
+	public void testSimilarityStateIsIncremental() {
+		SimilarityState state = new SimilarityState();
+		for (MassDistribution mass : masses) {
+			state.addSource(mass);
+		}
+		state.addSource(masses.get(0));
+		state.removeSource(1);
+
+		ArrayList<MassDistribution> remaining = new ArrayList<MassDistribution>(
+				state.getMasses());
+		SimilarityState fresh = new SimilarityState(remaining);
+
+		double[] support = state.getSupportDegree();
+		double[] expected = fresh.getSupportDegree();
+		assertEquals(expected.length, support.length);
+		for (int i = 0; i < support.length; i++) {
+			assertEquals(expected[i], support[i], DoubleUtility.EPSILON);
+			for (int j = 0; j < support.length; j++) {
+				assertEquals(fresh.getSimilarity(i, j), state
+						.getSimilarity(i, j), DoubleUtility.EPSILON);
+			}
+		}
+	}
+
+	public void testApplyOperators() throws JointNotPossibleException,
+			MassDistributionNotValidException, DempsterTotalConflictException {
+		// Yager's operator needs the frame
+		FrameOfDiscernment inputFrame = ReadTestUtility
+				.readFrameOfDiscernment(filename);
+		ArrayList<JointOperator> operators = new ArrayList<JointOperator>();
+		operators.add(JointOperator.DEMPSTER);
+		operators.add(JointOperator.YAGER);
+		operators.add(JointOperator.AVERAGE);
+		operators.add(JointOperator.DISTANCE);
+		HashMap<JointOperator, JointMassDistribution> joints = JointManager
+				.applyOperators(masses, operators, inputFrame);
+		assertEquals(operators.size(), joints.size());
+
+		JointMassDistribution yager = JointManager.yagerJoint(masses,
+				inputFrame);
+		assertEquals(yager.getBodyOfEvidence().size(), joints.get(
+				JointOperator.YAGER).getBodyOfEvidence().size());
+
+		for (JointOperator operator : operators) {
+			JointMassDistribution expected = yager;
+			if (operator != JointOperator.YAGER)
+				expected = JointManager.applyOperator(masses, operator,
+						inputFrame);
+			JointMassDistribution fused = joints.get(operator);
+			assertEquals(operator, fused.getOperator());
+			for (IFocalElement focalElement : expected.getBodyOfEvidence()) {
+				IFocalElement same = fused.getFocalElement(focalElement
+						.getElement().toString());
+				assertEquals(focalElement.getBpa(), (same != null) ? same
+						.getBpa() : 0, DoubleUtility.EPSILON);
+			}
+		}
+	}
+
+	public void testWeightedAverageJoint() throws JointNotPossibleException,
+			MassDistributionNotValidException {
+		double[] weights = new double[masses.size()];
+		weights[0] = 2;
+		JointMassDistribution first = JointManager.averageJoint(masses,
+				weights, frame);
+		for (IFocalElement focalElement : masses.get(0).getBodyOfEvidence()) {
+			assertEquals(focalElement.getBpa(), first.getFocalElement(
+					focalElement.getElement().toString()).getBpa(),
+					DoubleUtility.EPSILON);
+		}
+
+		try {
+			JointManager.averageJoint(masses, new double[1], frame);
+			fail("The number of weights must be the number of masses");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	private static MassDistribution newMass(double... bpas) {
+		// the focal elements {A} included in {A,B} included in {A,B,C}
+		String[] identifiers = { "A", "B", "C" };
+		ArrayList<IFocalElement> bodyOfEvidence = new ArrayList<IFocalElement>();
+		for (int i = 0; i < bpas.length; i++) {
+			ArrayList<IHypothesis> hypothesies = new ArrayList<IHypothesis>();
+			for (int j = 0; j <= i; j++) {
+				hypothesies.add(new Hypothesis(identifiers[j]));
+			}
+			bodyOfEvidence.add(new FocalElement(new Element(hypothesies),
+					bpas[i]));
+		}
+		return new MassDistribution(bodyOfEvidence);
+	}
+
+	public void testConsonantKernel() throws JointNotPossibleException,
+			MassDistributionNotValidException, DempsterTotalConflictException {
+		ArrayList<MassDistribution> consonant = new ArrayList<MassDistribution>();
+		consonant.add(newMass(0.5, 0.3, 0.2));
+		consonant.add(newMass(0, 0.6, 0.4));
+		consonant.add(newMass(0.1, 0, 0.9));
+
+		JointMassDistribution specialized = JointManager.dempsterJoint(
+				consonant, null);
+		// an approximation which drops nothing forces the general algorithm
+		JointMassDistribution general = JointManager.applyOperator(consonant,
+				JointOperator.DEMPSTER, null, Approximation.threshold(0));
+
+		assertEquals(general.getBodyOfEvidence().size(), specialized
+				.getBodyOfEvidence().size());
+		for (IFocalElement focalElement : general.getBodyOfEvidence()) {
+			assertEquals(focalElement.getBpa(), specialized.getFocalElement(
+					focalElement.getElement().toString()).getBpa(), 1e-12);
+		}
+	}
+
+	private static MassDistribution newBayesianMass(double a, double b) {
+		ArrayList<IFocalElement> bodyOfEvidence = new ArrayList<IFocalElement>();
+		ArrayList<IHypothesis> hypothesies = new ArrayList<IHypothesis>();
+		hypothesies.add(new Hypothesis("A"));
+		bodyOfEvidence.add(new FocalElement(new Element(hypothesies), a));
+		hypothesies = new ArrayList<IHypothesis>();
+		hypothesies.add(new Hypothesis("B"));
+		bodyOfEvidence.add(new FocalElement(new Element(hypothesies), b));
+		return new MassDistribution(bodyOfEvidence);
+	}
+
+	public void testStableDempsterJoint() throws JointNotPossibleException,
+			MassDistributionNotValidException, DempsterTotalConflictException {
+		JointMassDistribution expected = JointManager.dempsterJoint(masses,
+				frame);
+		JointMassDistribution stable = JointManager.stableDempsterJoint(
+				masses, frame);
+		for (IFocalElement focalElement : expected.getBodyOfEvidence()) {
+			assertEquals(focalElement.getBpa(), stable.getFocalElement(
+					focalElement.getElement().toString()).getBpa(), 1e-9);
+		}
+		assertEquals(expected.getLogConflict(), stable.getLogConflict(), 1e-9);
+
+		// 200 sources which disagree: 1-conflict=2*0.09^100 is lost when
+		// computed as 1-conflict
+		ArrayList<MassDistribution> panel = new ArrayList<MassDistribution>();
+		for (int i = 0; i < 100; i++) {
+			panel.add(newBayesianMass(0.9, 0.1));
+			panel.add(newBayesianMass(0.1, 0.9));
+		}
+		stable = JointManager.stableDempsterJoint(panel, null);
+		assertEquals(0.5, stable.getFocalElement("{A}").getBpa(), 1e-9);
+		assertEquals(0.5, stable.getFocalElement("{B}").getBpa(), 1e-9);
+		assertEquals(-Math.log(2) - 100 * Math.log(0.09), stable
+				.getLogConflict(), 1e-9);
+	}
+
+	public void testDempsterOfOverlappingElements()
+			throws JointNotPossibleException,
+			MassDistributionNotValidException, DempsterTotalConflictException {
+		// the focal elements overlap but they are not nested, so their
+		// intersections are not focal elements of the masses
+		ArrayList<MassDistribution> overlapping = new ArrayList<MassDistribution>();
+		overlapping.add(MassTestUtility.newMass("AB", 1.0));
+		overlapping.add(MassTestUtility.newMass("BC", 1.0));
+		JointMassDistribution regular = JointManager.dempsterJoint(
+				overlapping, null);
+		JointMassDistribution stable = JointManager.stableDempsterJoint(
+				overlapping, null);
+		assertEquals(1, MassTestUtility.getBpa(regular, "B"), 1e-12);
+		assertEquals(1, MassTestUtility.getBpa(stable, "B"), 1e-12);
+		assertEquals(0, stable.getLogConflict(), 1e-12);
+
+		overlapping.clear();
+		overlapping.add(MassTestUtility.newMass("AB", 0.6, "ABC", 0.4));
+		overlapping.add(MassTestUtility.newMass("BC", 0.7, "ABC", 0.3));
+		regular = JointManager.dempsterJoint(overlapping, null);
+		stable = JointManager.stableDempsterJoint(overlapping, null);
+		String[] elements = { "B", "AB", "BC", "ABC" };
+		double[] expected = { 0.42, 0.18, 0.28, 0.12 };
+		for (int i = 0; i < elements.length; i++) {
+			assertEquals(expected[i], MassTestUtility.getBpa(regular,
+					elements[i]), 1e-12);
+			assertEquals(expected[i], MassTestUtility.getBpa(stable,
+					elements[i]), 1e-12);
+		}
+		assertEquals(0, regular.getLogConflict(), 1e-12);
+		assertEquals(0, stable.getLogConflict(), 1e-12);
+	}
+
 }
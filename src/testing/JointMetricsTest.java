@@ -0,0 +1,171 @@
+package testing;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import joint.JointManager;
+import joint.JointMetrics;
+import joint.JointOperator;
+import junit.framework.TestCase;
+import massDistribution.MassDistribution;
+import utilities.Histogram;
+import utilities.StripedCounter;
+import core.FrameOfDiscernment;
+
+/**
+ * @author Elisa Costante
+ *
+ */
+public class JointMetricsTest extends TestCase {
+
+	private FrameOfDiscernment frame;
+	private JointMetrics metrics;
+
+	public JointMetricsTest(String name) {
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		frame = MassTestUtility.newFrame(3);
+		metrics = JointMetrics.getInstance();
+		metrics.setEnabled(true);
+		metrics.reset();
+	}
+
+	public void testStripedCounter() throws InterruptedException {
+		final StripedCounter counter = new StripedCounter();
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread() {
+				public void run() {
+					for (int j = 0; j < 10000; j++) {
+						counter.increment();
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(40000, counter.sum());
+		counter.reset();
+		assertEquals(0, counter.sum());
+	}
+
+	public void testHistogram() {
+		Histogram histogram = new Histogram(new double[] { 1, 10, 100 });
+		histogram.record(0.5);
+		histogram.record(1);
+		histogram.record(50);
+		histogram.record(1000);
+
+		long[] counts = histogram.getCounts();
+		assertEquals(4, counts.length);
+		assertEquals(2, counts[0]);
+		assertEquals(0, counts[1]);
+		assertEquals(1, counts[2]);
+		assertEquals(1, counts[3]);
+		assertEquals(4, histogram.getCount());
+		assertEquals(1.0, histogram.getQuantile(0.5));
+		assertEquals(Double.POSITIVE_INFINITY, histogram.getQuantile(1));
+	}
+
+	public void testCombinations() throws Exception {
+		ArrayList<MassDistribution> masses = new ArrayList<MassDistribution>();
+		masses.add(MassTestUtility.newMass("A", 0.6, "ABC", 0.4));
+		masses.add(MassTestUtility.newMass("B", 0.5, "ABC", 0.5));
+		masses.add(MassTestUtility.newMass("AB", 0.7, "ABC", 0.3));
+		JointManager.dempsterJoint(masses, frame);
+		JointManager.averageJoint(masses, frame);
+
+		assertEquals(1, metrics.getOperatorMetrics(JointOperator.DEMPSTER)
+				.getCombinations());
+		assertEquals(1, metrics.getOperatorMetrics(JointOperator.AVERAGE)
+				.getCombinations());
+		assertEquals(2, metrics.getCombinations());
+		assertFalse(Double.isNaN(metrics.getOperatorMetrics(
+				JointOperator.DEMPSTER).getMeanLatency()));
+
+		long conflicts = 0;
+		for (long count : metrics.getConflictHistogram()) {
+			conflicts = conflicts + count;
+		}
+		assertEquals(1, conflicts);
+		long folds = 0;
+		for (long count : metrics.getFocalElementsAfterHistogram()) {
+			folds = folds + count;
+		}
+		assertEquals(2, folds);
+	}
+
+	public void testApplyOperators() throws Exception {
+		ArrayList<MassDistribution> masses = new ArrayList<MassDistribution>();
+		masses.add(MassTestUtility.newMass("A", 0.6, "ABC", 0.4));
+		masses.add(MassTestUtility.newMass("B", 0.5, "ABC", 0.5));
+		ArrayList<JointOperator> operators = new ArrayList<JointOperator>();
+		operators.add(JointOperator.DEMPSTER);
+		operators.add(JointOperator.YAGER);
+		operators.add(JointOperator.AVERAGE);
+		long start = System.nanoTime();
+		JointManager.applyOperators(masses, operators, frame);
+		double elapsed = (System.nanoTime() - start) / 1000.0;
+
+		// each operator is recorded once, and the shared work is not counted
+		// in the latency of each of them
+		double latency = 0;
+		for (JointOperator operator : operators) {
+			assertEquals(1, metrics.getOperatorMetrics(operator)
+					.getCombinations());
+			latency = latency
+					+ metrics.getOperatorMetrics(operator).getMeanLatency();
+		}
+		assertTrue(latency <= elapsed);
+	}
+
+	public void testTotalConflict() throws Exception {
+		ArrayList<MassDistribution> masses = new ArrayList<MassDistribution>();
+		masses.add(MassTestUtility.newMass("A", 1.0));
+		masses.add(MassTestUtility.newMass("B", 1.0));
+		JointManager.dempsterJoint(masses, frame);
+
+		assertEquals(1, metrics.getTotalConflicts());
+		long[] conflict = metrics.getConflictHistogram();
+		assertEquals(1, conflict[metrics.getConflictBounds().length - 1]);
+	}
+
+	public void testDisabled() throws Exception {
+		metrics.setEnabled(false);
+		ArrayList<MassDistribution> masses = new ArrayList<MassDistribution>();
+		masses.add(MassTestUtility.newMass("A", 0.6, "ABC", 0.4));
+		masses.add(MassTestUtility.newMass("B", 0.5, "ABC", 0.5));
+		JointManager.dempsterJoint(masses, frame);
+		metrics.setEnabled(true);
+
+		assertEquals(0, metrics.getCombinations());
+	}
+
+	public void testMBeans() throws Exception {
+		ArrayList<MassDistribution> masses = new ArrayList<MassDistribution>();
+		masses.add(MassTestUtility.newMass("A", 0.6, "ABC", 0.4));
+		masses.add(MassTestUtility.newMass("B", 0.5, "ABC", 0.5));
+		JointManager.yagerJoint(masses, frame);
+
+		metrics.register();
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			assertEquals(1L, server.getAttribute(new ObjectName(
+					JointMetrics.OBJECT_NAME), "Combinations"));
+			assertEquals(1L, server.getAttribute(new ObjectName(
+					JointMetrics.OBJECT_NAME + ",operator=YAGER"),
+					"Combinations"));
+		} finally {
+			metrics.unregister();
+		}
+	}
+
+}
@@ -1,8 +1,10 @@
 package testing;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 
 import joint.JointManager;
+import joint.JointOperator;
 import massDistribution.JointMassDistribution;
 import massDistribution.MassDistribution;
 import core.FrameOfDiscernment;
@@ -53,27 +55,36 @@ public class Main {
 
 		ArrayList<MassDistribution> input = getNewArrayList(masses);
 
+		// all the operators share the intersections of the focal elements
+		ArrayList<JointOperator> operators = new ArrayList<JointOperator>();
+		operators.add(JointOperator.DEMPSTER);
+		operators.add(JointOperator.YAGER);
+		operators.add(JointOperator.AVERAGE);
+		operators.add(JointOperator.DISTANCE);
+		HashMap<JointOperator, JointMassDistribution> joints = JointManager
+				.applyOperators(input, operators, frameOfDiscernment);
+
 		// DEPMSTER
-		JointMassDistribution demDistribution = JointManager.dempsterJoint(
-				input, frameOfDiscernment);
+		JointMassDistribution demDistribution = joints
+				.get(JointOperator.DEMPSTER);
 		demDistribution = JointMassDistribution.order(demDistribution);
 		System.out.println(demDistribution);
 
 		// YAGER
-		JointMassDistribution yagerDistribution = JointManager.yagerJoint(
-				input, frameOfDiscernment);
+		JointMassDistribution yagerDistribution = joints
+				.get(JointOperator.YAGER);
 		// yagerDistribution = JointMassDistribution.order(yagerDistribution);
 		System.out.println(yagerDistribution);
 
 		// Average
-		JointMassDistribution averageDistribution = JointManager.averageJoint(
-				input, frameOfDiscernment);
+		JointMassDistribution averageDistribution = joints
+				.get(JointOperator.AVERAGE);
 		averageDistribution = JointMassDistribution.order(averageDistribution);
 		System.out.println(averageDistribution);
 
 		// DISTANCE EVIDENCE
-		JointMassDistribution distanceDistribution = JointManager
-				.distanceEvidenceJoint(input, frameOfDiscernment);
+		JointMassDistribution distanceDistribution = joints
+				.get(JointOperator.DISTANCE);
 		distanceDistribution = JointMassDistribution
 				.order(distanceDistribution);
 		System.out.println(distanceDistribution);
@@ -0,0 +1,174 @@
+package testing;
+
+import interfaces.IFocalElement;
+import interfaces.IHypothesis;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+
+import junit.framework.TestCase;
+import massDistribution.DenseKernel;
+import massDistribution.DistanceKernel;
+import massDistribution.MassDistribution;
+import massDistribution.MassShape;
+import core.Element;
+import core.FocalElement;
+import core.Hypothesis;
+
+/**
+ * @author Elisa Costante
+ *
+ */
+public class MassDistributionTest extends TestCase {
+
+	public MassDistributionTest(String name) {
+		super(name);
+	}
+
+	private static Element newElement(String... identifiers) {
+		ArrayList<IHypothesis> hypothesies = new ArrayList<IHypothesis>();
+		for (String identifier : identifiers) {
+			hypothesies.add(new Hypothesis(identifier));
+		}
+		return new Element(hypothesies);
+	}
+
+	private static MassDistribution newMass(FocalElement... focalElements) {
+		ArrayList<IFocalElement> bodyOfEvidence = new ArrayList<IFocalElement>();
+		for (FocalElement focalElement : focalElements) {
+			bodyOfEvidence.add(focalElement);
+		}
+		return new MassDistribution(bodyOfEvidence);
+	}
+
+	public void testElementHashCodeIsConsistentWithEquals() {
+		Element ab = newElement("A", "B");
+		Element ba = newElement("B", "A");
+		assertEquals(ab, ba);
+		assertEquals(ab.hashCode(), ba.hashCode());
+		assertEquals(ab.getFingerprint(), ba.getFingerprint());
+		assertFalse(ab.getFingerprint() == newElement("A", "C")
+				.getFingerprint());
+	}
+
+	public void testElementEqualsWithDuplicatedHypothesis() {
+		Element aa = newElement("A", "A");
+		Element ab = newElement("A", "B");
+		assertFalse(aa.equals(ab));
+		assertFalse(ab.equals(aa));
+
+		Element a = newElement("A");
+		assertEquals(aa, a);
+		assertEquals(a, aa);
+		assertEquals(aa.hashCode(), a.hashCode());
+	}
+
+	public void testMassEqualsDoesNotDependOnOrder() {
+		MassDistribution m1 = newMass(new FocalElement(newElement("A"), 0.3),
+				new FocalElement(newElement("B", "C"), 0.7));
+		MassDistribution m2 = newMass(new FocalElement(newElement("C", "B"),
+				0.7), new FocalElement(newElement("A"), 0.3));
+
+		assertEquals(m1, m2);
+		assertEquals(m1.hashCode(), m2.hashCode());
+		assertEquals(m1.getFingerprint(), m2.getFingerprint());
+
+		HashSet<MassDistribution> set = new HashSet<MassDistribution>();
+		set.add(m1);
+		assertTrue(set.contains(m2));
+	}
+
+	public void testFingerprintDependsOnBpa() {
+		MassDistribution m1 = newMass(new FocalElement(newElement("A"), 0.3),
+				new FocalElement(newElement("B"), 0.7));
+		MassDistribution m2 = newMass(new FocalElement(newElement("A"), 0.7),
+				new FocalElement(newElement("B"), 0.3));
+
+		assertFalse(m1.equals(m2));
+		assertFalse(m1.getFingerprint() == m2.getFingerprint());
+	}
+
+	public void testFingerprintIsFinerThanEquals() {
+		MassDistribution m1 = newMass(new FocalElement(newElement("A"), 0.3),
+				new FocalElement(newElement("B"), 0.7));
+		MassDistribution m2 = newMass(new FocalElement(newElement("A"),
+				0.3005), new FocalElement(newElement("B"), 0.6995));
+
+		// equal within the tolerance, but not to the quantum
+		assertEquals(m1, m2);
+		assertFalse(m1.getFingerprint() == m2.getFingerprint());
+	}
+
+	public void testDistanceKernel() {
+		DistanceKernel kernel = new DistanceKernel();
+		assertEquals(2.0 / 3, kernel.getJaccard(newElement("A", "B"),
+				newElement("B", "C", "A")), 1e-12);
+
+		MassDistribution m1 = newMass(new FocalElement(newElement("A"), 0.3),
+				new FocalElement(newElement("B", "C"), 0.7));
+		MassDistribution m2 = newMass(new FocalElement(newElement("C", "B"),
+				0.7), new FocalElement(newElement("A"), 0.3));
+		MassDistribution m3 = newMass(new FocalElement(newElement("B"), 1));
+
+		assertEquals(0, kernel.getDistance(m1, m2), 1e-12);
+
+		// d^2 = (<m1,m1> + <m3,m3> - 2 <m1,m3>) / 2
+		double expected = Math.sqrt((kernel.getScalarProduct(m1, m1)
+				+ kernel.getScalarProduct(m3, m3) - 2 * kernel
+				.getScalarProduct(m1, m3)) / 2);
+		assertEquals(expected, kernel.getDistance(m1, m3), 1e-12);
+		assertEquals(kernel.getDistance(m1, m3), kernel.getDistance(m3, m1),
+				1e-12);
+	}
+
+	public void testDistanceKernelDoesNotKeepTheElements() {
+		DistanceKernel kernel = new DistanceKernel();
+		Element a = newElement("A");
+		Element ab = newElement("A", "B");
+		assertEquals(0.5, kernel.getJaccard(a, ab), 1e-12);
+		// an element which is not canonical is measured again
+		ab.addHypothesis(new Hypothesis("C"));
+		assertEquals(1.0 / 3, kernel.getJaccard(a, ab), 1e-12);
+	}
+
+	public void testShape() {
+		assertEquals(MassShape.BAYESIAN, newMass(
+				new FocalElement(newElement("A"), 0.3),
+				new FocalElement(newElement("B"), 0.7)).getShape());
+		assertEquals(MassShape.SIMPLE_SUPPORT, newMass(
+				new FocalElement(newElement("A", "B"), 1),
+				new FocalElement(newElement("C"), 0)).getShape());
+		assertEquals(MassShape.CONSONANT, newMass(
+				new FocalElement(newElement("A"), 0.3),
+				new FocalElement(newElement("B", "A"), 0.5),
+				new FocalElement(newElement("A", "B", "C"), 0.2)).getShape());
+		assertEquals(MassShape.GENERAL, newMass(
+				new FocalElement(newElement("A"), 0.3),
+				new FocalElement(newElement("B", "C"), 0.7)).getShape());
+	}
+
+	public void testDenseKernel() {
+		// the subsets of {A,B,C}, bit 0 is A: m({A})=0.2, m({B})=0.1,
+		// m({C})=0.3, m({A,B,C})=0.4
+		double[] m = { 0, 0.2, 0.1, 0, 0.3, 0, 0, 0.4 };
+		double[] q = m.clone();
+		DenseKernel kernel = DenseKernel.getInstance();
+
+		kernel.toCommonality(q);
+		assertEquals(1, q[0], 1e-12);
+		assertEquals(0.6, q[1], 1e-12);
+		assertEquals(0.4, q[3], 1e-12);
+		assertEquals(0.4, q[7], 1e-12);
+
+		kernel.power(q, 2);
+		assertEquals(0.36, q[1], 1e-12);
+
+		kernel.toCommonality(m);
+		kernel.toMass(m);
+		assertEquals(0.2, m[1], 1e-12);
+		assertEquals(0.1, m[2], 1e-12);
+		assertEquals(0, m[3], 1e-12);
+		assertEquals(0.4, m[7], 1e-12);
+	}
+
+}
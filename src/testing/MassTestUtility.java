@@ -0,0 +1,103 @@
+package testing;
+
+import interfaces.IElement;
+import interfaces.IFocalElement;
+import interfaces.IHypothesis;
+
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+import massDistribution.JointMassDistribution;
+import massDistribution.MassDistribution;
+import core.Element;
+import core.FocalElement;
+import core.FrameOfDiscernment;
+import core.Hypothesis;
+
+/**
+ * Builds the frames, the elements and the masses of the tests from short
+ * strings, where each hypothesis is identified by a single character: the
+ * element "AB" is made of the hypothesies A and B.
+ *
+ * @author Elisa Costante
+ *
+ */
+class MassTestUtility {
+
+	/**
+	 * @param size
+	 * @return the frame made of the first <code>size</code> letters, A, B, C
+	 *         and so on.
+	 */
+	static FrameOfDiscernment newFrame(int size) {
+		ArrayList<IHypothesis> hypothesies = new ArrayList<IHypothesis>();
+		for (int i = 0; i < size; i++) {
+			hypothesies.add(new Hypothesis(String.valueOf((char) ('A' + i))));
+		}
+		return new FrameOfDiscernment(hypothesies);
+	}
+
+	/**
+	 * @param identifiers
+	 *            : the identifier of each hypothesis, one character each.
+	 * @return a new element which is not canonical.
+	 */
+	static Element newElement(String identifiers) {
+		ArrayList<IHypothesis> hypothesies = new ArrayList<IHypothesis>();
+		for (char identifier : identifiers.toCharArray()) {
+			hypothesies.add(new Hypothesis(String.valueOf(identifier)));
+		}
+		return new Element(hypothesies);
+	}
+
+	/**
+	 * @param focalElements
+	 *            : the identifiers of the hypothesies of each focal element,
+	 *            followed by its bpa.
+	 * @return a new mass.
+	 */
+	static MassDistribution newMass(Object... focalElements) {
+		ArrayList<IFocalElement> bodyOfEvidence = new ArrayList<IFocalElement>();
+		for (int i = 0; i < focalElements.length; i = i + 2) {
+			bodyOfEvidence.add(new FocalElement(
+					newElement((String) focalElements[i]),
+					(Double) focalElements[i + 1]));
+		}
+		return new MassDistribution(bodyOfEvidence);
+	}
+
+	/**
+	 * @return the bpa of the <code>element</code> in the <code>mass</code>, 0
+	 *         if it is not a focal element.
+	 */
+	static double getBpa(MassDistribution mass, IElement element) {
+		double bpa = 0;
+		for (IFocalElement focalElement : mass.getBodyOfEvidence()) {
+			if (focalElement.getElement().equals(element))
+				bpa = bpa + focalElement.getBpa();
+		}
+		return bpa;
+	}
+
+	static double getBpa(MassDistribution mass, String element) {
+		return getBpa(mass, newElement(element));
+	}
+
+	/**
+	 * Asserts that the two masses have the same operator and the same bpa for
+	 * each focal element of either of them.
+	 */
+	static void assertSameMass(JointMassDistribution expected,
+			JointMassDistribution actual) {
+		TestCase.assertEquals(expected.getOperator(), actual.getOperator());
+		for (IFocalElement focalElement : expected.getBodyOfEvidence()) {
+			TestCase.assertEquals(getBpa(expected, focalElement.getElement()),
+					getBpa(actual, focalElement.getElement()), 1e-9);
+		}
+		for (IFocalElement focalElement : actual.getBodyOfEvidence()) {
+			TestCase.assertEquals(getBpa(expected, focalElement.getElement()),
+					getBpa(actual, focalElement.getElement()), 1e-9);
+		}
+	}
+
+}
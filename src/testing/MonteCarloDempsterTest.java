@@ -0,0 +1,62 @@
+package testing;
+
+import interfaces.IFocalElement;
+
+import java.util.ArrayList;
+
+import joint.JointManager;
+import joint.MonteCarloDempster;
+import joint.MonteCarloEstimate;
+import junit.framework.TestCase;
+import massDistribution.JointMassDistribution;
+import massDistribution.MassDistribution;
+
+/**
+ * @author Elisa Costante
+ *
+ */
+public class MonteCarloDempsterTest extends TestCase {
+
+	private ArrayList<MassDistribution> masses;
+	private String filename = "test2.txt";
+
+	public MonteCarloDempsterTest(String name) {
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		masses = new ArrayList<MassDistribution>();
+		ReadTestUtility.readInput(filename, masses);
+	}
+
+	private MonteCarloEstimate estimate(long seed) throws Exception {
+		MonteCarloDempster monteCarlo = new MonteCarloDempster(seed);
+		monteCarlo.setThreads(2);
+		monteCarlo.setBatchSize(5000);
+		monteCarlo.setTargetError(0.005);
+		return monteCarlo.combine(masses, null);
+	}
+
+	public void testEstimateIsCloseToDempster() throws Exception {
+		MonteCarloEstimate estimate = estimate(42);
+		JointMassDistribution exact = JointManager.dempsterJoint(masses, null);
+
+		assertTrue(estimate.getMaxHalfWidth() <= 0.005);
+		for (IFocalElement focalElement : exact.getBodyOfEvidence()) {
+			double bpa = estimate.getBpa(focalElement.getElement());
+			// three half-widths, so the test fails very rarely by chance
+			assertEquals(focalElement.getBpa(), bpa, 3 * 0.005);
+		}
+	}
+
+	public void testSameSeedGivesSameEstimate() throws Exception {
+		MonteCarloEstimate first = estimate(7);
+		MonteCarloEstimate second = estimate(7);
+
+		assertEquals(first.getSamples(), second.getSamples());
+		assertEquals(first.getAcceptedSamples(), second.getAcceptedSamples());
+		assertEquals(first.getMass(), second.getMass());
+	}
+
+}
@@ -4,6 +4,7 @@ import interfaces.IFocalElement;
 import interfaces.IHypothesis;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -13,6 +14,7 @@ import java.util.StringTokenizer;
 
 import massDistribution.JointMassDistribution;
 import massDistribution.MassDistribution;
+import utilities.EventTracer;
 import core.Element;
 import core.FocalElement;
 import core.FrameOfDiscernment;
@@ -30,6 +32,26 @@ public class ReadTestUtility {
 	public static void readInput(String filename,
 			ArrayList<MassDistribution> masses) {
 
+		Object event = EventTracer.getInstance().beginParsing();
+		int first = masses.size();
+		readMasses(filename, masses);
+		if (event != null) {
+			int read = 0;
+			int focalElements = 0;
+			for (int i = first; i < masses.size(); i++) {
+				if (masses.get(i) != null) {
+					read++;
+					focalElements = focalElements
+							+ masses.get(i).getBodyOfEvidence().size();
+				}
+			}
+			EventTracer.getInstance().endParsing(event, filename,
+					new File(filename).length(), read, focalElements);
+		}
+	}
+
+	private static void readMasses(String filename,
+			ArrayList<MassDistribution> masses) {
 		BufferedReader br = null;
 		try {
 			br = new BufferedReader(new InputStreamReader(new FileInputStream(
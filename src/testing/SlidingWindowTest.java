@@ -0,0 +1,131 @@
+package testing;
+
+import java.util.ArrayList;
+
+import joint.JointManager;
+import joint.JointOperator;
+import joint.SlidingWindow;
+import junit.framework.TestCase;
+import massDistribution.JointMassDistribution;
+import massDistribution.MassDistribution;
+import core.FrameOfDiscernment;
+import exception.JointNotPossibleException;
+
+/**
+ * @author Elisa Costante
+ *
+ */
+public class SlidingWindowTest extends TestCase {
+
+	private FrameOfDiscernment frame;
+
+	public SlidingWindowTest(String name) {
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		frame = MassTestUtility.newFrame(3);
+	}
+
+	/**
+	 * The last mass overlaps the others, {B} is the intersection of {AB} and
+	 * {BC}.
+	 */
+	private ArrayList<MassDistribution> newMasses() {
+		ArrayList<MassDistribution> masses = new ArrayList<MassDistribution>();
+		masses.add(MassTestUtility.newMass("A", 0.6, "ABC", 0.4));
+		masses.add(MassTestUtility.newMass("B", 0.5, "ABC", 0.5));
+		masses.add(MassTestUtility.newMass("A", 0.3, "AB", 0.3, "ABC", 0.4));
+		masses.add(MassTestUtility.newMass("AB", 0.7, "ABC", 0.3));
+		masses.add(MassTestUtility.newMass("A", 0.1, "B", 0.2, "ABC", 0.7));
+		masses.add(MassTestUtility.newMass("B", 0.4, "AB", 0.4, "ABC", 0.2));
+		masses.add(MassTestUtility.newMass("A", 0.8, "ABC", 0.2));
+		masses.add(MassTestUtility.newMass("AB", 0.5, "BC", 0.3, "ABC", 0.2));
+		return masses;
+	}
+
+	private void checkCountWindow(JointOperator operator) throws Exception {
+		SlidingWindow window = new SlidingWindow(operator, frame);
+		window.setMaxSize(3);
+		for (MassDistribution mass : newMasses()) {
+			window.addSource(mass);
+			if (window.size() > 1) {
+				MassTestUtility.assertSameMass(JointManager.applyOperator(
+						window.getMasses(), operator, frame), window
+						.getJoint());
+			}
+		}
+		assertEquals(3, window.size());
+	}
+
+	public void testDempsterCountWindow() throws Exception {
+		checkCountWindow(JointOperator.DEMPSTER);
+	}
+
+	public void testYagerCountWindow() throws Exception {
+		checkCountWindow(JointOperator.YAGER);
+	}
+
+	public void testAverageCountWindow() throws Exception {
+		checkCountWindow(JointOperator.AVERAGE);
+	}
+
+	public void testTimeWindow() throws Exception {
+		ArrayList<MassDistribution> masses = newMasses();
+		SlidingWindow window = new SlidingWindow(JointOperator.DEMPSTER, frame);
+		window.setMaxAge(10);
+		window.addSource(masses.get(0), 0);
+		window.addSource(masses.get(1), 5);
+		window.addSource(masses.get(2), 9);
+		assertEquals(3, window.size());
+
+		// the mass of time 0 is evicted at time 10
+		window.addSource(masses.get(3), 10);
+		assertEquals(3, window.size());
+		assertEquals(masses.get(1), window.getMasses().get(0));
+		MassTestUtility.assertSameMass(JointManager.applyOperator(window
+				.getMasses(), JointOperator.DEMPSTER, frame), window
+				.getJoint());
+
+		window.advanceTo(19);
+		assertEquals(1, window.size());
+		try {
+			window.getJoint();
+			fail("A window of one mass cannot be combined");
+		} catch (JointNotPossibleException e) {
+			// expected
+		}
+		try {
+			window.addSource(masses.get(4), 18);
+			fail("The times of the masses must not decrease");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	public void testTotalConflict() throws Exception {
+		SlidingWindow window = new SlidingWindow(JointOperator.DEMPSTER, frame);
+		window.addSource(MassTestUtility.newMass("A", 1.0));
+		window.addSource(MassTestUtility.newMass("B", 1.0));
+		assertEquals(Double.POSITIVE_INFINITY, window.getJoint()
+				.getLogConflict());
+
+		// the conflicting mass leaves the window
+		window.removeOldest();
+		window.addSource(MassTestUtility.newMass("B", 0.5, "ABC", 0.5));
+		JointMassDistribution joint = window.getJoint();
+		assertEquals(1.0, MassTestUtility.getBpa(joint, "B"), 1e-12);
+		assertEquals(0.0, joint.getLogConflict(), 1e-12);
+	}
+
+	public void testDistanceNotSupported() {
+		try {
+			new SlidingWindow(JointOperator.DISTANCE, frame);
+			fail("The Distance Evidence operator is not associative");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+}
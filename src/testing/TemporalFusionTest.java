@@ -0,0 +1,222 @@
+package testing;
+
+import java.util.ArrayList;
+
+import joint.Discounting;
+import joint.JointManager;
+import joint.JointMetrics;
+import joint.JointOperator;
+import joint.TemporalFusion;
+import junit.framework.TestCase;
+import massDistribution.JointMassDistribution;
+import massDistribution.MassDistribution;
+import core.FrameOfDiscernment;
+import exception.JointNotPossibleException;
+
+/**
+ * @author Elisa Costante
+ *
+ */
+public class TemporalFusionTest extends TestCase {
+
+	private FrameOfDiscernment frame;
+
+	public TemporalFusionTest(String name) {
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		frame = MassTestUtility.newFrame(3);
+	}
+
+	public void testDiscount() {
+		MassDistribution mass = Discounting.discount(MassTestUtility.newMass(
+				"A", 0.6, "AB", 0.2, "ABC", 0.2), 0.5, frame);
+		assertEquals(0.3, MassTestUtility.getBpa(mass, "A"), 1e-12);
+		assertEquals(0.1, MassTestUtility.getBpa(mass, "AB"), 1e-12);
+		assertEquals(0.6, MassTestUtility.getBpa(mass, "ABC"), 1e-12);
+
+		mass = Discounting.discount(MassTestUtility.newMass("B", 1.0), 0.8,
+				frame);
+		assertEquals(0.8, MassTestUtility.getBpa(mass, "B"), 1e-12);
+		assertEquals(0.2, MassTestUtility.getBpa(mass, "ABC"), 1e-12);
+		assertEquals(0.25, Discounting.getReliability(20, 10), 1e-12);
+	}
+
+	public void testAverage() throws Exception {
+		MassDistribution m1 = MassTestUtility.newMass("A", 0.6, "ABC", 0.4);
+		MassDistribution m2 = MassTestUtility.newMass("B", 1.0);
+		MassDistribution m3 = MassTestUtility.newMass("AB", 0.5, "C", 0.5);
+
+		TemporalFusion fusion = new TemporalFusion(JointOperator.AVERAGE,
+				frame, 10);
+		// the masses do not need to be added in order of time
+		fusion.addSource("x", m2, 10);
+		fusion.addSource("x", m3, 20);
+		fusion.addSource("x", m1, 0);
+		assertEquals(3, fusion.size("x"));
+		assertEquals(20, fusion.getTime("x"));
+
+		ArrayList<MassDistribution> discounted = new ArrayList<MassDistribution>();
+		discounted.add(Discounting.discount(m1, 0.125, frame));
+		discounted.add(Discounting.discount(m2, 0.25, frame));
+		discounted.add(Discounting.discount(m3, 0.5, frame));
+		MassTestUtility.assertSameMass(JointManager.averageJoint(discounted,
+				frame), fusion.getJoint("x", 30));
+	}
+
+	public void testDempster() throws Exception {
+		ArrayList<MassDistribution> masses = new ArrayList<MassDistribution>();
+		masses.add(MassTestUtility.newMass("A", 0.5, "AB", 0.3, "ABC", 0.2));
+		masses.add(MassTestUtility.newMass("AB", 0.6, "ABC", 0.4));
+		MassDistribution c = MassTestUtility.newMass("C", 0.99, "ABC", 0.01);
+
+		TemporalFusion fusion = new TemporalFusion(JointOperator.DEMPSTER,
+				frame, 10);
+		fusion.addSource("x", masses.get(0), 5);
+		fusion.addSource("x", masses.get(1), 5);
+		fusion.addSource("y", MassTestUtility.newMass("B", 0.6, "ABC", 0.4),
+				0);
+
+		// without decay the result is Dempster's combination
+		MassTestUtility.assertSameMass(JointManager.dempsterJoint(masses,
+				frame), fusion.getJoint("x", 5));
+
+		// after a half-life the mass of y is discounted by 0.5
+		JointMassDistribution decayed = fusion.getJoint("y", 10);
+		assertEquals(0.3, MassTestUtility.getBpa(decayed, "B"), 1e-12);
+		assertEquals(0.7, MassTestUtility.getBpa(decayed, "ABC"), 1e-12);
+
+		// the masses are discounted by their own age before the combination
+		fusion.addSource("x", c, 15);
+		masses.set(0, Discounting.discount(masses.get(0), 0.25, frame));
+		masses.set(1, Discounting.discount(masses.get(1), 0.25, frame));
+		masses.add(Discounting.discount(c, 0.5, frame));
+		JointMassDistribution expected = JointManager.dempsterJoint(masses,
+				frame);
+		JointMassDistribution joint = fusion.getJoint("x", 25);
+		MassTestUtility.assertSameMass(expected, joint);
+		assertEquals(expected.getLogConflict(), joint.getLogConflict(), 1e-9);
+	}
+
+	public void testDempsterFoldsTheNewMasses() throws Exception {
+		ArrayList<MassDistribution> masses = new ArrayList<MassDistribution>();
+		masses.add(MassTestUtility.newMass("A", 0.5, "AB", 0.3, "ABC", 0.2));
+		masses.add(MassTestUtility.newMass("AB", 0.6, "ABC", 0.4));
+		masses.add(MassTestUtility.newMass("B", 0.4, "BC", 0.3, "ABC", 0.3));
+		masses.add(MassTestUtility.newMass("C", 0.2, "ABC", 0.8));
+
+		TemporalFusion fusion = new TemporalFusion(JointOperator.DEMPSTER,
+				frame, 10);
+		fusion.addSource("x", masses.get(0), 0);
+		fusion.addSource("x", masses.get(1), 10);
+		fusion.getJoint("x", 10);
+
+		JointMetrics metrics = JointMetrics.getInstance();
+		boolean enabled = metrics.isEnabled();
+		metrics.setEnabled(true);
+		metrics.reset();
+		try {
+			// the masses of the same step are combined with the state
+			fusion.addSource("x", masses.get(2), 10);
+			fusion.addSource("x", masses.get(3), 5);
+			JointMassDistribution joint = fusion.getJoint("x", 10);
+			assertEquals(2, metrics.getCombinations());
+
+			ArrayList<MassDistribution> discounted = new ArrayList<MassDistribution>();
+			discounted.add(Discounting.discount(masses.get(0), 0.5, frame));
+			discounted.add(masses.get(1));
+			discounted.add(masses.get(2));
+			discounted.add(Discounting.discount(masses.get(3), Math.sqrt(0.5),
+					frame));
+			JointMassDistribution expected = JointManager.dempsterJoint(
+					discounted, frame);
+			MassTestUtility.assertSameMass(expected, joint);
+			assertEquals(expected.getLogConflict(), joint.getLogConflict(),
+					1e-9);
+
+			// a combination in the same step does not combine again
+			long combinations = metrics.getCombinations();
+			MassTestUtility.assertSameMass(joint, fusion.getJoint("x", 10));
+			assertEquals(combinations, metrics.getCombinations());
+		} finally {
+			metrics.reset();
+			metrics.setEnabled(enabled);
+		}
+	}
+
+	public void testDempsterStep() throws Exception {
+		TemporalFusion fusion = new TemporalFusion(JointOperator.DEMPSTER,
+				frame, 10, 5);
+		assertEquals(5, fusion.getStep());
+		assertEquals(1, new TemporalFusion(JointOperator.DEMPSTER, frame, 10)
+				.getStep());
+
+		// the times are rounded down to a multiple of the step
+		fusion.addSource("x", MassTestUtility.newMass("A", 0.8, "ABC", 0.2), 1);
+		assertEquals(0.8, MassTestUtility.getBpa(fusion.getJoint("x", 4), "A"),
+				1e-12);
+		assertEquals(0.8 * Math.sqrt(0.5), MassTestUtility.getBpa(fusion
+				.getJoint("x", 9), "A"), 1e-12);
+		assertEquals(0.4, MassTestUtility.getBpa(fusion.getJoint("x", 10),
+				"A"), 1e-12);
+	}
+
+	public void testDogmaticMass() throws Exception {
+		TemporalFusion fusion = new TemporalFusion(JointOperator.DEMPSTER,
+				frame, 10);
+		fusion.addSource("x", MassTestUtility.newMass("A", 0.99, "ABC", 0.01),
+				0);
+		assertEquals(0.495, MassTestUtility.getBpa(fusion.getJoint("x", 10),
+				"A"), 1e-12);
+
+		fusion.addSource("y", MassTestUtility.newMass("A", 1.0), 0);
+		fusion.addSource("y", MassTestUtility.newMass("A", 0.5, "B", 0.5), 10);
+		JointMassDistribution joint = fusion.getJoint("y", 10);
+		// {A}-0.5 {ABC}-0.5 combined with {A}-0.5 {B}-0.5
+		assertEquals(2.0 / 3, MassTestUtility.getBpa(joint, "A"), 1e-12);
+		assertEquals(1.0 / 3, MassTestUtility.getBpa(joint, "B"), 1e-12);
+
+		fusion.addSource("z", MassTestUtility.newMass("B", 1.0), 0);
+		joint = fusion.getJoint("z", 10);
+		assertEquals(0.5, MassTestUtility.getBpa(joint, "B"), 1e-12);
+		assertEquals(0.5, MassTestUtility.getBpa(joint, "ABC"), 1e-12);
+
+		// a mass which is almost vacuous is dropped
+		fusion.addSource("z", MassTestUtility.newMass("C", 1.0), 200);
+		assertEquals(2, fusion.size("z"));
+		joint = fusion.getJoint("z", 200);
+		assertEquals(1, MassTestUtility.getBpa(joint, "C"), 1e-12);
+		assertEquals(0, MassTestUtility.getBpa(joint, "B"), 1e-12);
+	}
+
+	public void testTotalConflict() throws Exception {
+		TemporalFusion fusion = new TemporalFusion(JointOperator.DEMPSTER,
+				frame, 10);
+		fusion.addSource("x", MassTestUtility.newMass("A", 1.0), 0);
+		fusion.addSource("x", MassTestUtility.newMass("B", 1.0), 0);
+		JointMassDistribution joint = fusion.getJoint("x", 0);
+		assertEquals(Double.POSITIVE_INFINITY, joint.getLogConflict());
+		fusion.addSource("x", MassTestUtility.newMass("C", 0.5, "ABC", 0.5),
+				0);
+		assertEquals(Double.POSITIVE_INFINITY, fusion.getJoint("x", 0)
+				.getLogConflict());
+
+		// the discounted masses do not conflict totally
+		joint = fusion.getJoint("x", 10);
+		assertEquals(0.3, MassTestUtility.getBpa(joint, "ABC"), 1e-12);
+	}
+
+	public void testNoMass() throws Exception {
+		TemporalFusion fusion = new TemporalFusion(JointOperator.DEMPSTER,
+				frame, 10);
+		try {
+			fusion.getJoint("x", 0);
+			fail("The entity has no mass");
+		} catch (JointNotPossibleException e) {
+			// expected
+		}
+	}
+
+}
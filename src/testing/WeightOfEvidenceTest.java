@@ -0,0 +1,104 @@
+package testing;
+
+import interfaces.IFocalElement;
+
+import java.util.ArrayList;
+
+import joint.JointManager;
+import joint.WeightOfEvidence;
+import junit.framework.TestCase;
+import massDistribution.JointMassDistribution;
+import massDistribution.MassDistribution;
+import core.FrameOfDiscernment;
+
+/**
+ * @author Elisa Costante
+ *
+ */
+public class WeightOfEvidenceTest extends TestCase {
+
+	private FrameOfDiscernment frame;
+
+	public WeightOfEvidenceTest(String name) {
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		frame = MassTestUtility.newFrame(3);
+	}
+
+	public void testSimpleSupport() {
+		WeightOfEvidence weightOfEvidence = WeightOfEvidence.fromMass(
+				MassTestUtility.newMass("AB", 0.6, "ABC", 0.4), frame);
+
+		assertEquals(1, weightOfEvidence.size());
+		assertEquals(-Math.log(0.4), weightOfEvidence
+				.getWeight(MassTestUtility.newElement("AB")), 1e-12);
+		assertTrue(weightOfEvidence.isSeparable());
+
+		JointMassDistribution mass = weightOfEvidence.toJointMassDistribution();
+		assertEquals(0.6, MassTestUtility.getBpa(mass, "AB"), 1e-12);
+		assertEquals(0.4, MassTestUtility.getBpa(mass, "ABC"), 1e-12);
+	}
+
+	public void testDogmaticMass() {
+		try {
+			WeightOfEvidence.fromMass(MassTestUtility.newMass("A", 0.6, "B",
+					0.4), frame);
+			fail("A dogmatic mass has no weights of evidence");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	public void testRoundTrip() {
+		MassDistribution general = MassTestUtility.newMass("A", 0.2, "AB",
+				0.1, "BC", 0.3, "ABC", 0.4);
+		WeightOfEvidence weightOfEvidence = WeightOfEvidence.fromMass(general,
+				frame);
+		assertFalse(weightOfEvidence.isSeparable());
+
+		JointMassDistribution mass = weightOfEvidence.toJointMassDistribution();
+		assertEquals(0.2, MassTestUtility.getBpa(mass, "A"), 1e-9);
+		assertEquals(0.1, MassTestUtility.getBpa(mass, "AB"), 1e-9);
+		assertEquals(0.3, MassTestUtility.getBpa(mass, "BC"), 1e-9);
+		assertEquals(0.4, MassTestUtility.getBpa(mass, "ABC"), 1e-9);
+		assertEquals(0, MassTestUtility.getBpa(mass, "B"), 1e-9);
+	}
+
+	public void testWeightOfEvidenceJoint() throws Exception {
+		ArrayList<MassDistribution> masses = new ArrayList<MassDistribution>();
+		masses.add(MassTestUtility.newMass("A", 0.5, "AB", 0.3, "ABC", 0.2));
+		masses.add(MassTestUtility.newMass("AB", 0.6, "ABC", 0.4));
+		masses.add(MassTestUtility.newMass("A", 0.1, "ABC", 0.9));
+
+		JointMassDistribution expected = JointManager.dempsterJoint(masses,
+				frame);
+		JointMassDistribution joint = JointManager.weightOfEvidenceJoint(
+				masses, frame);
+
+		assertEquals(expected.getOperator(), joint.getOperator());
+		for (IFocalElement focalElement : expected.getBodyOfEvidence()) {
+			assertEquals(focalElement.getBpa(), MassTestUtility.getBpa(joint,
+					focalElement.getElement()), 1e-9);
+		}
+	}
+
+	public void testSparseFrame() throws Exception {
+		// the frame is too big for a dense mass, {B} is not a focal element of
+		// the masses but it is their intersection
+		FrameOfDiscernment big = MassTestUtility.newFrame(21);
+		WeightOfEvidence weightOfEvidence = new WeightOfEvidence(big);
+		weightOfEvidence.add(MassTestUtility.newElement("AB"), -Math.log(0.4));
+		weightOfEvidence.add(MassTestUtility.newElement("BC"), -Math.log(0.5));
+
+		JointMassDistribution mass = weightOfEvidence.toJointMassDistribution();
+		assertEquals(0.3, MassTestUtility.getBpa(mass, "B"), 1e-12);
+		assertEquals(0.3, MassTestUtility.getBpa(mass, "AB"), 1e-12);
+		assertEquals(0.2, MassTestUtility.getBpa(mass, "BC"), 1e-12);
+		assertEquals(0.2, MassTestUtility.getBpa(mass, big.getUniversalSet()),
+				1e-12);
+	}
+
+}
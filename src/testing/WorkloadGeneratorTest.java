@@ -0,0 +1,147 @@
+package testing;
+
+import interfaces.IFocalElement;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+import massDistribution.ClassAttributeMap;
+import massDistribution.MassDistribution;
+import massDistribution.MassShape;
+import utilities.DoubleUtility;
+import utilities.MassDistributionFileHandler;
+import utilities.WorkloadGenerator;
+import core.FrameOfDiscernment;
+import core.SourceOfEvidence;
+
+/**
+ * @author Elisa Costante
+ *
+ */
+public class WorkloadGeneratorTest extends TestCase {
+
+	public WorkloadGeneratorTest(String name) {
+		super(name);
+	}
+
+	public void testSameSeedSameWorkload() throws IOException {
+		assertEquals(newScenario(7), newScenario(7));
+		assertFalse(newScenario(7).equals(newScenario(8)));
+	}
+
+	public void testShapes() {
+		for (MassShape shape : MassShape.values()) {
+			WorkloadGenerator generator = new WorkloadGenerator(1);
+			generator.setHypothesies(6);
+			generator.setFocalElements(5);
+			generator.setShape(shape);
+			FrameOfDiscernment frame = generator.newFrame();
+			for (MassDistribution mass : generator.newMasses(frame, 20)) {
+				assertTrue(mass.isValid());
+				assertTrue(mass.getBodyOfEvidence().size() <= 5);
+				if (shape != MassShape.GENERAL)
+					assertEquals(shape, mass.getShape());
+			}
+		}
+	}
+
+	/**
+	 * The focal elements which do not contain the target hypothesis share
+	 * the conflict: a single hypothesis is in all the masses with the same
+	 * bpa.
+	 */
+	public void testConflict() {
+		WorkloadGenerator generator = new WorkloadGenerator(3);
+		generator.setHypothesies(5);
+		generator.setFocalElements(3);
+		generator.setShape(MassShape.BAYESIAN);
+		generator.setConflict(0.2);
+		FrameOfDiscernment frame = generator.newFrame();
+		ArrayList<MassDistribution> masses = generator.newMasses(frame, 10);
+		IFocalElement target = masses.get(0).getBodyOfEvidence().get(0);
+		for (MassDistribution mass : masses) {
+			IFocalElement first = mass.getBodyOfEvidence().get(0);
+			assertEquals(target.getElement(), first.getElement());
+			assertEquals(0.8, first.getBpa(), DoubleUtility.EPSILON);
+		}
+	}
+
+	public void testSources() {
+		WorkloadGenerator generator = new WorkloadGenerator(5);
+		generator.setHypothesies(4);
+		generator.setAttributes(6);
+		generator.setMeasuredFraction(0.5);
+		FrameOfDiscernment frame = generator.newFrame();
+		ClassAttributeMap map = generator.newClassAttributeMap(frame);
+		assertEquals(6, map.getAllAttributes().size());
+
+		ArrayList<SourceOfEvidence> sources = generator.newSources(frame, map,
+				10);
+		assertEquals(10, sources.size());
+		for (SourceOfEvidence source : sources) {
+			assertTrue(source.getMeasuredAttributes().size() <= 6);
+			MassDistribution mass = source.getMassDistribution(frame, map);
+			assertTrue(mass.isValid());
+			for (IFocalElement focal : mass.getBodyOfEvidence()) {
+				// each measured value is in a range of a hypothesis
+				assertFalse(focal.getElement().getHypothesies().isEmpty());
+			}
+		}
+	}
+
+	public void testReadWrittenFiles() throws IOException {
+		WorkloadGenerator generator = new WorkloadGenerator(11);
+		FrameOfDiscernment frame = generator.newFrame();
+		ArrayList<MassDistribution> masses = generator.newMasses(frame, 5);
+
+		File scenario = File.createTempFile("scenario", ".txt");
+		scenario.deleteOnExit();
+		Writer writer = new FileWriter(scenario);
+		WorkloadGenerator.writeScenario(frame, masses, writer);
+		writer.close();
+		ArrayList<MassDistribution> read = new ArrayList<MassDistribution>();
+		ReadTestUtility.readInput(scenario.getPath(), read);
+		assertEquals(masses.size(), read.size());
+		for (int i = 0; i < masses.size(); i++) {
+			assertSameMass(masses.get(i), read.get(i));
+		}
+
+		File mass = File.createTempFile("mass", ".txt");
+		mass.deleteOnExit();
+		writer = new FileWriter(mass);
+		WorkloadGenerator.writeMass(masses.get(0), writer);
+		writer.close();
+		assertSameMass(masses.get(0), new MassDistributionFileHandler()
+				.getMassDistribution(mass.getPath()));
+	}
+
+	private static String newScenario(long seed) throws IOException {
+		WorkloadGenerator generator = new WorkloadGenerator(seed);
+		generator.setConflict(0.5);
+		FrameOfDiscernment frame = generator.newFrame();
+		StringWriter writer = new StringWriter();
+		WorkloadGenerator.writeScenario(frame, generator.newMasses(frame, 20),
+				writer);
+		return writer.toString();
+	}
+
+	private static void assertSameMass(MassDistribution expected,
+			MassDistribution actual) {
+		assertNotNull(actual);
+		assertEquals(expected.getBodyOfEvidence().size(), actual
+				.getBodyOfEvidence().size());
+		for (int i = 0; i < expected.getBodyOfEvidence().size(); i++) {
+			IFocalElement expectedFocal = expected.getBodyOfEvidence().get(i);
+			IFocalElement actualFocal = actual.getBodyOfEvidence().get(i);
+			assertEquals(expectedFocal.getElement().toString(), actualFocal
+					.getElement().toString());
+			assertEquals(expectedFocal.getBpa(), actualFocal.getBpa(), 1e-12);
+		}
+	}
+
+}
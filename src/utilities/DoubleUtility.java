@@ -26,7 +26,7 @@ public class DoubleUtility {
 	 * @return
 	 */
 	public static boolean areEqualsDouble(double a, double b, double epsilon) {
-		if (Math.abs(b - epsilon) <= a && a <= Math.abs(b + epsilon))
+		if (Math.abs(a - b) <= epsilon)
 			return true;
 		else
 			return false;
@@ -0,0 +1,153 @@
+package utilities;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Emits the events of the hot paths of the library: the combinations of
+ * {@link joint.JointManager}, the masses computed by
+ * {@link core.SourceOfEvidence} and the parsing of the files. Each event is
+ * started by a <code>begin</code> method, which returns the event or null if
+ * it is not recorded, and is completed by the matching <code>end</code>
+ * method, which the callers skip (with the work to compute its fields) when
+ * the event is null.<br>
+ * This class records nothing, so the events cost a call which returns null.
+ * If the system property {@value #JFR_PROPERTY} is <code>true</code>
+ * {@link #getInstance()} returns instead the tracer which emits Java Flight
+ * Recorder events (<code>JfrEventTracer</code>, in the <code>src-jfr</code>
+ * source folder, which needs Java 11 and is built by the
+ * <code>compile-jfr</code> target of <code>build.xml</code>); it is loaded
+ * by reflection, so the rest of the library does not depend on the
+ * <code>jdk.jfr</code> module. If it cannot be loaded, the reason is logged
+ * and no event is recorded.
+ *
+ * @author Elisa Costante
+ *
+ */
+public class EventTracer {
+
+	public static final String JFR_PROPERTY = "dempstershafer.jfr";
+
+	private static final String JFR_TRACER = "utilities.JfrEventTracer";
+
+	private static final EventTracer instance = load();
+
+	/**
+	 * @return the tracer of the library.
+	 */
+	public static EventTracer getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Starts the event of a combination of masses.
+	 *
+	 * @return the event, or null if it is not recorded.
+	 */
+	public Object beginCombination() {
+		return null;
+	}
+
+	/**
+	 * Completes the event of a combination.
+	 *
+	 * @param event
+	 *            : the event returned by {@link #beginCombination()}.
+	 * @param operator
+	 *            : the name of the operator, or of the operators separated by
+	 *            commas if they were computed together.
+	 * @param sources
+	 *            : the combined masses.
+	 * @param inputFocalElements
+	 *            : the focal elements of the combined masses.
+	 * @param outputFocalElements
+	 *            : the focal elements of the result.
+	 * @param conflict
+	 *            : the conflict between the masses, or {@link Double#NaN} if
+	 *            the operator does not compute it.
+	 */
+	public void endCombination(Object event, String operator, int sources,
+			int inputFocalElements, int outputFocalElements, double conflict) {
+	}
+
+	/**
+	 * Starts the event of the computation of the mass of a source.
+	 *
+	 * @return the event, or null if it is not recorded.
+	 */
+	public Object beginSourceMass() {
+		return null;
+	}
+
+	/**
+	 * Completes the event of the computation of the mass of a source.
+	 *
+	 * @param event
+	 *            : the event returned by {@link #beginSourceMass()}.
+	 * @param source
+	 *            : the name of the source.
+	 * @param attributes
+	 *            : the classification attributes.
+	 * @param focalElements
+	 *            : the focal elements of the mass.
+	 */
+	public void endSourceMass(Object event, String source, int attributes,
+			int focalElements) {
+	}
+
+	/**
+	 * Starts the event of the parsing of a file.
+	 *
+	 * @return the event, or null if it is not recorded.
+	 */
+	public Object beginParsing() {
+		return null;
+	}
+
+	/**
+	 * Completes the event of the parsing of a file.
+	 *
+	 * @param event
+	 *            : the event returned by {@link #beginParsing()}.
+	 * @param file
+	 *            : the name of the file.
+	 * @param bytes
+	 *            : the size of the file.
+	 * @param masses
+	 *            : the masses read.
+	 * @param focalElements
+	 *            : the focal elements of the masses read.
+	 */
+	public void endParsing(Object event, String file, long bytes, int masses,
+			int focalElements) {
+	}
+
+	/**
+	 * @return the name of the tracer.
+	 */
+	public String getName() {
+		return "none";
+	}
+
+	@Override
+	public String toString() {
+		return getName();
+	}
+
+	private static EventTracer load() {
+		if (Boolean.getBoolean(JFR_PROPERTY)) {
+			try {
+				return (EventTracer) Class.forName(JFR_TRACER)
+						.getDeclaredConstructor().newInstance();
+			} catch (Throwable e) {
+				// the class or the jdk.jfr module is missing, or the class was
+				// compiled for a newer Java version: no event is recorded
+				Logger.getLogger(EventTracer.class.getName()).log(
+						Level.WARNING,
+						"The Flight Recorder events are disabled", e);
+			}
+		}
+		return new EventTracer();
+	}
+
+}
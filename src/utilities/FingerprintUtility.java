@@ -0,0 +1,74 @@
+package utilities;
+
+/**
+ * This class supplies the 64-bit hash functions used to compute the content
+ * fingerprints of elements and masses.
+ *
+ * @author Elisa Costante
+ *
+ */
+public class FingerprintUtility {
+
+	/**
+	 * The bpa are rounded to a multiple of this value before being hashed, so
+	 * that the fingerprint does not depend on the last digits of the
+	 * computation.
+	 */
+	public static final double BPA_QUANTUM = 1e-9;
+
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	/**
+	 * Returns the 64-bit FNV-1a hash of the <code>string</code>.
+	 *
+	 * @param string
+	 * @return the hash of the string.
+	 */
+	public static long hash(String string) {
+		long hash = FNV_OFFSET;
+		if (string != null) {
+			for (int i = 0; i < string.length(); i++) {
+				hash ^= string.charAt(i);
+				hash *= FNV_PRIME;
+			}
+		}
+		return hash;
+	}
+
+	/**
+	 * Scrambles the bits of <code>value</code> (finalizer of SplitMix64). The
+	 * sum of mixed values is used to combine unordered collections.
+	 *
+	 * @param value
+	 * @return the mixed value.
+	 */
+	public static long mix(long value) {
+		long z = value;
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Combines two hashes in an order dependent way.
+	 *
+	 * @param hash1
+	 * @param hash2
+	 * @return the combined hash.
+	 */
+	public static long combine(long hash1, long hash2) {
+		return mix(hash1 * 31 + hash2);
+	}
+
+	/**
+	 * Returns the <code>bpa</code> rounded to a multiple of
+	 * {@link #BPA_QUANTUM}.
+	 *
+	 * @param bpa
+	 * @return the number of quantums of the bpa.
+	 */
+	public static long quantize(double bpa) {
+		return Math.round(bpa / BPA_QUANTUM);
+	}
+}
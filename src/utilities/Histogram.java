@@ -0,0 +1,152 @@
+package utilities;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts the recorded values in buckets with fixed upper bounds. As in
+ * {@link StripedCounter}, each thread records into its own stripe of the
+ * buckets, so recording does not contend; the counts of a bucket are the sum
+ * of its stripes.
+ *
+ * @author Elisa Costante
+ *
+ */
+public class Histogram {
+
+	private final double[] bounds;
+	/**
+	 * The counts of a stripe: a bucket for each bound and one for the values
+	 * bigger than the last bound, rounded up to whole cache lines.
+	 */
+	private final int stripeLength;
+	private final AtomicLongArray cells;
+
+	/**
+	 * @param bounds
+	 *            : the inclusive upper bounds of the buckets, in increasing
+	 *            order. The values bigger than the last bound are counted by
+	 *            an extra bucket.
+	 */
+	public Histogram(double[] bounds) {
+		for (int i = 1; i < bounds.length; i++) {
+			if (!(bounds[i - 1] < bounds[i]))
+				throw new IllegalArgumentException("The bounds "
+						+ Arrays.toString(bounds) + " are not increasing");
+		}
+		this.bounds = bounds.clone();
+		int buckets = bounds.length + 1;
+		this.stripeLength = (buckets + StripedCounter.PADDING - 1)
+				/ StripedCounter.PADDING * StripedCounter.PADDING;
+		// the first line is left empty, away from the header of the array
+		this.cells = new AtomicLongArray((StripedCounter.getStripes() + 1)
+				* stripeLength);
+	}
+
+	/**
+	 * Returns a histogram with the bounds first, 2*first, 4*first, ... up to
+	 * <code>buckets</code> bounds.
+	 *
+	 * @param first
+	 * @param buckets
+	 * @return the histogram.
+	 */
+	public static Histogram exponential(double first, int buckets) {
+		double[] bounds = new double[buckets];
+		for (int i = 0; i < buckets; i++) {
+			bounds[i] = first * Math.pow(2, i);
+		}
+		return new Histogram(bounds);
+	}
+
+	/**
+	 * Counts the <code>value</code> in the first bucket whose bound is not
+	 * smaller than it.
+	 *
+	 * @param value
+	 */
+	public void record(double value) {
+		int bucket = Arrays.binarySearch(bounds, value);
+		if (bucket < 0)
+			bucket = -bucket - 1;
+		cells.incrementAndGet((StripedCounter.getStripe() + 1) * stripeLength
+				+ bucket);
+	}
+
+	/**
+	 * @return the upper bounds of the buckets.
+	 */
+	public double[] getBounds() {
+		return bounds.clone();
+	}
+
+	/**
+	 * @return the count of each bucket; the last one counts the values bigger
+	 *         than the last bound.
+	 */
+	public long[] getCounts() {
+		long[] counts = new long[bounds.length + 1];
+		for (int stripe = 1; stripe <= StripedCounter.getStripes(); stripe++) {
+			for (int i = 0; i < counts.length; i++) {
+				counts[i] = counts[i] + cells.get(stripe * stripeLength + i);
+			}
+		}
+		return counts;
+	}
+
+	/**
+	 * @return the number of recorded values.
+	 */
+	public long getCount() {
+		long count = 0;
+		for (long bucketCount : getCounts()) {
+			count = count + bucketCount;
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the bound of the bucket of the <code>quantile</code>: the
+	 * quantile is not bigger than it.
+	 *
+	 * @param quantile
+	 *            : a value in [0, 1], as 0.99.
+	 * @return the bound, {@link Double#POSITIVE_INFINITY} if the quantile is
+	 *         bigger than the last bound or {@link Double#NaN} if there are no
+	 *         values.
+	 */
+	public double getQuantile(double quantile) {
+		long[] counts = getCounts();
+		long count = 0;
+		for (long bucketCount : counts) {
+			count = count + bucketCount;
+		}
+		if (count == 0)
+			return Double.NaN;
+
+		long rank = (long) Math.ceil(quantile * count);
+		long cumulative = 0;
+		for (int i = 0; i < bounds.length; i++) {
+			cumulative = cumulative + counts[i];
+			if (cumulative >= rank && cumulative > 0)
+				return bounds[i];
+		}
+		return Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Sets all the counts to 0. The values recorded concurrently may be lost.
+	 */
+	public void reset() {
+		for (int i = 0; i < cells.length(); i++) {
+			cells.set(i, 0);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "Histogram [bounds=" + Arrays.toString(bounds) + ", counts="
+				+ Arrays.toString(getCounts()) + "]";
+	}
+
+}
@@ -4,6 +4,7 @@ import interfaces.IFocalElement;
 import interfaces.IHypothesis;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.InputStreamReader;
@@ -25,6 +26,20 @@ public class MassDistributionFileHandler {
 	 * @return a Valid {@link MassDistribution} or <code>null</code> otherwise.
 	 */
 	public MassDistribution getMassDistribution(String filename) {
+		Object event = EventTracer.getInstance().beginParsing();
+		MassDistribution massDistribution = readMassDistribution(filename);
+		if (event != null)
+			EventTracer.getInstance().endParsing(
+					event,
+					filename,
+					new File(filename).length(),
+					massDistribution != null ? 1 : 0,
+					massDistribution != null ? massDistribution
+							.getBodyOfEvidence().size() : 0);
+		return massDistribution;
+	}
+
+	private MassDistribution readMassDistribution(String filename) {
 		BufferedReader br = null;
 		try {
 			br = new BufferedReader(new InputStreamReader(new FileInputStream(
@@ -0,0 +1,81 @@
+package utilities;
+
+/**
+ * A splittable pseudo random generator (SplitMix64, the algorithm of
+ * <code>java.util.SplittableRandom</code>). {@link #split()} returns a new
+ * generator whose sequence is statistically independent from this one, so
+ * each thread of a parallel computation can draw from its own stream and the
+ * result depends only on the initial seed.<br>
+ * A generator is not thread safe: it must be used by a single thread.
+ *
+ * @author Elisa Costante
+ *
+ */
+public class SplitMix64 {
+
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+	private static final double DOUBLE_UNIT = 1.0 / (1L << 53);
+
+	private long seed;
+	private final long gamma;
+
+	/**
+	 * Constructs a generator with the given <code>seed</code>.
+	 *
+	 * @param seed
+	 */
+	public SplitMix64(long seed) {
+		this(seed, GOLDEN_GAMMA);
+	}
+
+	private SplitMix64(long seed, long gamma) {
+		this.seed = seed;
+		this.gamma = gamma;
+	}
+
+	private long nextSeed() {
+		seed = seed + gamma;
+		return seed;
+	}
+
+	/**
+	 * @return the next pseudo random long.
+	 */
+	public long nextLong() {
+		return FingerprintUtility.mix(nextSeed());
+	}
+
+	/**
+	 * @return the next pseudo random double, uniform between 0 (inclusive)
+	 *         and 1 (exclusive).
+	 */
+	public double nextDouble() {
+		return (nextLong() >>> 11) * DOUBLE_UNIT;
+	}
+
+	/**
+	 * Returns a new generator which draws from a different stream. The
+	 * state of this generator advances.
+	 *
+	 * @return the new generator.
+	 */
+	public SplitMix64 split() {
+		return new SplitMix64(nextLong(), mixGamma(nextSeed()));
+	}
+
+	/**
+	 * Returns an odd gamma with enough bit transitions for a new stream.
+	 */
+	private static long mixGamma(long value) {
+		long z = value;
+		z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+		z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		z = (z ^ (z >>> 33)) | 1L;
+		int transitions = Long.bitCount(z ^ (z >>> 1));
+		if (transitions < 24)
+			return z ^ 0xaaaaaaaaaaaaaaaaL;
+		else
+			return z;
+	}
+
+}
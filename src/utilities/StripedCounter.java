@@ -0,0 +1,100 @@
+package utilities;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter which many threads can increment without contending on a single
+ * value: each thread adds to one of several cells (a stripe), chosen by its
+ * identifier, and the value of the counter is the sum of the cells. The cells
+ * are spaced by a cache line, so the threads of different stripes do not
+ * invalidate each other's caches. Reading the value is not atomic with
+ * respect to the concurrent increments.
+ *
+ * @author Elisa Costante
+ *
+ */
+public class StripedCounter {
+
+	/**
+	 * The longs of a cache line of 64 bytes.
+	 */
+	static final int PADDING = 8;
+
+	private static final int MAX_STRIPES = 64;
+
+	private static final int STRIPES = computeStripes();
+
+	private final AtomicLongArray cells;
+
+	public StripedCounter() {
+		// the first line is left empty, away from the header of the array
+		cells = new AtomicLongArray((STRIPES + 1) * PADDING);
+	}
+
+	/**
+	 * @param value
+	 *            : the value added to the counter.
+	 */
+	public void add(long value) {
+		cells.addAndGet((getStripe() + 1) * PADDING, value);
+	}
+
+	public void increment() {
+		add(1);
+	}
+
+	/**
+	 * @return the sum of the cells.
+	 */
+	public long sum() {
+		long sum = 0;
+		for (int i = 1; i <= STRIPES; i++) {
+			sum = sum + cells.get(i * PADDING);
+		}
+		return sum;
+	}
+
+	/**
+	 * Sets the counter to 0. The increments concurrent to the reset may be
+	 * lost.
+	 */
+	public void reset() {
+		for (int i = 1; i <= STRIPES; i++) {
+			cells.set(i * PADDING, 0);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return Long.toString(sum());
+	}
+
+	/**
+	 * @return the number of stripes, a power of two.
+	 */
+	public static int getStripes() {
+		return STRIPES;
+	}
+
+	/**
+	 * @return the stripe of the current thread, between 0 and
+	 *         {@link #getStripes()}-1.
+	 */
+	public static int getStripe() {
+		return (int) FingerprintUtility.mix(Thread.currentThread().getId())
+				& (STRIPES - 1);
+	}
+
+	/**
+	 * Twice the processors, rounded up to a power of two.
+	 */
+	private static int computeStripes() {
+		int processors = Runtime.getRuntime().availableProcessors();
+		int stripes = 1;
+		while (stripes < 2 * processors && stripes < MAX_STRIPES) {
+			stripes = stripes << 1;
+		}
+		return stripes;
+	}
+
+}
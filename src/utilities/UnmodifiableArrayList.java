@@ -0,0 +1,175 @@
+package utilities;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+
+/**
+ * An {@link ArrayList} which cannot be modified after its construction. It is
+ * used where the library API exposes an {@link ArrayList} which must not be
+ * changed by the caller. Every method which would modify the list throws an
+ * {@link UnsupportedOperationException}.
+ *
+ * @author Elisa Costante
+ *
+ * @param <E>
+ */
+public class UnmodifiableArrayList<E> extends ArrayList<E> {
+
+	private static final long serialVersionUID = -2870126153285271377L;
+
+	public UnmodifiableArrayList(Collection<? extends E> elements) {
+		super(elements);
+	}
+
+	private void checkSealed() {
+		throw new UnsupportedOperationException("The list cannot be modified");
+	}
+
+	@Override
+	public boolean add(E e) {
+		checkSealed();
+		return super.add(e);
+	}
+
+	@Override
+	public void add(int index, E element) {
+		checkSealed();
+		super.add(index, element);
+	}
+
+	@Override
+	public boolean addAll(Collection<? extends E> c) {
+		checkSealed();
+		return super.addAll(c);
+	}
+
+	@Override
+	public boolean addAll(int index, Collection<? extends E> c) {
+		checkSealed();
+		return super.addAll(index, c);
+	}
+
+	@Override
+	public E set(int index, E element) {
+		checkSealed();
+		return super.set(index, element);
+	}
+
+	@Override
+	public E remove(int index) {
+		checkSealed();
+		return super.remove(index);
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		checkSealed();
+		return super.remove(o);
+	}
+
+	@Override
+	public boolean removeAll(Collection<?> c) {
+		checkSealed();
+		return super.removeAll(c);
+	}
+
+	@Override
+	public boolean retainAll(Collection<?> c) {
+		checkSealed();
+		return super.retainAll(c);
+	}
+
+	@Override
+	public void clear() {
+		checkSealed();
+		super.clear();
+	}
+
+	@Override
+	protected void removeRange(int fromIndex, int toIndex) {
+		checkSealed();
+		super.removeRange(fromIndex, toIndex);
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		return new UnmodifiableListIterator<E>(super.listIterator(0));
+	}
+
+	@Override
+	public ListIterator<E> listIterator() {
+		return new UnmodifiableListIterator<E>(super.listIterator(0));
+	}
+
+	@Override
+	public ListIterator<E> listIterator(int index) {
+		return new UnmodifiableListIterator<E>(super.listIterator(index));
+	}
+
+	@Override
+	public List<E> subList(int fromIndex, int toIndex) {
+		return Collections.unmodifiableList(super.subList(fromIndex, toIndex));
+	}
+
+	/**
+	 * Returns a modifiable copy of the list.
+	 */
+	@Override
+	public Object clone() {
+		return new ArrayList<E>(this);
+	}
+
+	private static class UnmodifiableListIterator<E> implements
+			ListIterator<E> {
+
+		private final ListIterator<E> iterator;
+
+		UnmodifiableListIterator(ListIterator<E> iterator) {
+			this.iterator = iterator;
+		}
+
+		public boolean hasNext() {
+			return iterator.hasNext();
+		}
+
+		public E next() {
+			return iterator.next();
+		}
+
+		public boolean hasPrevious() {
+			return iterator.hasPrevious();
+		}
+
+		public E previous() {
+			return iterator.previous();
+		}
+
+		public int nextIndex() {
+			return iterator.nextIndex();
+		}
+
+		public int previousIndex() {
+			return iterator.previousIndex();
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException(
+					"The list cannot be modified");
+		}
+
+		public void set(E e) {
+			throw new UnsupportedOperationException(
+					"The list cannot be modified");
+		}
+
+		public void add(E e) {
+			throw new UnsupportedOperationException(
+					"The list cannot be modified");
+		}
+	}
+
+}
@@ -0,0 +1,769 @@
+package utilities;
+
+import interfaces.IFocalElement;
+import interfaces.IHypothesis;
+import interfaces.IRange;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Hashtable;
+import java.util.Random;
+
+import joint.JointOperator;
+import massDistribution.ClassAttributeMap;
+import massDistribution.ClassificationAttribute;
+import massDistribution.ContinueMeasure;
+import massDistribution.ContinueRange;
+import massDistribution.DiscreteMeasure;
+import massDistribution.DiscreteRange;
+import massDistribution.MassDistribution;
+import massDistribution.MassShape;
+import massDistribution.MeasuredAttribute;
+import massDistribution.Metric;
+import massDistribution.MetricType;
+import core.ElementPool;
+import core.FocalElement;
+import core.FrameOfDiscernment;
+import core.Hypothesis;
+import core.SourceOfEvidence;
+
+/**
+ * Generates random workloads: frames, {@link ClassAttributeMap}s, populations
+ * of {@link SourceOfEvidence} and {@link MassDistribution}s, and writes them
+ * in the text formats read by {@link MassDistributionFileHandler} (a single
+ * mass) and by the scenario files as <code>test1.txt</code> (a frame and a
+ * mass for each line). There is no binary format.<br>
+ * The workload is controlled by:
+ * <ul>
+ * <li>size: the hypothesies of the frame, the masses or sources and the
+ * attributes of the map;</li>
+ * <li>sparsity: the focal elements of each mass, the ranges of each
+ * attribute and the fraction of the attributes measured by each source;</li>
+ * <li>conflict: the part of each mass which does not support a target
+ * hypothesis, drawn once for each call (see {@link #setConflict(double)});</li>
+ * <li>shape: the {@link MassShape} of the masses.</li>
+ * </ul>
+ * All the draws come from a single {@link Random} seeded by the constructor,
+ * so the same sequence of calls with the same seed generates the same
+ * workload.<br>
+ * It can be run from the command line too, see {@link #main(String[])}.
+ *
+ * @author Elisa Costante
+ *
+ */
+public class WorkloadGenerator {
+
+	/**
+	 * The continuous attributes take values in [0, MAX_VALUE).
+	 */
+	private static final double MAX_VALUE = 100;
+
+	private static final String USAGE = "Usage: WorkloadGenerator [-seed n] [-hypothesies n]"
+			+ " [-masses n] [-focalElements n] [-shape BAYESIAN|SIMPLE_SUPPORT|CONSONANT|GENERAL]"
+			+ " [-conflict x] [-sources n] [-attributes n] [-ranges n]"
+			+ " [-discreteFraction x] [-measuredFraction x] [-format scenario|mass]"
+			+ " [-output file]";
+
+	private Random random;
+
+	private int hypothesies = 8;
+	private int focalElements = 4;
+	private MassShape shape = MassShape.GENERAL;
+	private double conflict = Double.NaN;
+	private int attributes = 8;
+	private int ranges = 2;
+	private double discreteFraction = 0.5;
+	private double measuredFraction = 1;
+
+	/**
+	 * @param seed
+	 *            : the seed of all the draws.
+	 */
+	public WorkloadGenerator(long seed) {
+		this.random = new Random(seed);
+	}
+
+	/**
+	 * @return a frame with the hypothesies H0, H1, ...
+	 */
+	public FrameOfDiscernment newFrame() {
+		ArrayList<IHypothesis> frameHypothesies = new ArrayList<IHypothesis>();
+		for (int i = 0; i < hypothesies; i++) {
+			frameHypothesies.add(new Hypothesis("H" + i));
+		}
+		return new FrameOfDiscernment(frameHypothesies);
+	}
+
+	/**
+	 * Returns <code>count</code> random masses on the <code>frame</code>.
+	 * The focal elements of each mass are:
+	 * <ul>
+	 * <li>{@link MassShape#BAYESIAN}: random singletons;</li>
+	 * <li>{@link MassShape#SIMPLE_SUPPORT}: a random subset and the universal
+	 * set;</li>
+	 * <li>{@link MassShape#CONSONANT}: nested subsets on a random order of the
+	 * hypothesies;</li>
+	 * <li>{@link MassShape#GENERAL}: random subsets.</li>
+	 * </ul>
+	 * The number of focal elements is at most the one set by
+	 * {@link #setFocalElements(int)}, less if the frame does not have enough
+	 * subsets of the shape.
+	 *
+	 * @param frame
+	 * @param count
+	 * @return the masses.
+	 */
+	public ArrayList<MassDistribution> newMasses(FrameOfDiscernment frame,
+			int count) {
+		int n = frame.getElementPool().getHypothesisCount();
+		int target = isConflictControlled() ? random.nextInt(n) : -1;
+		ArrayList<MassDistribution> masses = new ArrayList<MassDistribution>();
+		for (int i = 0; i < count; i++) {
+			ArrayList<BitSet> masks = newMasks(n, target);
+			if (shape == MassShape.SIMPLE_SUPPORT)
+				masses.add(newMass(frame, masks, -1));
+			else
+				masses.add(newMass(frame, masks, target));
+		}
+		return masses;
+	}
+
+	/**
+	 * Returns a map of classification attributes, with the number of ranges
+	 * set by {@link #setRanges(int)} for each hypothesis of the
+	 * <code>frame</code>. The continuous attributes take values in [0, 100)
+	 * and their ranges cover each value about twice; the discrete ones take
+	 * the values v0, v1, ... and each range has two of them. All the
+	 * attributes have the same weight and the weights sum to less than 1, so
+	 * each mass of a source keeps some ignorance.
+	 *
+	 * @param frame
+	 * @return the map.
+	 */
+	public ClassAttributeMap newClassAttributeMap(FrameOfDiscernment frame) {
+		int values = getDiscreteValues(frame);
+		ArrayList<ClassificationAttribute> allAttributes = new ArrayList<ClassificationAttribute>();
+		for (int i = 0; i < attributes; i++) {
+			boolean discrete = random.nextDouble() < discreteFraction;
+			Hashtable<Hypothesis, ArrayList<IRange>> map = new Hashtable<Hypothesis, ArrayList<IRange>>();
+			for (IHypothesis hypothesis : frame.getHipothesies()) {
+				ArrayList<IRange> hypothesisRanges = new ArrayList<IRange>();
+				for (int j = 0; j < ranges; j++) {
+					if (discrete)
+						hypothesisRanges.add(newDiscreteRange(values));
+					else
+						hypothesisRanges.add(newContinueRange(frame));
+				}
+				map.put((Hypothesis) hypothesis, hypothesisRanges);
+			}
+
+			ClassificationAttribute attribute = new ClassificationAttribute(
+					"attribute" + i, 1.0 / (attributes + 1), map);
+			attribute.setMetric(new Metric("metric" + i,
+					discrete ? MetricType.DISCRETE : MetricType.REAL));
+			allAttributes.add(attribute);
+		}
+		return new ClassAttributeMap(allAttributes);
+	}
+
+	/**
+	 * Returns <code>count</code> sources named source0, source1, ... Each
+	 * source measures an attribute of the <code>classAttributeMap</code> with
+	 * the probability set by {@link #setMeasuredFraction(double)}, and the
+	 * measured value falls in a range of a random hypothesis, or of the
+	 * target hypothesis if the conflict is controlled.
+	 *
+	 * @param frame
+	 * @param classAttributeMap
+	 * @param count
+	 * @return the sources.
+	 */
+	public ArrayList<SourceOfEvidence> newSources(FrameOfDiscernment frame,
+			ClassAttributeMap classAttributeMap, int count) {
+		ArrayList<IHypothesis> frameHypothesies = frame.getHipothesies();
+		int target = isConflictControlled() ? random.nextInt(frameHypothesies
+				.size()) : -1;
+		ArrayList<SourceOfEvidence> sources = new ArrayList<SourceOfEvidence>();
+		for (int i = 0; i < count; i++) {
+			SourceOfEvidence source = new SourceOfEvidence("source" + i);
+			source.setFrameOfDiscernment(frame);
+			source.setMeasuredAttributes(new ArrayList<MeasuredAttribute>());
+			for (ClassificationAttribute attribute : classAttributeMap
+					.getAllAttributes()) {
+				if (random.nextDouble() >= measuredFraction)
+					continue;
+
+				int hypothesis = random.nextInt(frameHypothesies.size());
+				if (target >= 0 && random.nextDouble() >= conflict)
+					hypothesis = target;
+				ArrayList<IRange> hypothesisRanges = attribute
+						.getRanges(frameHypothesies.get(hypothesis));
+				IRange range = hypothesisRanges.get(random
+						.nextInt(hypothesisRanges.size()));
+
+				Metric metric = new Metric(attribute.getMetric().getName(),
+						attribute.getMetric().getType());
+				if (range instanceof DiscreteRange) {
+					ArrayList<DiscreteMeasure> rangeValues = ((DiscreteRange) range)
+							.getRangeElements();
+					metric.setMeasure(rangeValues.get(random
+							.nextInt(rangeValues.size())));
+				} else {
+					double lowerBound = ((Number) ((ContinueRange) range)
+							.getLowerBound()).doubleValue();
+					double upperBound = ((Number) ((ContinueRange) range)
+							.getUpperBound()).doubleValue();
+					metric.setMeasure(new ContinueMeasure(lowerBound
+							+ random.nextDouble() * (upperBound - lowerBound)));
+				}
+
+				MeasuredAttribute measured = new MeasuredAttribute(attribute
+						.getIdentifier());
+				measured.setMetric(metric);
+				source.addMeasuredAttribute(measured);
+			}
+			sources.add(source);
+		}
+		return sources;
+	}
+
+	/**
+	 * Writes the <code>mass</code> in the format of
+	 * {@link MassDistributionFileHandler}: a focal element for each line, as
+	 * {H0,H3}-0.25.
+	 *
+	 * @param mass
+	 * @param writer
+	 * @throws IOException
+	 * @throws IllegalArgumentException
+	 *             if a focal element is the empty set, which the format
+	 *             cannot hold.
+	 */
+	public static void writeMass(MassDistribution mass, Writer writer)
+			throws IOException {
+		writer.write("#" + mass.getBodyOfEvidence().size()
+				+ " focal elements\n");
+		for (IFocalElement focal : mass.getBodyOfEvidence()) {
+			writer.write("{" + toString(focal.getElement().getHypothesies())
+					+ "}-" + toString(focal.getBpa()) + "\n");
+		}
+	}
+
+	/**
+	 * Writes the <code>frame</code> and the <code>masses</code> in the
+	 * format of the scenario files: the frame after
+	 * <code>$Frame of Discernment</code> and a mass for each line after
+	 * <code>$Input row-N</code>, as {{H0,H3-0.25};{H1-0.75}}.
+	 *
+	 * @param frame
+	 * @param masses
+	 * @param writer
+	 * @throws IOException
+	 * @throws IllegalArgumentException
+	 *             if a focal element is the empty set, which the format
+	 *             cannot hold.
+	 */
+	public static void writeScenario(FrameOfDiscernment frame,
+			ArrayList<MassDistribution> masses, Writer writer)
+			throws IOException {
+		writer.write("#Generated by WorkloadGenerator\n");
+		writer.write("$Frame of Discernment\n{");
+		ArrayList<IHypothesis> frameHypothesies = frame.getHipothesies();
+		for (int i = 0; i < frameHypothesies.size(); i++) {
+			if (i > 0)
+				writer.write(",");
+			writer.write(frameHypothesies.get(i).getIdentifier());
+		}
+		writer.write("}\n$Input row-" + masses.size() + "\n");
+		for (MassDistribution mass : masses) {
+			writer.write(formatMass(mass) + "\n");
+		}
+	}
+
+	/**
+	 * Writes the expected result of the <code>operator</code> in the format
+	 * of the scenario files, after the masses written by
+	 * {@link #writeScenario(FrameOfDiscernment, ArrayList, Writer)}:
+	 * <code>$Output OPERATOR</code> followed by the mass.
+	 *
+	 * @param operator
+	 * @param result
+	 * @param writer
+	 * @throws IOException
+	 * @throws IllegalArgumentException
+	 *             if a focal element is the empty set, which the format
+	 *             cannot hold.
+	 */
+	public static void writeOutput(JointOperator operator,
+			MassDistribution result, Writer writer) throws IOException {
+		writer.write("$Output " + operator.getName() + "\n");
+		writer.write(formatMass(result) + "\n");
+	}
+
+	/**
+	 * Returns the <code>mass</code> as a line of the scenario files, as
+	 * {{H0,H3-0.25};{H1-0.75}}.
+	 *
+	 * @param mass
+	 * @return the line, without the line terminator.
+	 * @throws IllegalArgumentException
+	 *             if a focal element is the empty set, which the format
+	 *             cannot hold.
+	 */
+	public static String formatMass(MassDistribution mass) {
+		StringBuilder line = new StringBuilder("{");
+		for (IFocalElement focal : mass.getBodyOfEvidence()) {
+			if (line.length() > 1)
+				line.append(';');
+			line.append('{').append(
+					toString(focal.getElement().getHypothesies()));
+			line.append('-').append(toString(focal.getBpa())).append('}');
+		}
+		return line.append('}').toString();
+	}
+
+	/**
+	 * Writes a workload from the command line:
+	 * <p>
+	 * <code>WorkloadGenerator [-seed n] [-hypothesies n] [-masses n]
+	 * [-focalElements n] [-shape BAYESIAN|SIMPLE_SUPPORT|CONSONANT|GENERAL]
+	 * [-conflict x] [-sources n] [-attributes n] [-ranges n]
+	 * [-discreteFraction x] [-measuredFraction x] [-format scenario|mass]
+	 * [-output file]</code>
+	 * </p>
+	 * The masses are random, or computed by random sources on a random map if
+	 * <code>-sources</code> is given. The scenario format (the default) holds
+	 * any number of masses, the mass format a single one. The output is
+	 * written to the standard output if no file is given.
+	 *
+	 * @param args
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		long seed = 42;
+		int masses = 10;
+		int sources = 0;
+		String format = "scenario";
+		String output = null;
+		Hashtable<String, String> options = new Hashtable<String, String>();
+		for (int i = 0; i < args.length; i = i + 2) {
+			if (!args[i].startsWith("-") || i + 1 == args.length) {
+				System.err.println(USAGE);
+				return;
+			}
+			options.put(args[i].substring(1), args[i + 1]);
+		}
+
+		WorkloadGenerator generator;
+		try {
+			if (options.containsKey("seed"))
+				seed = Long.parseLong(options.remove("seed"));
+			if (options.containsKey("masses"))
+				masses = Integer.parseInt(options.remove("masses"));
+			if (options.containsKey("sources"))
+				sources = Integer.parseInt(options.remove("sources"));
+			if (options.containsKey("format"))
+				format = options.remove("format");
+			if (options.containsKey("output"))
+				output = options.remove("output");
+
+			generator = new WorkloadGenerator(seed);
+			if (options.containsKey("hypothesies"))
+				generator.setHypothesies(Integer.parseInt(options
+						.remove("hypothesies")));
+			if (options.containsKey("focalElements"))
+				generator.setFocalElements(Integer.parseInt(options
+						.remove("focalElements")));
+			if (options.containsKey("shape"))
+				generator.setShape(MassShape.valueOf(options.remove("shape")));
+			if (options.containsKey("conflict"))
+				generator.setConflict(Double.parseDouble(options
+						.remove("conflict")));
+			if (options.containsKey("attributes"))
+				generator.setAttributes(Integer.parseInt(options
+						.remove("attributes")));
+			if (options.containsKey("ranges"))
+				generator.setRanges(Integer.parseInt(options.remove("ranges")));
+			if (options.containsKey("discreteFraction"))
+				generator.setDiscreteFraction(Double.parseDouble(options
+						.remove("discreteFraction")));
+			if (options.containsKey("measuredFraction"))
+				generator.setMeasuredFraction(Double.parseDouble(options
+						.remove("measuredFraction")));
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println(USAGE);
+			return;
+		}
+		if (!options.isEmpty()
+				|| !(format.equals("scenario") || format.equals("mass"))) {
+			System.err.println(USAGE);
+			return;
+		}
+
+		FrameOfDiscernment frame = generator.newFrame();
+		ArrayList<MassDistribution> workload;
+		if (sources > 0) {
+			ClassAttributeMap classAttributeMap = generator
+					.newClassAttributeMap(frame);
+			workload = new ArrayList<MassDistribution>();
+			for (SourceOfEvidence source : generator.newSources(frame,
+					classAttributeMap, sources)) {
+				workload.add(source.getMassDistribution(frame,
+						classAttributeMap));
+			}
+		} else {
+			workload = generator.newMasses(frame, masses);
+		}
+
+		Writer writer;
+		if (output != null)
+			writer = new BufferedWriter(new OutputStreamWriter(
+					new FileOutputStream(output), "US-ASCII"));
+		else
+			writer = new BufferedWriter(new OutputStreamWriter(System.out,
+					"US-ASCII"));
+		try {
+			if (format.equals("mass")) {
+				if (workload.size() != 1) {
+					System.err.println("The mass format holds a single mass");
+					return;
+				}
+				writeMass(workload.get(0), writer);
+			} else {
+				writeScenario(frame, workload, writer);
+			}
+		} finally {
+			writer.flush();
+			if (output != null)
+				writer.close();
+		}
+	}
+
+	/**
+	 * @param hypothesies
+	 *            : the hypothesies of the frames, 8 by default.
+	 */
+	public void setHypothesies(int hypothesies) {
+		if (hypothesies < 1)
+			throw new IllegalArgumentException("A frame needs a hypothesis");
+		this.hypothesies = hypothesies;
+	}
+
+	public int getHypothesies() {
+		return hypothesies;
+	}
+
+	/**
+	 * @param focalElements
+	 *            : the maximum number of focal elements of each mass, 4 by
+	 *            default.
+	 */
+	public void setFocalElements(int focalElements) {
+		if (focalElements < 1)
+			throw new IllegalArgumentException(
+					"A mass needs a focal element");
+		this.focalElements = focalElements;
+	}
+
+	public int getFocalElements() {
+		return focalElements;
+	}
+
+	/**
+	 * @param shape
+	 *            : the shape of the masses, {@link MassShape#GENERAL} by
+	 *            default.
+	 */
+	public void setShape(MassShape shape) {
+		if (shape == null)
+			throw new IllegalArgumentException("The shape cannot be null");
+		this.shape = shape;
+	}
+
+	public MassShape getShape() {
+		return shape;
+	}
+
+	/**
+	 * Sets the conflict among the generated evidence. At each call a target
+	 * hypothesis is drawn and:
+	 * <ul>
+	 * <li>the BAYESIAN, CONSONANT and GENERAL masses give
+	 * <code>conflict</code> to the focal elements which do not contain the
+	 * target and the rest to the ones which contain it (when the mass has
+	 * both);</li>
+	 * <li>the focal element of a SIMPLE_SUPPORT mass does not contain the
+	 * target with probability <code>conflict</code>;</li>
+	 * <li>a source measures a value of the target with probability
+	 * <code>1 - conflict</code>.</li>
+	 * </ul>
+	 * {@link Double#NaN}, the default, leaves the conflict to chance.
+	 *
+	 * @param conflict
+	 *            : a value in [0, 1] or {@link Double#NaN}.
+	 */
+	public void setConflict(double conflict) {
+		if (conflict < 0 || conflict > 1)
+			throw new IllegalArgumentException("The conflict " + conflict
+					+ " is not in [0, 1]");
+		this.conflict = conflict;
+	}
+
+	public double getConflict() {
+		return conflict;
+	}
+
+	/**
+	 * @param attributes
+	 *            : the attributes of each map, 8 by default.
+	 */
+	public void setAttributes(int attributes) {
+		if (attributes < 0)
+			throw new IllegalArgumentException("Negative attributes");
+		this.attributes = attributes;
+	}
+
+	public int getAttributes() {
+		return attributes;
+	}
+
+	/**
+	 * @param ranges
+	 *            : the ranges of each hypothesis for each attribute, 2 by
+	 *            default.
+	 */
+	public void setRanges(int ranges) {
+		if (ranges < 1)
+			throw new IllegalArgumentException("An attribute needs a range");
+		this.ranges = ranges;
+	}
+
+	public int getRanges() {
+		return ranges;
+	}
+
+	/**
+	 * @param discreteFraction
+	 *            : the probability that an attribute is discrete, 0.5 by
+	 *            default.
+	 */
+	public void setDiscreteFraction(double discreteFraction) {
+		if (!(discreteFraction >= 0 && discreteFraction <= 1))
+			throw new IllegalArgumentException("The fraction "
+					+ discreteFraction + " is not in [0, 1]");
+		this.discreteFraction = discreteFraction;
+	}
+
+	public double getDiscreteFraction() {
+		return discreteFraction;
+	}
+
+	/**
+	 * @param measuredFraction
+	 *            : the probability that a source measures an attribute, 1 by
+	 *            default.
+	 */
+	public void setMeasuredFraction(double measuredFraction) {
+		if (!(measuredFraction >= 0 && measuredFraction <= 1))
+			throw new IllegalArgumentException("The fraction "
+					+ measuredFraction + " is not in [0, 1]");
+		this.measuredFraction = measuredFraction;
+	}
+
+	public double getMeasuredFraction() {
+		return measuredFraction;
+	}
+
+	private boolean isConflictControlled() {
+		return !Double.isNaN(conflict);
+	}
+
+	/**
+	 * Returns the focal elements of a mass as subsets of the n hypothesies.
+	 * If <code>target</code> is not negative the first subset contains it.
+	 */
+	private ArrayList<BitSet> newMasks(int n, int target) {
+		ArrayList<BitSet> masks = new ArrayList<BitSet>();
+		switch (shape.getValue()) {
+		case 1:
+			ArrayList<Integer> singletons = getOrder(n);
+			if (target >= 0)
+				Collections.swap(singletons, 0, singletons.indexOf(target));
+			for (Integer hypothesis : singletons) {
+				if (masks.size() == focalElements)
+					break;
+				BitSet mask = new BitSet(n);
+				mask.set(hypothesis);
+				masks.add(mask);
+			}
+			break;
+		case 2:
+			BitSet support = newSubset(n);
+			if (target >= 0) {
+				if (random.nextDouble() < conflict && n > 1) {
+					support.clear(target);
+					if (support.isEmpty())
+						support.set((target + 1 + random.nextInt(n - 1)) % n);
+				} else {
+					support.set(target);
+				}
+			}
+			masks.add(support);
+			BitSet all = new BitSet(n);
+			all.set(0, n);
+			if (!masks.contains(all))
+				masks.add(all);
+			break;
+		case 3:
+			// the sizes of the nested subsets, from the smallest
+			ArrayList<Integer> sizes = getOrder(n);
+			sizes = new ArrayList<Integer>(sizes.subList(0, Math.min(
+					focalElements, n)));
+			Collections.sort(sizes);
+			ArrayList<Integer> order = getOrder(n);
+			if (target >= 0) {
+				// only the smallest subset does not contain the target
+				int position = (sizes.size() > 1) ? sizes.get(0) + 1 : 0;
+				Collections.swap(order, position, order.indexOf(target));
+			}
+			for (Integer size : sizes) {
+				BitSet mask = new BitSet(n);
+				for (int i = 0; i <= size; i++) {
+					mask.set(order.get(i));
+				}
+				masks.add(mask);
+			}
+			break;
+		default:
+			double subsets = Math.pow(2, n) - 1;
+			while (masks.size() < Math.min(focalElements, subsets)) {
+				BitSet mask = newSubset(n);
+				if (target >= 0 && masks.isEmpty())
+					mask.set(target);
+				if (!masks.contains(mask))
+					masks.add(mask);
+			}
+			break;
+		}
+		return masks;
+	}
+
+	/**
+	 * Returns a random permutation of 0, ..., n-1.
+	 */
+	private ArrayList<Integer> getOrder(int n) {
+		ArrayList<Integer> order = new ArrayList<Integer>(n);
+		for (int i = 0; i < n; i++) {
+			order.add(i);
+		}
+		Collections.shuffle(order, random);
+		return order;
+	}
+
+	/**
+	 * Returns a random non empty subset of n hypothesies.
+	 */
+	private BitSet newSubset(int n) {
+		BitSet mask = new BitSet(n);
+		while (mask.isEmpty()) {
+			for (int i = 0; i < n; i++) {
+				if (random.nextBoolean())
+					mask.set(i);
+			}
+		}
+		return mask;
+	}
+
+	/**
+	 * Returns a mass on the <code>masks</code> with random bpa. If
+	 * <code>target</code> is not negative the masks which do not contain it
+	 * share the conflict.
+	 */
+	private MassDistribution newMass(FrameOfDiscernment frame,
+			ArrayList<BitSet> masks, int target) {
+		ElementPool pool = frame.getElementPool();
+		double[] bpas = new double[masks.size()];
+		double total = 0;
+		double conflicting = 0;
+		for (int i = 0; i < bpas.length; i++) {
+			bpas[i] = 0.01 + random.nextDouble();
+			total = total + bpas[i];
+			if (target >= 0 && !masks.get(i).get(target))
+				conflicting = conflicting + bpas[i];
+		}
+
+		ArrayList<IFocalElement> bodyOfEvidence = new ArrayList<IFocalElement>();
+		for (int i = 0; i < bpas.length; i++) {
+			double bpa = bpas[i] / total;
+			if (conflicting > 0 && conflicting < total) {
+				if (masks.get(i).get(target))
+					bpa = (1 - conflict) * bpas[i] / (total - conflicting);
+				else
+					bpa = conflict * bpas[i] / conflicting;
+			}
+			bodyOfEvidence.add(new FocalElement(pool.getElement(masks.get(i)),
+					bpa));
+		}
+		MassDistribution mass = new MassDistribution(bodyOfEvidence);
+		mass.setFrameOfDiscernment(frame);
+		return mass;
+	}
+
+	/**
+	 * Each hypothesis has about 4 discrete values.
+	 */
+	private int getDiscreteValues(FrameOfDiscernment frame) {
+		return 4 * frame.getHipothesies().size();
+	}
+
+	private DiscreteRange newDiscreteRange(int values) {
+		DiscreteRange range = new DiscreteRange();
+		range.addElement(new DiscreteMeasure("v" + random.nextInt(values)));
+		range.addElement(new DiscreteMeasure("v" + random.nextInt(values)));
+		return range;
+	}
+
+	/**
+	 * The ranges of all the hypothesies cover the values about twice.
+	 */
+	private ContinueRange newContinueRange(FrameOfDiscernment frame) {
+		double width = Math.min(MAX_VALUE, 2 * MAX_VALUE
+				/ (ranges * frame.getHipothesies().size()));
+		double lowerBound = random.nextDouble() * (MAX_VALUE - width);
+		return new ContinueRange(lowerBound, lowerBound + width, false, true);
+	}
+
+	/**
+	 * Returns the hypothesies of a focal element as H0,H3.
+	 */
+	private static String toString(ArrayList<IHypothesis> elementHypothesies) {
+		if (elementHypothesies == null || elementHypothesies.isEmpty())
+			throw new IllegalArgumentException(
+					"The empty set cannot be written");
+		StringBuilder string = new StringBuilder();
+		for (int i = 0; i < elementHypothesies.size(); i++) {
+			if (i > 0)
+				string.append(',');
+			string.append(elementHypothesies.get(i).getIdentifier());
+		}
+		return string.toString();
+	}
+
+	/**
+	 * Returns the bpa without exponent, since the readers split on '-'.
+	 */
+	private static String toString(double bpa) {
+		return new BigDecimal(bpa).setScale(15, RoundingMode.HALF_UP)
+				.toPlainString();
+	}
+
+}